@@ -3,9 +3,11 @@ package com.clothingstore;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.clothingstore.repository")
+@EnableScheduling
 public class ClothingstoreApplication {
     public static void main(String[] args) {
         SpringApplication.run(ClothingstoreApplication.class, args);
@@ -1,40 +1,762 @@
 package com.clothingstore.cache;
 
-import java.util.LinkedHashMap;
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.CatalogPage;
+import com.clothingstore.dto.CatalogSnapshot;
+import com.clothingstore.exception.CacheLoadTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * Потокобезопасный кэш с политикой вытеснения W-TinyLFU.
+ *
+ * <p>Ключи распределяются по сегментам, у каждого сегмента своя блокировка, LRU-окно,
+ * сегментированный LRU основной области (probation/protected) и частотный скетч.
+ * Чтение идёт без блокировки через {@link ConcurrentHashMap}; учёт обращения
+ * выполняется только если блокировку сегмента удалось взять сразу, поэтому под
+ * высокой конкуренцией часть обращений может не попасть в статистику политики.
+ *
+ * <p>Ёмкость задаётся весом {@code cache.maximum-weight}: список или снимок каталога весит
+ * по числу элементов, закодированное тело ответа — по килобайтам. При нулевом весе кэш
+ * ограничен числом записей {@code cache.maximum-size}, и каждая запись весит 1.
+ *
+ * <p>Записи можно помечать тегами (см. {@link CacheTags}) и инвалидировать по тегу,
+ * не затрагивая остальные записи кэша.
+ *
+ * <p>{@link #computeIfAbsent} загружает отсутствующее значение ровно один раз: параллельные
+ * промахи по тому же ключу ждут уже запущенную загрузку, а её ошибка передаётся всем
+ * ожидающим и не кэшируется.
+ *
+ * <p>Записи, загруженные через {@link #computeIfAbsentRefreshing}, при инвалидации по тегу
+ * не удаляются, а помечаются устаревшими и перестраиваются в фоне; пока идёт перестройка,
+ * читатели получают прежнее значение, но не дольше {@code cache.refresh-ahead.max-staleness}.
+ */
 @Service
 public class CacheService {
 
-    private static final int MAX_CACHE_SIZE = 100;
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
 
-    private final Map<String, Object> cache;
+    private static final long DEFAULT_MAXIMUM_SIZE = 100;
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final Duration DEFAULT_LOAD_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_MAX_STALENESS = Duration.ofSeconds(30);
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+
+    private static final String[] NO_TAGS = new String[0];
+
+    private final Map<String, Node> data = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> tagIndex = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Segment[] segments;
+    private final boolean weighted;
+    private final long defaultTtlNanos;
+    private final long loadTimeoutNanos;
+    private final long maxStalenessNanos;
+    private final ExecutorService refreshExecutor;
+    private final LongSupplier ticker;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder refreshNanos = new LongAdder();
+    private final LongAccumulator maxRefreshNanos = new LongAccumulator(Math::max, 0);
 
     public CacheService() {
+        this(WorkerThreads.platform(), DEFAULT_MAXIMUM_SIZE, 0, DEFAULT_SEGMENTS, Duration.ZERO,
+                DEFAULT_LOAD_TIMEOUT, DEFAULT_MAX_STALENESS, DEFAULT_REFRESH_THREADS);
+    }
 
-        this.cache = new LinkedHashMap<String, Object>(MAX_CACHE_SIZE, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+    @Autowired
+    public CacheService(WorkerThreads workerThreads,
+                        @Value("${cache.maximum-size:100}") long maximumSize,
+                        @Value("${cache.maximum-weight:100000}") long maximumWeight,
+                        @Value("${cache.segments:16}") int segmentCount,
+                        @Value("${cache.ttl:0s}") Duration ttl,
+                        @Value("${cache.load-timeout:10s}") Duration loadTimeout,
+                        @Value("${cache.refresh-ahead.max-staleness:30s}") Duration maxStaleness,
+                        @Value("${cache.refresh-ahead.threads:2}") int refreshThreads) {
+        this(maximumSize, maximumWeight, segmentCount, ttl, loadTimeout,
+                maxStaleness, refreshThreads, System::nanoTime,
+                workerThreads.factory("cache-refresh"));
+    }
 
-                return size() > MAX_CACHE_SIZE;
-            }
-        };
+    CacheService(long maximumSize, long maximumWeight, int segmentCount,
+                 Duration ttl, LongSupplier ticker) {
+        this(maximumSize, maximumWeight, segmentCount, ttl, DEFAULT_LOAD_TIMEOUT,
+                DEFAULT_MAX_STALENESS, DEFAULT_REFRESH_THREADS, ticker);
+    }
+
+    CacheService(long maximumSize, long maximumWeight, int segmentCount,
+                 Duration ttl, Duration loadTimeout, LongSupplier ticker) {
+        this(maximumSize, maximumWeight, segmentCount, ttl, loadTimeout,
+                DEFAULT_MAX_STALENESS, DEFAULT_REFRESH_THREADS, ticker);
+    }
+
+    CacheService(long maximumSize, long maximumWeight, int segmentCount,
+                 Duration ttl, Duration loadTimeout, Duration maxStaleness,
+                 int refreshThreads, LongSupplier ticker) {
+        this(maximumSize, maximumWeight, segmentCount, ttl, loadTimeout, maxStaleness,
+                refreshThreads, ticker, WorkerThreads.platformFactory("cache-refresh"));
+    }
+
+    private CacheService(long maximumSize, long maximumWeight, int segmentCount,
+                         Duration ttl, Duration loadTimeout, Duration maxStaleness,
+                         int refreshThreads, LongSupplier ticker, ThreadFactory threadFactory) {
+        this.weighted = maximumWeight > 0;
+        long capacity = weighted ? maximumWeight : maximumSize;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        int count = Integer.highestOneBit((int) Math.max(1,
+                Math.min(Math.max(segmentCount, 1), capacity)));
+        this.segments = new Segment[count];
+        long perSegment = (capacity + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.defaultTtlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.loadTimeoutNanos = loadTimeout.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.refreshExecutor = Executors.newFixedThreadPool(Math.max(1, refreshThreads),
+                threadFactory);
+        this.ticker = ticker;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
     }
 
     public void put(String key, Object value) {
-        cache.put(key, value);
+        put(key, value, null, null);
+    }
+
+    public void put(String key, Object value, Duration ttl) {
+        put(key, value, ttl, null);
+    }
+
+    public void put(String key, Object value, Collection<String> tags) {
+        put(key, value, null, tags);
+    }
+
+    public void put(String key, Object value, Duration ttl, Collection<String> tags) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        long ttlNanos = ttl != null ? ttl.toNanos() : defaultTtlNanos;
+        long expiresAt = ttlNanos > 0 ? ticker.getAsLong() + ttlNanos : 0;
+        String[] tagArray = tags == null || tags.isEmpty() ? NO_TAGS : tags.toArray(NO_TAGS);
+        int hash = spread(key.hashCode());
+        segmentFor(hash).put(key, hash, value, weigh(value), expiresAt, tagArray, null);
+    }
+
+    private void putRefreshable(String key, Object value, Collection<String> tags,
+                                Refresher refresher) {
+        long expiresAt = defaultTtlNanos > 0 ? ticker.getAsLong() + defaultTtlNanos : 0;
+        String[] tagArray = tags == null || tags.isEmpty() ? NO_TAGS : tags.toArray(NO_TAGS);
+        int hash = spread(key.hashCode());
+        segmentFor(hash).put(key, hash, value, weigh(value), expiresAt, tagArray, refresher);
     }
 
     public Object get(String key) {
-        return cache.get(key);
+        int hash = spread(key.hashCode());
+        Segment segment = segmentFor(hash);
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            segment.recordMiss(hash);
+            return null;
+        }
+        if (node.isExpired(ticker.getAsLong())) {
+            misses.increment();
+            segment.removeExpired(node);
+            return null;
+        }
+        hits.increment();
+        segment.recordAccess(node);
+        return node.value;
     }
 
-    public void clear() {
-        cache.clear();
+    /**
+     * Возвращает значение из кэша или загружает его через {@code loader}, помечая тегами,
+     * которые вычисляет {@code tagger}. Одновременные промахи по одному ключу разделяют
+     * одну загрузку; ожидание чужой загрузки ограничено {@code cache.load-timeout}.
+     * Значение {@code null} от загрузчика возвращается, но не кэшируется. Результат загрузки,
+     * во время которой произошла инвалидация, тоже не кэшируется: он мог устареть.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(String key, Supplier<T> loader,
+                                 Function<? super T, ? extends Collection<String>> tagger) {
+        Object cached = get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        return load(key, loader, tagger, null);
+    }
+
+    /**
+     * Как {@link #computeIfAbsent}, но запись работает в режиме refresh-ahead: после
+     * инвалидации по тегу читатели продолжают получать прежнее значение, пока фоновая
+     * задача его перестраивает. Если значение устарело больше чем на
+     * {@code cache.refresh-ahead.max-staleness}, читатель дожидается перестройки.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsentRefreshing(
+            String key, Supplier<T> loader,
+            Function<? super T, ? extends Collection<String>> tagger) {
+        int hash = spread(key.hashCode());
+        Node node = data.get(key);
+        long now = ticker.getAsLong();
+        if (node != null && !node.isExpired(now)) {
+            boolean stale = node.stale;
+            long staleSince = node.staleSince;
+            Refresher refresher = node.refresher;
+            if (!stale || refresher == null) {
+                hits.increment();
+                segmentFor(hash).recordAccess(node);
+                return (T) node.value;
+            }
+            CompletableFuture<Object> refresh = scheduleRefresh(key, refresher);
+            if (now - staleSince <= maxStalenessNanos) {
+                staleHits.increment();
+                segmentFor(hash).recordAccess(node);
+                return (T) node.value;
+            }
+            return (T) await(key, refresh);
+        }
+        misses.increment();
+        segmentFor(hash).recordMiss(hash);
+        Refresher newRefresher = new Refresher((Supplier<Object>) loader,
+                value -> tagger.apply((T) value));
+        return load(key, loader, tagger, newRefresher);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(String key, Supplier<T> loader,
+                       Function<? super T, ? extends Collection<String>> tagger,
+                       Refresher refresher) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return (T) await(key, running);
+        }
+        try {
+            Object cached = peek(key);
+            if (cached != null) {
+                load.complete(cached);
+                return (T) cached;
+            }
+            long epoch = invalidations.get();
+            T value = loader.get();
+            if (value != null && epoch == invalidations.get()) {
+                if (refresher != null) {
+                    putRefreshable(key, value, tagger.apply(value), refresher);
+                } else {
+                    put(key, value, tagger.apply(value));
+                }
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private CompletableFuture<Object> scheduleRefresh(String key, Refresher refresher) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, refresh);
+        if (running != null) {
+            return running;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(key, refresher, refresh));
+        } catch (RejectedExecutionException e) {
+            loads.remove(key, refresh);
+            refresh.completeExceptionally(e);
+        }
+        return refresh;
+    }
+
+    private void refresh(String key, Refresher refresher, CompletableFuture<Object> refresh) {
+        long start = ticker.getAsLong();
+        long epoch = invalidations.get();
+        boolean invalidatedMeanwhile = false;
+        try {
+            Object value = refresher.loader().get();
+            putRefreshable(key, value, refresher.tagger().apply(value), refresher);
+            invalidatedMeanwhile = epoch != invalidations.get();
+            if (invalidatedMeanwhile) {
+                Node node = data.get(key);
+                if (node != null) {
+                    node.staleSince = start;
+                    node.stale = true;
+                }
+            }
+            refresh.complete(value);
+            refreshes.increment();
+        } catch (RuntimeException | Error e) {
+            refreshFailures.increment();
+            logger.warn("Background refresh of '{}' failed: {}", key, e.toString());
+            refresh.completeExceptionally(e);
+        } finally {
+            long elapsed = ticker.getAsLong() - start;
+            refreshNanos.add(elapsed);
+            maxRefreshNanos.accumulate(elapsed);
+            loads.remove(key, refresh);
+        }
+        if (invalidatedMeanwhile) {
+            scheduleRefresh(key, refresher);
+        }
+    }
+
+    private Object await(String key, CompletableFuture<Object> load) {
+        try {
+            return load.get(loadTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new CacheLoadTimeoutException("Timed out waiting for cache load of '"
+                    + key + "'");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoadTimeoutException("Interrupted while waiting for cache load of '"
+                    + key + "'");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
     }
 
     public boolean contains(String key) {
-        return cache.containsKey(key);
+        return peek(key) != null;
+    }
+
+    private Object peek(String key) {
+        Node node = data.get(key);
+        return node != null && !node.isExpired(ticker.getAsLong()) ? node.value : null;
+    }
+
+    public void remove(String key) {
+        invalidations.incrementAndGet();
+        segmentFor(spread(key.hashCode())).remove(key);
+    }
+
+    public void invalidateTag(String tag) {
+        invalidations.incrementAndGet();
+        Set<String> keys = tagIndex.remove(tag);
+        if (keys == null) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        for (String key : keys) {
+            Node node = data.get(key);
+            if (node != null && node.refresher != null && !node.isExpired(now)) {
+                if (!node.stale) {
+                    node.staleSince = now;
+                    node.stale = true;
+                }
+                scheduleRefresh(key, node.refresher);
+            } else {
+                remove(key);
+            }
+        }
+    }
+
+    public void invalidateTags(Collection<String> tags) {
+        for (String tag : tags) {
+            invalidateTag(tag);
+        }
+    }
+
+    public void invalidateTagsMatching(Predicate<String> filter) {
+        List<String> matching = new ArrayList<>();
+        for (String tag : tagIndex.keySet()) {
+            if (filter.test(tag)) {
+                matching.add(tag);
+            }
+        }
+        invalidateTags(matching);
+    }
+
+    public void clear() {
+        invalidations.incrementAndGet();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public CacheStatistics stats() {
+        long completed = refreshes.sum() + refreshFailures.sum();
+        return new CacheStatistics(
+                data.size(),
+                hits.sum(),
+                misses.sum(),
+                staleHits.sum(),
+                refreshes.sum(),
+                refreshFailures.sum(),
+                completed == 0 ? 0 : refreshNanos.sum() / completed / 1_000_000.0,
+                maxRefreshNanos.get() / 1_000_000.0);
+    }
+
+    private long weigh(Object value) {
+        if (!weighted) {
+            return 1;
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size() + 1L;
+        }
+        if (value instanceof CatalogSnapshot snapshot) {
+            return snapshot.items().size() + 1L;
+        }
+        if (value instanceof CatalogPage page) {
+            return page.items().size() + 1L;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length / 1024 + 1L;
+        }
+        if (value instanceof CachedResponse response) {
+            return response.size() / 1024 + 1L;
+        }
+        return 1;
+    }
+
+    private void linkTags(String key, String[] tags) {
+        for (String tag : tags) {
+            tagIndex.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void unlinkTags(String key, String[] tags) {
+        for (String tag : tags) {
+            tagIndex.computeIfPresent(tag, (t, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & (segments.length - 1)];
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    private enum Queue { WINDOW, PROBATION, PROTECTED }
+
+    private record Refresher(Supplier<Object> loader,
+                             Function<Object, ? extends Collection<String>> tagger) {
+    }
+
+    private static final class Node {
+        final String key;
+        final int hash;
+        volatile Object value;
+        volatile long expiresAt;
+        volatile boolean stale;
+        volatile long staleSince;
+        volatile Refresher refresher;
+        String[] tags;
+        long weight;
+        Queue queue;
+        Node prev;
+        Node next;
+
+        Node(String key, int hash, Object value, long weight, long expiresAt, String[] tags,
+             Refresher refresher) {
+            this.refresher = refresher;
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.tags = tags;
+        }
+
+        boolean isExpired(long now) {
+            long deadline = expiresAt;
+            return deadline != 0 && now - deadline >= 0;
+        }
+    }
+
+    /** Двусвязный список узлов: голова — наименее недавно использованный элемент. */
+    private static final class AccessOrder {
+        Node head;
+        Node tail;
+        long weight;
+
+        void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        void unlink(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        void moveToLast(Node node) {
+            if (tail != node) {
+                unlink(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long maximum;
+        private final long windowMaximum;
+        private final long protectedMaximum;
+        private final FrequencySketch sketch;
+        private final AccessOrder window = new AccessOrder();
+        private final AccessOrder probation = new AccessOrder();
+        private final AccessOrder protectedQueue = new AccessOrder();
+
+        Segment(long maximum) {
+            this.maximum = maximum;
+            this.windowMaximum = Math.max(1, maximum / 100);
+            this.protectedMaximum = (long) ((maximum - windowMaximum) * 0.8);
+            this.sketch = new FrequencySketch(maximum);
+        }
+
+        void put(String key, int hash, Object value, long weight, long expiresAt,
+                 String[] tags, Refresher refresher) {
+            lock.lock();
+            try {
+                if (weight > maximum) {
+                    removeLocked(key);
+                    return;
+                }
+                Node node = data.get(key);
+                if (node != null) {
+                    queueOf(node).weight += weight - node.weight;
+                    node.weight = weight;
+                    node.value = value;
+                    node.expiresAt = expiresAt;
+                    node.stale = false;
+                    node.refresher = refresher;
+                    unlinkTags(key, node.tags);
+                    node.tags = tags;
+                    linkTags(key, tags);
+                    onAccess(node);
+                } else {
+                    linkTags(key, tags);
+                    node = new Node(key, hash, value, weight, expiresAt, tags, refresher);
+                    node.queue = Queue.WINDOW;
+                    window.addLast(node);
+                    data.put(key, node);
+                    sketch.increment(hash);
+                }
+                evict();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void recordAccess(Node node) {
+            if (lock.tryLock()) {
+                try {
+                    if (node.queue != null) {
+                        onAccess(node);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void recordMiss(int hash) {
+            if (lock.tryLock()) {
+                try {
+                    sketch.increment(hash);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        void remove(String key) {
+            lock.lock();
+            try {
+                removeLocked(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void removeExpired(Node node) {
+            lock.lock();
+            try {
+                if (node.queue != null) {
+                    evictNode(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                for (AccessOrder order : new AccessOrder[] {window, probation, protectedQueue}) {
+                    for (Node node = order.head; node != null; node = node.next) {
+                        data.remove(node.key, node);
+                        unlinkTags(node.key, node.tags);
+                        node.queue = null;
+                    }
+                    order.clear();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void removeLocked(String key) {
+            Node node = data.get(key);
+            if (node != null && node.queue != null) {
+                evictNode(node);
+            }
+        }
+
+        private void onAccess(Node node) {
+            sketch.increment(node.hash);
+            switch (node.queue) {
+                case WINDOW -> window.moveToLast(node);
+                case PROBATION -> {
+                    probation.unlink(node);
+                    node.queue = Queue.PROTECTED;
+                    protectedQueue.addLast(node);
+                    while (protectedQueue.weight > protectedMaximum
+                            && protectedQueue.head != null) {
+                        Node demoted = protectedQueue.head;
+                        protectedQueue.unlink(demoted);
+                        demoted.queue = Queue.PROBATION;
+                        probation.addLast(demoted);
+                    }
+                }
+                case PROTECTED -> protectedQueue.moveToLast(node);
+                default -> throw new IllegalStateException();
+            }
+        }
+
+        private void evict() {
+            evictExpiredHeads();
+            while (window.weight > windowMaximum && window.head != null) {
+                Node node = window.head;
+                window.unlink(node);
+                node.queue = Queue.PROBATION;
+                probation.addLast(node);
+            }
+            while (weightedSize() > maximum) {
+                Node victim = probation.head != null ? probation.head : protectedQueue.head;
+                Node candidate = probation.tail;
+                if (victim == null) {
+                    evictNode(window.head);
+                } else if (candidate == null || candidate == victim) {
+                    evictNode(victim);
+                } else if (sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                    evictNode(victim);
+                } else {
+                    evictNode(candidate);
+                }
+            }
+        }
+
+        private void evictExpiredHeads() {
+            long now = ticker.getAsLong();
+            for (AccessOrder order : new AccessOrder[] {window, probation, protectedQueue}) {
+                while (order.head != null && order.head.isExpired(now)) {
+                    evictNode(order.head);
+                }
+            }
+        }
+
+        private void evictNode(Node node) {
+            queueOf(node).unlink(node);
+            node.queue = null;
+            data.remove(node.key, node);
+            unlinkTags(node.key, node.tags);
+        }
+
+        private long weightedSize() {
+            return window.weight + probation.weight + protectedQueue.weight;
+        }
+
+        private AccessOrder queueOf(Node node) {
+            return switch (node.queue) {
+                case WINDOW -> window;
+                case PROBATION -> probation;
+                case PROTECTED -> protectedQueue;
+            };
+        }
     }
 }
@@ -0,0 +1,24 @@
+package com.clothingstore.cache;
+
+/**
+ * Снимок счётчиков {@link CacheService}.
+ *
+ * @param size                 текущее число записей
+ * @param hits                 попадания
+ * @param misses               промахи
+ * @param staleHits            обращения, получившие устаревшее значение во время перестройки
+ * @param refreshes            успешные фоновые перестройки
+ * @param refreshFailures      неудачные фоновые перестройки
+ * @param averageRefreshMillis средняя длительность перестройки
+ * @param maxRefreshMillis     максимальная длительность перестройки
+ */
+public record CacheStatistics(
+        long size,
+        long hits,
+        long misses,
+        long staleHits,
+        long refreshes,
+        long refreshFailures,
+        double averageRefreshMillis,
+        double maxRefreshMillis) {
+}
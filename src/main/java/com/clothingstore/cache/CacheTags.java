@@ -0,0 +1,69 @@
+package com.clothingstore.cache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Теги, которыми помечаются записи кэша каталога. Запись зависит от всех своих тегов:
+ * изменение любого из них должно приводить к её инвалидации.
+ */
+public final class CacheTags {
+
+    /** Полный список товаров. */
+    public static final String ALL_ITEMS = "items:all";
+
+    /** Все страницы постраничного списка товаров: любая запись может сдвинуть их границы. */
+    public static final String CATALOG_PAGES = "items:pages";
+
+    /** Сводки отзывов всех товаров: сбрасываются целиком при пересчёте агрегатов. */
+    public static final String REVIEW_SUMMARIES = "reviews:summaries";
+
+    private static final String ITEM_PREFIX = "item:";
+    private static final String NAME_SEARCH_PREFIX = "search:name:";
+    private static final String RATING_SEARCH_PREFIX = "search:rating:";
+
+    private CacheTags() {
+    }
+
+    public static String item(Long id) {
+        return ITEM_PREFIX + id;
+    }
+
+    /** Теги результата запроса: теги самого запроса и теги каждого попавшего в него товара. */
+    public static Set<String> forItems(Collection<Long> itemIds, String... queryTags) {
+        Set<String> tags = new HashSet<>(List.of(queryTags));
+        for (Long id : itemIds) {
+            tags.add(item(id));
+        }
+        return tags;
+    }
+
+    public static String nameSearch(String term) {
+        return NAME_SEARCH_PREFIX + term.toLowerCase(Locale.ROOT);
+    }
+
+    public static String ratingSearch(int rating) {
+        return RATING_SEARCH_PREFIX + rating;
+    }
+
+    public static boolean isNameSearch(String tag) {
+        return tag.startsWith(NAME_SEARCH_PREFIX);
+    }
+
+    public static boolean isRatingSearch(String tag) {
+        return tag.startsWith(RATING_SEARCH_PREFIX);
+    }
+
+    /**
+     * Проверяет, относится ли тег к поиску по имени, в результат которого
+     * попал бы товар с указанным названием.
+     */
+    public static boolean isNameSearchMatching(String tag, String itemName) {
+        return tag.startsWith(NAME_SEARCH_PREFIX)
+                && itemName.toLowerCase(Locale.ROOT)
+                .contains(tag.substring(NAME_SEARCH_PREFIX.length()));
+    }
+}
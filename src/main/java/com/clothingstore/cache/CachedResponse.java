@@ -0,0 +1,16 @@
+package com.clothingstore.cache;
+
+/**
+ * Закодированное тело ответа: JSON и, для достаточно больших тел, его gzip-вариант.
+ *
+ * @param source значение, из которого получено тело; тело действительно, пока кэш
+ *               сущностей возвращает этот же объект
+ * @param json   тело в UTF-8
+ * @param gzip   сжатое тело или {@code null}, если сжимать его невыгодно
+ */
+public record CachedResponse(Object source, byte[] json, byte[] gzip) {
+
+    long size() {
+        return json.length + (gzip == null ? 0L : gzip.length);
+    }
+}
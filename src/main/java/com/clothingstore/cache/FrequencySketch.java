@@ -0,0 +1,79 @@
+package com.clothingstore.cache;
+
+/**
+ * Count-Min sketch с 4-битными счётчиками, используемый политикой TinyLFU
+ * для оценки частоты обращений к ключу. Счётчики периодически делятся пополам,
+ * чтобы старая популярность со временем «забывалась».
+ *
+ * <p>Класс не потокобезопасен: доступ к нему сериализуется блокировкой сегмента кэша.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNTER = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int size = tableSizeFor((int) Math.min(Math.max(expectedEntries, 8), 1 << 24));
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * (int) Math.max(expectedEntries, 8);
+    }
+
+    int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNTER;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(capacity - 1) << 1;
+        return Math.max(n, 8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.clothingstore.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Кэш уже сериализованных ответов поверх {@link CacheService}. Тело хранится вместе с
+ * объектом, из которого оно получено, и переиспользуется, только пока кэш сущностей
+ * возвращает тот же объект: любая инвалидация или перестройка записи в кэше сущностей
+ * даёт новый объект, и тело кодируется заново. Записи помечаются теми же тегами, что и
+ * исходные значения, поэтому освобождаются вместе с ними.
+ */
+@Component
+public class ResponseCache {
+
+    /** Тела меньше этого размера не сжимаются: выигрыш не окупает заголовки gzip. */
+    static final int GZIP_MIN_BYTES = 1024;
+
+    private static final String KEY_PREFIX = "response:";
+
+    private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
+
+    public ResponseCache(CacheService cacheService, ObjectMapper objectMapper) {
+        this.cacheService = cacheService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Возвращает закодированное тело для {@code value}, кодируя его только если в кэше
+     * нет тела, полученного из этого же объекта.
+     *
+     * @param key   ключ ответа: эндпоинт и параметры запроса
+     * @param value текущее значение из кэша сущностей
+     * @param tags  теги записи; вычисляются только при кодировании
+     */
+    public CachedResponse encode(String key, Object value,
+                                 Supplier<? extends Collection<String>> tags) {
+        String cacheKey = KEY_PREFIX + key;
+        if (cacheService.get(cacheKey) instanceof CachedResponse cached
+                && cached.source() == value) {
+            return cached;
+        }
+        CachedResponse response = encode(value);
+        cacheService.put(cacheKey, response, tags.get());
+        return response;
+    }
+
+    private CachedResponse encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new CachedResponse(value, json,
+                    json.length < GZIP_MIN_BYTES ? null : gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
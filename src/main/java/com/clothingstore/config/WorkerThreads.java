@@ -0,0 +1,77 @@
+package com.clothingstore.config;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Фабрики потоков для фоновых исполнителей приложения. При
+ * {@code spring.threads.virtual.enabled=true} Spring Boot переводит на виртуальные потоки
+ * Tomcat и исполнитель {@code @Async}; этот класс делает то же для собственных пулов.
+ *
+ * <p>Проект собирается под Java 17, поэтому виртуальные потоки создаются через
+ * {@link VirtualThreadTaskExecutor}, который доступен только на JDK 21+. На более старой
+ * JVM режим выключается с предупреждением, и используются обычные потоки.
+ *
+ * <p>Виртуальный поток, заблокированный внутри {@code synchronized}, занимает поток-носитель
+ * (pinning). Задачи, блокирующиеся под чужими мониторами, например запись в
+ * {@code SseEmitter}, должны оставаться на {@link #platformFactory платформенных} потоках.
+ */
+@Component
+public class WorkerThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerThreads.class);
+
+    private final boolean virtual;
+
+    public WorkerThreads(@Value("${spring.threads.virtual.enabled:false}") boolean enabled) {
+        this.virtual = enabled && virtualThreadsSupported();
+        if (enabled && !virtual) {
+            logger.warn("Virtual threads requested but not supported by Java {}; "
+                    + "using platform threads", Runtime.version().feature());
+        }
+    }
+
+    /** Обычные потоки, например для тестов, где режим не важен. */
+    public static WorkerThreads platform() {
+        return new WorkerThreads(false);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Фабрика для задач с блокирующим вводом-выводом: виртуальные потоки, если режим
+     * включён, иначе платформенные daemon-потоки. Потоки называются {@code prefix-N}.
+     */
+    public ThreadFactory factory(String prefix) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(prefix + "-").getVirtualThreadFactory();
+        }
+        return platformFactory(prefix);
+    }
+
+    /** Платформенные daemon-потоки независимо от режима. */
+    public static ThreadFactory platformFactory(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean virtualThreadsSupported() {
+        try {
+            new VirtualThreadTaskExecutor();
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+}
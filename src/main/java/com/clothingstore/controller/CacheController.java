@@ -0,0 +1,30 @@
+package com.clothingstore.controller;
+
+import com.clothingstore.cache.CacheService;
+import com.clothingstore.cache.CacheStatistics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache", description = "Статистика кэша")
+public class CacheController {
+
+    private final CacheService cacheService;
+
+    public CacheController(CacheService cacheService) {
+        this.cacheService = cacheService;
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Получить статистику кэша",
+            description = "Возвращает число попаданий и промахов, количество ответов "
+                    + "устаревшими данными и длительность фоновых перестроек")
+    public ResponseEntity<CacheStatistics> getStats() {
+        return ResponseEntity.ok(cacheService.stats());
+    }
+}
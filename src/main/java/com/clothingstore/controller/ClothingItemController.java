@@ -1,19 +1,45 @@
 package com.clothingstore.controller;
 
+import com.clothingstore.cache.CacheTags;
+import com.clothingstore.cache.CachedResponse;
+import com.clothingstore.cache.ResponseCache;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.CatalogPage;
+import com.clothingstore.dto.CatalogPageResponse;
+import com.clothingstore.dto.CatalogSnapshot;
+import com.clothingstore.dto.CatalogSort;
+import com.clothingstore.dto.ChangeFeed;
+import com.clothingstore.dto.ClothingItemFields;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.exception.BadRequestException;
 import com.clothingstore.exception.ResourceNotFoundException;
 import com.clothingstore.model.ClothingItem;
+import com.clothingstore.service.CatalogChangeLog;
+import com.clothingstore.service.CatalogEventBroadcaster;
+import com.clothingstore.service.CatalogExportService;
+import com.clothingstore.service.CatalogVersion;
 import com.clothingstore.service.ClothingItemService;
 import com.clothingstore.service.RequestCounterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,9 +47,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -32,86 +62,260 @@ import org.springframework.web.bind.annotation.RestController;
 public class ClothingItemController {
 
     private static final String ITEM_NOT_FOUND = "Item not found with id: ";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String INCLUDE_REVIEWS = "reviews";
+    private static final String INCLUDE_DESCRIPTION = "Связанные данные: reviews — отзывы товара";
 
     private final ClothingItemService clothingItemService;
     private final RequestCounterService requestCounterService;
+    private final CatalogExportService catalogExportService;
+    private final ResponseCache responseCache;
+    private final CatalogVersion catalogVersion;
+    private final CatalogChangeLog changeLog;
+    private final CatalogEventBroadcaster eventBroadcaster;
 
     public ClothingItemController(ClothingItemService clothingItemService,
-                                  RequestCounterService requestCounterService) {
+                                  RequestCounterService requestCounterService,
+                                  CatalogExportService catalogExportService,
+                                  ResponseCache responseCache,
+                                  CatalogVersion catalogVersion,
+                                  CatalogChangeLog changeLog,
+                                  CatalogEventBroadcaster eventBroadcaster) {
         this.clothingItemService = clothingItemService;
         this.requestCounterService = requestCounterService;
+        this.catalogExportService = catalogExportService;
+        this.responseCache = responseCache;
+        this.catalogVersion = catalogVersion;
+        this.changeLog = changeLog;
+        this.eventBroadcaster = eventBroadcaster;
     }
 
     @GetMapping
     @Operation(summary = "Получить все товары",
-            description = "Возвращает список всех товаров одежды")
-    public ResponseEntity<List<ClothingItem>> getAllItems() {
+            description = "Возвращает список всех товаров одежды. Ответ содержит ETag версии "
+                    + "каталога; при совпадении If-None-Match возвращается 304")
+    @ApiResponse(responseCode = "200", description = "Список товаров",
+            content = @Content(array = @ArraySchema(
+                    schema = @Schema(implementation = ClothingItemView.class))))
+    @ApiResponse(responseCode = "304", description = "Каталог не изменился")
+    public ResponseEntity<?> getAllItems(
+            @Parameter(description = INCLUDE_DESCRIPTION)
+            @RequestParam(required = false) String include,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+            WebRequest webRequest) {
         requestCounterService.increment();  
-        List<ClothingItem> items = clothingItemService.getAllItems();
-        return ResponseEntity.ok(items);
+        if (include == null) {
+            long current = catalogVersion.current();
+            String matched = matchingEtag(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH),
+                    catalogVersion.etag(current), catalogVersion.gzipEtag(current));
+            if (matched != null) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(matched)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+            }
+        }
+        CatalogSnapshot snapshot = clothingItemService.getCatalogSnapshot();
+        if (include != null) {
+            return ResponseEntity.ok(include(snapshot.items(), include));
+        }
+        String etag = catalogVersion.etag(snapshot.version());
+        String gzipEtag = catalogVersion.gzipEtag(snapshot.version());
+        return cachedJson(encode("GET /api/clothing", snapshot.items(), CacheTags.ALL_ITEMS),
+                acceptEncoding, etag, gzipEtag);
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Получить страницу товаров",
+            description = "Возвращает страницу товаров с keyset-пагинацией. Для следующей "
+                    + "страницы передайте nextCursor из предыдущего ответа")
+    public ResponseEntity<CatalogPageResponse> getItemsPage(
+            @Parameter(description = "Курсор следующей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы от 1 до 100")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @Parameter(description = "Сортировка: ID, PRICE или NAME")
+            @RequestParam(defaultValue = "ID") CatalogSort sort,
+            @Parameter(description = "Возвращаемые поля через запятую: id, name, size, price")
+            @RequestParam(required = false) String fields) {
+        Set<String> selectedFields = ClothingItemFields.parse(fields);
+        CatalogPage page = clothingItemService.getItemsPage(sort, cursor, size);
+        List<Map<String, Object>> items = page.items().stream()
+                .map(item -> ClothingItemFields.project(item, selectedFields))
+                .toList();
+        return ResponseEntity.ok(new CatalogPageResponse(items, page.nextCursor()));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Выгрузить весь каталог",
+            description = "Потоково отдаёт все товары в формате NDJSON, по одному на строку. "
+                    + "При Accept-Encoding: gzip ответ сжимается")
+    public ResponseEntity<StreamingResponseBody> exportItems(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (OutputStream compressed = new GZIPOutputStream(out, 8192, true)) {
+                    catalogExportService.exportNdjson(compressed);
+                }
+            } else {
+                catalogExportService.exportNdjson(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return response.body(body);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Получить изменения каталога",
+            description = "Возвращает изменения товаров и отзывов после номера since: для "
+                    + "UPSERT — текущее состояние сущности, для DELETE — её id. Следующий "
+                    + "запрос выполняется с since = nextSince")
+    @ApiResponse(responseCode = "200", description = "Порция изменений")
+    @ApiResponse(responseCode = "410", description = "Изменения после since уже удалены, "
+            + "каталог нужно загрузить заново")
+    public ResponseEntity<ChangeFeed> getChanges(
+            @Parameter(description = "Номер последнего полученного изменения")
+            @RequestParam(defaultValue = "0") @Min(0) long since,
+            @Parameter(description = "Максимальное число изменений от 1 до 1000")
+            @RequestParam(defaultValue = "500") @Min(1) @Max(1000) int limit) {
+        return ResponseEntity.ok(changeLog.changesSince(since, limit));
+    }
+
+    @GetMapping("/changes/head")
+    @Operation(summary = "Получить точку начала синхронизации",
+            description = "Возвращает nextSince, с которого нужно запрашивать изменения после "
+                    + "полной загрузки каталога. Запрашивается до загрузки каталога")
+    @ApiResponse(responseCode = "200", description = "Точка синхронизации")
+    public ResponseEntity<ChangeFeed> getChangesHead() {
+        return ResponseEntity.ok(changeLog.head());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Подписаться на изменения каталога",
+            description = "Поток Server-Sent Events: item-upsert, item-delete, review-upsert, "
+                    + "review-delete. Данные события — то же, что элемент ответа /changes, id — "
+                    + "номер изменения. При переподключении с Last-Event-ID пропущенные события "
+                    + "досылаются; событие reset означает, что каталог нужно загрузить заново")
+    @ApiResponse(responseCode = "200", description = "Поток событий")
+    @ApiResponse(responseCode = "429", description = "Достигнут лимит подписчиков")
+    public SseEmitter streamChanges(
+            @Parameter(description = "Номер последнего полученного события")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return eventBroadcaster.subscribe(lastEventId);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Получить товар по ID",
-            description = "Возвращает товар по его уникальному идентификатору")
+            description = "Возвращает товар по его уникальному идентификатору. Ответ содержит "
+                    + "ETag версии каталога; при совпадении If-None-Match возвращается 304")
     @ApiResponse(responseCode = "200", description = "Товар найден")
+    @ApiResponse(responseCode = "304", description = "Товар не изменился")
     @ApiResponse(responseCode = "404", description = "Товар не найден")
-    public ResponseEntity<ClothingItem> getItemById(
-            @Parameter(description = "ID товара") @PathVariable Long id) {
-        return ResponseEntity.ok(
-                clothingItemService.getItemById(id)
-                        .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND + id))
-        );
+    public ResponseEntity<ClothingItemView> getItemById(
+            @Parameter(description = "ID товара") @PathVariable Long id,
+            @Parameter(description = INCLUDE_DESCRIPTION)
+            @RequestParam(required = false) String include,
+            WebRequest webRequest) {
+        String etag = catalogVersion.itemEtag(id, catalogVersion.current());
+        if (include == null
+                && matchingEtag(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH), etag) != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ClothingItemView item = clothingItemService.getItemById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(ITEM_NOT_FOUND + id));
+        if (include != null) {
+            return ResponseEntity.ok(include(List.of(item), include).get(0));
+        }
+        return ResponseEntity.ok().eTag(etag).body(item);
     }
 
     @GetMapping("/search")
     @Operation(summary = "Поиск товара по имени",
             description = "Возвращает товары, содержащие указанное имя")
-    public ResponseEntity<List<ClothingItem>> getItemsByName(
-            @Parameter(description = "Название товара") @RequestParam @NotBlank String name) {
-        List<ClothingItem> items = clothingItemService.getItemsByName(name);
+    @ApiResponse(responseCode = "200", description = "Найденные товары",
+            content = @Content(array = @ArraySchema(
+                    schema = @Schema(implementation = ClothingItemView.class))))
+    public ResponseEntity<?> getItemsByName(
+            @Parameter(description = "Название товара") @RequestParam @NotBlank String name,
+            @Parameter(description = INCLUDE_DESCRIPTION)
+            @RequestParam(required = false) String include,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        List<ClothingItemView> items = clothingItemService.getItemsByName(name);
         if (items.isEmpty()) {
             throw new ResourceNotFoundException("No items found with name: " + name);
         }
-        return ResponseEntity.ok(items);
+        if (include != null) {
+            return ResponseEntity.ok(include(items, include));
+        }
+        return cachedJson("GET /api/clothing/search?name=" + name.toLowerCase(), items,
+                acceptEncoding, CacheTags.nameSearch(name));
     }
 
     @GetMapping("/searchByNameAndRating")
     @Operation(summary = "Поиск товара по имени и рейтингу",
             description = "Возвращает товары по совпадению имени и заданного рейтинга")
-    public ResponseEntity<List<ClothingItem>> getItemsByNameAndRating(
+    @ApiResponse(responseCode = "200", description = "Найденные товары",
+            content = @Content(array = @ArraySchema(
+                    schema = @Schema(implementation = ClothingItemView.class))))
+    public ResponseEntity<?> getItemsByNameAndRating(
             @Parameter(description = "Название товара") @RequestParam @NotBlank String name,
             @Parameter(description = "Рейтинг от 1 до 5")
-            @RequestParam @Min(1) @Max(5) int rating) {
-        List<ClothingItem> items = clothingItemService.getItemsByNameAndRating(name, rating);
+            @RequestParam @Min(1) @Max(5) int rating,
+            @Parameter(description = INCLUDE_DESCRIPTION)
+            @RequestParam(required = false) String include,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        List<ClothingItemView> items = clothingItemService.getItemsByNameAndRating(name, rating);
         if (items.isEmpty()) {
             throw new ResourceNotFoundException("No items found with name: "
                     + name + " and rating: " + rating);
         }
-        return ResponseEntity.ok(items);
+        if (include != null) {
+            return ResponseEntity.ok(include(items, include));
+        }
+        return cachedJson("GET /api/clothing/searchByNameAndRating?name=" + name.toLowerCase()
+                        + "&rating=" + rating, items, acceptEncoding,
+                CacheTags.nameSearch(name), CacheTags.ratingSearch(rating));
     }
 
     @GetMapping("/searchByRating")
     @Operation(summary = "Поиск товара по рейтингу",
             description = "Возвращает товары с заданным рейтингом")
-    public ResponseEntity<List<ClothingItem>> getItemsByRating(
+    @ApiResponse(responseCode = "200", description = "Найденные товары",
+            content = @Content(array = @ArraySchema(
+                    schema = @Schema(implementation = ClothingItemView.class))))
+    public ResponseEntity<?> getItemsByRating(
             @Parameter(description = "Рейтинг от 1 до 5")
-            @RequestParam @Min(1) @Max(5) int rating) {
-        List<ClothingItem> items = clothingItemService.getItemsByRating(rating);
+            @RequestParam @Min(1) @Max(5) int rating,
+            @Parameter(description = INCLUDE_DESCRIPTION)
+            @RequestParam(required = false) String include,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+        List<ClothingItemView> items = clothingItemService.getItemsByRating(rating);
         if (items.isEmpty()) {
             throw new ResourceNotFoundException("No items found with rating: " + rating);
         }
-        return ResponseEntity.ok(items);
+        if (include != null) {
+            return ResponseEntity.ok(include(items, include));
+        }
+        return cachedJson("GET /api/clothing/searchByRating?rating=" + rating, items,
+                acceptEncoding, CacheTags.ratingSearch(rating));
     }
 
     @PostMapping
     @Operation(summary = "Создать новый товар",
             description = "Создает новый товар одежды с заданными параметрами")
     @ApiResponse(responseCode = "201", description = "Товар успешно создан")
-    public ResponseEntity<ClothingItem> createItem(
+    public ResponseEntity<ClothingItemView> createItem(
             @Valid @RequestBody ClothingItem clothingItem) {
         ClothingItem createdItem = clothingItemService.saveItem(clothingItem);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdItem);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ClothingItemView.of(createdItem));
     }
 
     @PostMapping("/bulk")
@@ -124,11 +328,22 @@ public class ClothingItemController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedItems);
     }
 
+    @PostMapping("/bulk/ingest")
+    @Operation(summary = "Массовая загрузка товаров с отчётом",
+            description = "Сохраняет товары пакетными INSERT и возвращает результат "
+                    + "по каждой строке: id сохранённого товара или причины отказа")
+    @ApiResponse(responseCode = "201", description = "Загрузка обработана")
+    public ResponseEntity<BulkSaveReport> ingestItemsBulk(
+            @RequestBody List<ClothingItem> clothingItems) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(clothingItemService.ingestBulkItems(clothingItems));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Обновить товар", description = "Обновляет существующий товар по ID")
     @ApiResponse(responseCode = "200", description = "Товар успешно обновлен")
     @ApiResponse(responseCode = "404", description = "Товар не найден")
-    public ResponseEntity<ClothingItem> updateItem(
+    public ResponseEntity<ClothingItemView> updateItem(
             @Parameter(description = "ID товара") @PathVariable Long id,
             @Valid @RequestBody ClothingItem clothingItem) {
 
@@ -137,7 +352,7 @@ public class ClothingItemController {
 
         clothingItem.setId(id);
         ClothingItem updatedItem = clothingItemService.saveItem(clothingItem);
-        return ResponseEntity.ok(updatedItem);
+        return ResponseEntity.ok(ClothingItemView.of(updatedItem));
     }
 
     @DeleteMapping("/{id}")
@@ -153,4 +368,72 @@ public class ClothingItemController {
         clothingItemService.deleteItem(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private List<ClothingItemView> include(List<ClothingItemView> items, String include) {
+        if (include == null || include.isBlank()) {
+            return items;
+        }
+        for (String relation : include.split(",")) {
+            if (!INCLUDE_REVIEWS.equals(relation.trim())) {
+                throw new BadRequestException("Unknown include: " + relation.trim()
+                        + ". Allowed values: " + INCLUDE_REVIEWS);
+            }
+        }
+        return clothingItemService.withReviews(items);
+    }
+
+    /**
+     * Отдаёт список товаров из кэша сериализованных ответов: готовые байты JSON или
+     * gzip пишутся в ответ без повторной сериализации.
+     */
+    private ResponseEntity<byte[]> cachedJson(String key, List<ClothingItemView> items,
+                                              String acceptEncoding, String... queryTags) {
+        return cachedJson(encode(key, items, queryTags), acceptEncoding, null, null);
+    }
+
+    /**
+     * Отдаёт закодированный список в виде JSON или gzip. Каждое кодирование помечается
+     * своим ETag: {@code etag} — несжатое тело, {@code gzipEtag} — сжатое.
+     */
+    private static ResponseEntity<byte[]> cachedJson(CachedResponse response,
+                                                     String acceptEncoding,
+                                                     String etag, String gzipEtag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (response.gzip() != null && acceptsGzip(acceptEncoding)) {
+            return builder.eTag(gzipEtag).header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(response.gzip());
+        }
+        return builder.eTag(etag).body(response.json());
+    }
+
+    private CachedResponse encode(String key, List<ClothingItemView> items,
+                                  String... queryTags) {
+        return responseCache.encode(key, items, () -> CacheTags.forItems(
+                items.stream().map(ClothingItemView::id).toList(), queryTags));
+    }
+
+    /**
+     * Возвращает тот из {@code candidates}, что совпал с If-None-Match по слабому
+     * сравнению, или {@code null}. Клиент мог получить любое кодирование ответа,
+     * поэтому подходит ETag каждого из них.
+     */
+    private static String matchingEtag(String ifNoneMatch, String... candidates) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        List<ETag> requested = ETag.parse(ifNoneMatch);
+        for (String candidate : candidates) {
+            ETag etag = ETag.create(candidate);
+            if (requested.stream().anyMatch(tag -> tag.isWildcard() || tag.compare(etag, false))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.contains("gzip");
+    }
+}
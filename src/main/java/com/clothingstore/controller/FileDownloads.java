@@ -0,0 +1,134 @@
+package com.clothingstore.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Отдача неизменяемых файлов с поддержкой {@code Range}/{@code 206 Partial Content} и
+ * условных запросов ({@code If-None-Match}, {@code If-Modified-Since}, {@code If-Match},
+ * {@code If-Unmodified-Since}, {@code If-Range}).
+ *
+ * <p>Под Tomcat тело передаётся через sendfile: контроллер только выставляет атрибуты
+ * запроса, и коннектор отправляет участок файла в сокет, минуя кучу и поток запроса.
+ * В остальных контейнерах участок копируется {@link FileChannel#transferTo} в поток ответа.
+ * Запрос нескольких диапазонов обслуживается целым файлом — стандарт это допускает, а
+ * докачка всегда запрашивает один диапазон. Синтаксически неверный {@code Range}
+ * игнорируется, как того требует RFC 9110; {@code 416} отдаётся только для корректного
+ * диапазона за пределами файла.
+ */
+final class FileDownloads {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownloads() {
+    }
+
+    /**
+     * Ответ с файлом или его участком; {@code null}, если ответ уже отправлен как 304/412.
+     * ETag строится из {@code tag}, размера и времени изменения файла.
+     */
+    static ResponseEntity<StreamingResponseBody> serve(Path file, String tag, String range,
+                                                       String ifRange,
+                                                       ServletWebRequest webRequest)
+            throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + tag + "-" + length + "-" + lastModified + "\"";
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(file.getFileName().toString())
+                .build());
+
+        if (range == null || (ifRange != null && !ifRangeMatches(ifRange, etag, lastModified))) {
+            return transfer(file, 0, length, HttpStatus.OK, headers, webRequest);
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+        if (ranges.size() != 1) {
+            return transfer(file, 0, length, HttpStatus.OK, headers, webRequest);
+        }
+        long start = ranges.get(0).getRangeStart(length);
+        long end = Math.min(ranges.get(0).getRangeEnd(length), length - 1);
+        if (start >= length || start > end) {
+            return unsatisfiable(length);
+        }
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        return transfer(file, start, end - start + 1, HttpStatus.PARTIAL_CONTENT, headers,
+                webRequest);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> transfer(Path file, long start,
+                                                                  long count, HttpStatus status,
+                                                                  HttpHeaders headers,
+                                                                  ServletWebRequest webRequest) {
+        headers.setContentLength(count);
+        HttpServletRequest request = webRequest.getRequest();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return new ResponseEntity<>(headers, status);
+        }
+        StreamingResponseBody body = out -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long end = start + count;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, target);
+                }
+            }
+        };
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> unsatisfiable(long length) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                .build();
+    }
+
+    /** {@code If-Range} с ETag сравнивается строго, с датой — с точностью до секунды. */
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return date.toEpochSecond() == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
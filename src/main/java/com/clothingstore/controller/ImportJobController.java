@@ -0,0 +1,57 @@
+package com.clothingstore.controller;
+
+import com.clothingstore.dto.ImportJobView;
+import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.model.ImportJob;
+import com.clothingstore.service.ImportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.InputStream;
+import java.net.URI;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/clothing/imports")
+@Tag(name = "Imports", description = "Асинхронный импорт товаров из NDJSON")
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    public ImportJobController(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Запустить импорт",
+            description = "Принимает товары в формате NDJSON (один JSON-объект на строку) и "
+                    + "ставит задание импорта в очередь")
+    @ApiResponse(responseCode = "202", description = "Задание принято")
+    @ApiResponse(responseCode = "429", description = "Очередь импорта заполнена")
+    public ResponseEntity<ImportJobView> startImport(InputStream body) {
+        ImportJob job = importJobService.submit(body);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/clothing/imports/" + job.getId()))
+                .body(ImportJobView.of(job));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Получить состояние импорта",
+            description = "Возвращает статус задания и число прочитанных, сохранённых "
+                    + "и отклонённых строк")
+    @ApiResponse(responseCode = "200", description = "Задание найдено")
+    @ApiResponse(responseCode = "404", description = "Задание не найдено")
+    public ResponseEntity<ImportJobView> getImport(
+            @Parameter(description = "ID задания") @PathVariable Long id) {
+        return ResponseEntity.ok(importJobService.getJob(id)
+                .map(ImportJobView::of)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Import job not found with id: " + id)));
+    }
+}
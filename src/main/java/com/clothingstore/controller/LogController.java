@@ -1,162 +1,268 @@
 package com.clothingstore.controller;
 
+import com.clothingstore.dto.LogTaskStatus;
+import com.clothingstore.exception.BadRequestException;
+import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.service.LogOffsetIndex;
 import com.clothingstore.service.LogService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.constraints.Min;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.List;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Optional;
-import java.util.stream.Stream;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/logs")
 public class LogController {
 
+    private static final MediaType TEXT_UTF8 =
+            new MediaType("text", "plain", StandardCharsets.UTF_8);
+    private static final String PAGING_DESCRIPTION = "Поддерживает offset/limit по строкам; "
+            + "при Accept-Encoding: gzip ответ сжимается";
+    private static final String OFFSET_DESCRIPTION = "Сколько строк пропустить";
+    private static final String LIMIT_DESCRIPTION = "Сколько строк вернуть, не больше";
+
     private final LogService logService;
 
     public LogController(LogService logService) {
         this.logService = logService;
     }
 
-    private static final String LOG_FILE = "logs/clothingstore.log";
-
     @Operation(
             summary = "Получить логи по дате",
-            description = "Возвращает строки из файла логов, содержащие указанную дату. "
-                    + "Формат даты должен соответствовать формату, используемому в логах "
-                    + "(например, '2025-04-15')."
+            description = "Потоково возвращает записи из файла логов, время которых "
+                    + "приходится на указанную дату (в часовом поясе приложения), вместе со "
+                    + "строками продолжения, например стектрейсами. Формат даты: "
+                    + "'2025-04-15'. " + PAGING_DESCRIPTION
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Лог найден и возвращён"),
+        @ApiResponse(responseCode = "400", description = "Неверный формат даты"),
         @ApiResponse(responseCode = "404",
                     description = "Файл логов не найден или нет записей на указанную дату"),
         @ApiResponse(responseCode = "500", description = "Ошибка при чтении файла логов")
     })
     @GetMapping("/{date}")
-    public ResponseEntity<String> getLogsByDate(
+    public ResponseEntity<StreamingResponseBody> getLogsByDate(
             @Parameter(description = "Дата для фильтрации логов. Пример: 2025-04-15")
-            @PathVariable String date
-    ) {
-        try {
-            Path path = Paths.get(LOG_FILE);
-
-            if (!Files.exists(path)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("Log file not found.");
-            }
-
-            List<String> filteredLines;
-            try (Stream<String> lines = Files.lines(path)) {
-                filteredLines = lines
-                        .filter(line -> line.contains(date))
-                        .toList();
-            }
-
-            if (filteredLines.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("No log entries found for date: " + date);
-            }
-
-            String content = String.join("\n", filteredLines);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.TEXT_PLAIN)
-                    .body(content);
+            @PathVariable String date,
+            @Parameter(description = OFFSET_DESCRIPTION)
+            @RequestParam(defaultValue = "0") @Min(0) long offset,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) @Min(1) Long limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding
+    ) throws IOException {
+        LocalDate day = parse(date, LocalDate::parse, "Invalid date: ");
+        LogOffsetIndex.Slice slice = found(logService.findLogsByDate(day),
+                "No log entries found for date: " + date);
+        return streamed(acceptEncoding, out -> logService.writeLogs(slice, offset, limit, out));
+    }
 
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error reading log file: " + e.getMessage());
+    @Operation(
+            summary = "Получить логи за интервал времени",
+            description = "Потоково возвращает записи из файла логов со временем в "
+                    + "[from, to). Время в ISO-8601 со смещением, например "
+                    + "2025-05-16T18:00:00+03:00; знак '+' в строке запроса кодируется как "
+                    + "%2B. " + PAGING_DESCRIPTION
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Лог найден и возвращён"),
+        @ApiResponse(responseCode = "400", description = "Неверный интервал"),
+        @ApiResponse(responseCode = "404",
+                    description = "Файл логов не найден или нет записей за интервал"),
+        @ApiResponse(responseCode = "500", description = "Ошибка при чтении файла логов")
+    })
+    @GetMapping("/range")
+    public ResponseEntity<StreamingResponseBody> getLogsBetween(
+            @Parameter(description = "Начало интервала включительно")
+            @RequestParam String from,
+            @Parameter(description = "Конец интервала, не включая")
+            @RequestParam String to,
+            @Parameter(description = OFFSET_DESCRIPTION)
+            @RequestParam(defaultValue = "0") @Min(0) long offset,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) @Min(1) Long limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding
+    ) throws IOException {
+        Instant start = parse(from, OffsetDateTime::parse, "Invalid time: ").toInstant();
+        Instant end = parse(to, OffsetDateTime::parse, "Invalid time: ").toInstant();
+        if (!start.isBefore(end)) {
+            throw new BadRequestException("'from' must be before 'to'");
         }
+        LogOffsetIndex.Slice slice = found(logService.findLogsBetween(start, end),
+                "No log entries found between " + from + " and " + to);
+        return streamed(acceptEncoding, out -> logService.writeLogs(slice, offset, limit, out));
     }
 
-    @Operation(summary = "Инициировать создание лог-файла")
+    @Operation(summary = "Инициировать создание лог-файла",
+            description = "Ставит выгрузку в очередь. Если выгрузка того же вида уже "
+                    + "выполняется или ждёт в очереди, возвращается её задача")
     @ApiResponse(responseCode = "202", description = "Процесс создания лог-файла запущен")
+    @ApiResponse(responseCode = "429", description = "Очередь выгрузок заполнена")
     @PostMapping
-    public ResponseEntity<String> createLogFile() {
-        String taskId = logService.startLogFileCreation();
-        return ResponseEntity
-                .status(HttpStatus.ACCEPTED)
-                .body("Task started. ID: " + taskId);
+    public ResponseEntity<LogTaskStatus> createLogFile(
+            @Parameter(description = "Выгрузить только строки, дописанные после предыдущей "
+                    + "выгрузки; участок исходного файла указан в имени файла")
+            @RequestParam(defaultValue = "false") boolean delta) {
+        LogTaskStatus task = logService.startLogFileCreation(delta);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/logs/" + task.id() + "/status"))
+                .body(task);
     }
 
     @Operation(
             summary = "Проверить статус создания лог-файла",
+            description = "Возвращает состояние задачи, позицию в очереди, время ожидания "
+                    + "и время выполнения",
             responses = {
                 @ApiResponse(responseCode = "200", description = "Статус найден"),
                 @ApiResponse(responseCode = "404", description = "ID не найден")
             }
     )
     @GetMapping("/{id}/status")
-    public ResponseEntity<String> getStatus(@PathVariable String id) {
-        Optional<String> status = logService.getTaskStatus(id);
-        return status.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body("No task found with ID: " + id));
+    public ResponseEntity<LogTaskStatus> getStatus(@PathVariable String id) {
+        return ResponseEntity.ok(logService.getTaskStatus(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "No task found with ID: " + id)));
+    }
+
+    @Operation(
+            summary = "Отменить создание лог-файла",
+            description = "Ждущая задача убирается из очереди, выполняющаяся прерывается",
+            responses = {
+                @ApiResponse(responseCode = "200", description = "Статус после отмены"),
+                @ApiResponse(responseCode = "404", description = "ID не найден")
+            }
+    )
+    @DeleteMapping("/{id}")
+    public ResponseEntity<LogTaskStatus> cancel(@PathVariable String id) {
+        return ResponseEntity.ok(logService.cancelTask(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "No task found with ID: " + id)));
     }
 
     @Operation(
             summary = "Получить лог-файл по ID задачи",
+            description = "Поддерживает Range для докачки (один диапазон) и условные "
+                    + "запросы по ETag и Last-Modified",
             responses = {
                 @ApiResponse(responseCode = "200", description = "Файл возвращён"),
-                @ApiResponse(responseCode = "404", description = "Файл не найден или ещё не готов")
+                @ApiResponse(responseCode = "206", description = "Возвращён запрошенный участок"),
+                @ApiResponse(responseCode = "304", description = "Файл не изменился"),
+                @ApiResponse(responseCode = "404", description = "Файл не найден или ещё не готов"),
+                @ApiResponse(responseCode = "416", description = "Диапазон вне файла")
             }
     )
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> getLogFile(@PathVariable String id) {
+    public ResponseEntity<StreamingResponseBody> getLogFile(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            ServletWebRequest webRequest) throws IOException {
         Optional<Path> filePath = logService.getLogFile(id);
 
         if (filePath.isEmpty() || !Files.exists(filePath.get())) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-
-        Path path = filePath.get();
-        Resource resource = new FileSystemResource(path);
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_PLAIN)
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + path.getFileName() + "\"")
-                .body(resource);
+        return FileDownloads.serve(filePath.get(), "log-" + id, range, ifRange, webRequest);
     }
 
     @Operation(
             summary = "Получить логи по дате из сгенерированного файла",
-            description = "Поиск логов по дате в файле, созданном по ID задачи",
+            description = "Потоково возвращает строки файла, созданного по ID задачи, "
+                    + "содержащие указанную дату. " + PAGING_DESCRIPTION,
             responses = {
                 @ApiResponse(responseCode = "200", description = "Логи найдены"),
-                @ApiResponse(responseCode = "404", description = "Файл не найден")
+                @ApiResponse(responseCode = "404",
+                        description = "Файл не найден или нет записей на указанную дату")
             }
     )
     @GetMapping("/{id}/logs/{date}")
-    public ResponseEntity<String> getLogsFromGeneratedFile(
+    public ResponseEntity<StreamingResponseBody> getLogsFromGeneratedFile(
             @PathVariable String id,
-            @PathVariable String date
-    ) {
-        Optional<String> result = logService.getLogsByDateFromGeneratedFile(id, date);
+            @PathVariable String date,
+            @Parameter(description = OFFSET_DESCRIPTION)
+            @RequestParam(defaultValue = "0") @Min(0) long offset,
+            @Parameter(description = LIMIT_DESCRIPTION)
+            @RequestParam(required = false) @Min(1) Long limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding
+    ) throws IOException {
+        Path file = logService.getLogFile(id)
+                .filter(Files::exists)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Log file not found for ID: " + id));
+        LogOffsetIndex.Slice slice = found(logService.findLogsByDateInGeneratedFile(file, date),
+                "No log entries found for date: " + date);
+        return streamed(acceptEncoding, out -> logService.writeLogsByDateFromGeneratedFile(
+                file, slice, date, offset, limit, out));
+    }
 
-        if (result.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body("Log file not found for ID: " + id);
+    private static LogOffsetIndex.Slice found(Optional<LogOffsetIndex.Slice> slice,
+                                              String notFoundMessage) {
+        if (slice.isEmpty()) {
+            throw new ResourceNotFoundException("Log file not found.");
+        }
+        if (slice.get().isEmpty()) {
+            throw new ResourceNotFoundException(notFoundMessage);
         }
+        return slice.get();
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_PLAIN)
-                .body(result.get());
+    /**
+     * Текстовый потоковый ответ; при Accept-Encoding: gzip сжимается на лету. Строки
+     * пишутся в ответ по мере чтения, поэтому память не зависит от размера результата.
+     */
+    private static ResponseEntity<StreamingResponseBody> streamed(String acceptEncoding,
+                                                                  StreamingResponseBody writer) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = !gzip ? writer : out -> {
+            try (OutputStream compressed = new GZIPOutputStream(out, 8192, true)) {
+                writer.writeTo(compressed);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(TEXT_UTF8);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        return response.body(body);
     }
 
+    private static <T> T parse(String value, Function<String, T> parser, String message) {
+        try {
+            return parser.apply(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(message + value);
+        }
+    }
 }
@@ -1,13 +1,26 @@
 package com.clothingstore.controller;
 
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.ReviewPage;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.dto.ReviewSort;
+import com.clothingstore.dto.ReviewSummary;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.dto.WriteBehindStatistics;
 import com.clothingstore.exception.ResourceNotFoundException;
 import com.clothingstore.model.Review;
+import com.clothingstore.service.RatingStatsService;
 import com.clothingstore.service.ReviewService;
+import com.clothingstore.service.ReviewWriteBehindBuffer;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import java.util.List;
+import java.util.Map;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -17,6 +30,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -27,23 +41,72 @@ public class ReviewController {
     private static final String REVIEW_NOT_FOUND = "Review not found with id: ";
 
     private final ReviewService reviewService;
+    private final RatingStatsService ratingStatsService;
+    private final ReviewWriteBehindBuffer writeBehindBuffer;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService,
+                            RatingStatsService ratingStatsService,
+                            ReviewWriteBehindBuffer writeBehindBuffer) {
         this.reviewService = reviewService;
+        this.ratingStatsService = ratingStatsService;
+        this.writeBehindBuffer = writeBehindBuffer;
     }
 
     @PostMapping
     @Operation(
             summary = "Создать отзыв",
             description = "Создает новый отзыв для товара. "
-                    + "Требует имя пользователя, комментарий и рейтинг."
+                    + "Требует имя пользователя, комментарий и рейтинг. "
+                    + "В режиме отложенной записи отзыв ставится в очередь и подтверждается "
+                    + "временным id."
     )
     @ApiResponse(responseCode = "201", description = "Отзыв успешно создан")
-    public ResponseEntity<Review> createReview(@Valid @RequestBody Review review) {
+    @ApiResponse(responseCode = "202", description = "Отзыв принят в очередь записи")
+    @ApiResponse(responseCode = "429", description = "Очередь записи заполнена")
+    public ResponseEntity<?> createReview(@Valid @RequestBody Review review) {
+        if (writeBehindBuffer.isEnabled()) {
+            return new ResponseEntity<>(writeBehindBuffer.submit(ReviewRequest.of(review)),
+                    HttpStatus.ACCEPTED);
+        }
         Review savedReview = reviewService.saveReview(review);
         return new ResponseEntity<>(savedReview, HttpStatus.CREATED);
     }
 
+    @GetMapping("/write-behind/stats")
+    @Operation(
+            summary = "Статистика отложенной записи",
+            description = "Возвращает глубину очереди, число записанных и отклонённых отзывов "
+                    + "и длительность сбросов пачек"
+    )
+    @ApiResponse(responseCode = "200", description = "Статистика получена")
+    public ResponseEntity<WriteBehindStatistics> getWriteBehindStats() {
+        return ResponseEntity.ok(writeBehindBuffer.stats());
+    }
+
+    @PostMapping("/stats/rebuild")
+    @Operation(
+            summary = "Пересчитать агрегаты оценок",
+            description = "Заново вычисляет количество, сумму, максимум и гистограмму оценок "
+                    + "всех товаров по таблице отзывов"
+    )
+    @ApiResponse(responseCode = "200", description = "Агрегаты пересчитаны")
+    public ResponseEntity<Map<String, Integer>> rebuildRatingStats() {
+        return ResponseEntity.ok(Map.of("items", ratingStatsService.rebuild()));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Массовое создание отзывов",
+            description = "Сохраняет отзывы пачкой и возвращает результат по каждой строке: "
+                    + "id отзыва или причины отказа (ошибки проверки, несуществующий товар, "
+                    + "повторный отзыв пользователя)"
+    )
+    @ApiResponse(responseCode = "201", description = "Загрузка обработана")
+    public ResponseEntity<BulkSaveReport> createReviewsBulk(
+            @RequestBody List<ReviewRequest> reviews) {
+        return new ResponseEntity<>(reviewService.saveReviewsBulk(reviews), HttpStatus.CREATED);
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Получить отзыв по ID",
@@ -64,12 +127,42 @@ public class ReviewController {
             description = "Возвращает список всех отзывов, относящихся к определенному товару"
     )
     @ApiResponse(responseCode = "200", description = "Отзывы успешно получены")
-    public ResponseEntity<List<Review>> getReviewsByClothingItemId(
+    public ResponseEntity<List<ReviewView>> getReviewsByClothingItemId(
             @PathVariable Long clothingItemId) {
-        List<Review> reviews = reviewService.getReviewsByClothingItemId(clothingItemId);
+        List<ReviewView> reviews = reviewService.getReviewsByClothingItemId(clothingItemId);
         return ResponseEntity.ok(reviews);
     }
 
+    @GetMapping("/by-item/{clothingItemId}/page")
+    @Operation(
+            summary = "Получить страницу отзывов товара",
+            description = "Возвращает страницу отзывов с keyset-пагинацией и общее число "
+                    + "отзывов. Для следующей страницы передайте nextCursor из предыдущего "
+                    + "ответа с той же сортировкой"
+    )
+    @ApiResponse(responseCode = "200", description = "Страница отзывов получена")
+    public ResponseEntity<ReviewPage> getReviewsPage(
+            @PathVariable Long clothingItemId,
+            @Parameter(description = "Курсор следующей страницы")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы от 1 до 100")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @Parameter(description = "Сортировка: NEWEST или RATING")
+            @RequestParam(defaultValue = "NEWEST") ReviewSort sort) {
+        return ResponseEntity.ok(
+                reviewService.getReviewsPage(clothingItemId, sort, cursor, size));
+    }
+
+    @GetMapping("/by-item/{clothingItemId}/summary")
+    @Operation(
+            summary = "Сводка отзывов товара",
+            description = "Возвращает число отзывов, среднюю оценку и распределение по оценкам"
+    )
+    @ApiResponse(responseCode = "200", description = "Сводка получена")
+    public ResponseEntity<ReviewSummary> getReviewSummary(@PathVariable Long clothingItemId) {
+        return ResponseEntity.ok(ratingStatsService.getSummary(clothingItemId));
+    }
+
     @PutMapping("/{id}")
     @Operation(
             summary = "Обновить отзыв",
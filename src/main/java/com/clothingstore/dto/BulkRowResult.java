@@ -0,0 +1,25 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+
+/**
+ * Результат обработки одной строки массовой загрузки.
+ *
+ * @param index      позиция строки во входном списке
+ * @param id         id сохранённого товара или {@code null}, если строка отклонена
+ * @param violations причины отказа; пустой список для сохранённой строки
+ */
+public record BulkRowResult(int index, Long id, List<RowViolation> violations) {
+
+    public static BulkRowResult saved(int index, Long id) {
+        return new BulkRowResult(index, id, List.of());
+    }
+
+    public static BulkRowResult rejected(int index, List<RowViolation> violations) {
+        return new BulkRowResult(index, null, violations);
+    }
+
+    public boolean isSaved() {
+        return id != null;
+    }
+}
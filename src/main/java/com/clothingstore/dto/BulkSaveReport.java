@@ -0,0 +1,19 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+
+/**
+ * Отчёт о массовой загрузке товаров.
+ *
+ * @param received количество строк во входных данных
+ * @param saved    количество сохранённых строк
+ * @param rejected количество отклонённых строк
+ * @param rows     результат по каждой строке в порядке входного списка
+ */
+public record BulkSaveReport(int received, int saved, int rejected, List<BulkRowResult> rows) {
+
+    public static BulkSaveReport of(List<BulkRowResult> rows) {
+        int saved = (int) rows.stream().filter(BulkRowResult::isSaved).count();
+        return new BulkSaveReport(rows.size(), saved, rows.size() - saved, rows);
+    }
+}
@@ -0,0 +1,26 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Изменение каталога в ответе {@code GET /api/clothing/changes}. Для {@code UPSERT}
+ * передаётся текущее состояние сущности, для {@code DELETE} — только её id. Удаление
+ * товара означает и удаление всех его отзывов.
+ *
+ * @param seq       номер изменения в журнале
+ * @param target    тип сущности
+ * @param operation операция
+ * @param id        id сущности
+ * @param productId id товара, к которому относится сущность
+ * @param item      текущее состояние товара для {@code ITEM UPSERT}
+ * @param review    текущее состояние отзыва для {@code REVIEW UPSERT}
+ */
+public record CatalogChangeView(long seq, ChangeTarget target, ChangeOperation operation,
+                                long id, Long productId,
+                                @JsonInclude(JsonInclude.Include.NON_NULL)
+                                ClothingItemView item,
+                                @JsonInclude(JsonInclude.Include.NON_NULL)
+                                ReviewView review) {
+}
@@ -0,0 +1,13 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.model.ClothingItem;
+import java.util.List;
+
+/**
+ * Страница каталога.
+ *
+ * @param items      товары страницы в порядке сортировки
+ * @param nextCursor курсор следующей страницы или {@code null}, если страница последняя
+ */
+public record CatalogPage(List<ClothingItem> items, String nextCursor) {
+}
@@ -0,0 +1,13 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ответ постраничного списка товаров с набором полей, запрошенным клиентом.
+ *
+ * @param items      товары, каждый — только с запрошенными полями
+ * @param nextCursor курсор следующей страницы или {@code null}
+ */
+public record CatalogPageResponse(List<Map<String, Object>> items, String nextCursor) {
+}
@@ -0,0 +1,12 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+
+/**
+ * Полный список товаров вместе с версией каталога, прочитанной до запроса к БД.
+ *
+ * @param version версия каталога, которую отражает список
+ * @param items   товары в порядке возрастания id
+ */
+public record CatalogSnapshot(long version, List<ClothingItemView> items) {
+}
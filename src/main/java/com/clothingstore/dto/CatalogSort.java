@@ -0,0 +1,8 @@
+package com.clothingstore.dto;
+
+/** Порядок сортировки постраничного списка товаров. */
+public enum CatalogSort {
+    ID,
+    PRICE,
+    NAME
+}
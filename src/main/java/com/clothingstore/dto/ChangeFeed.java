@@ -0,0 +1,13 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+
+/**
+ * Порция журнала изменений каталога.
+ *
+ * @param changes   изменения в порядке {@code seq}, по одному на сущность
+ * @param nextSince значение {@code since} для следующего запроса
+ * @param hasMore   есть ли изменения после {@code nextSince}
+ */
+public record ChangeFeed(List<CatalogChangeView> changes, long nextSince, boolean hasMore) {
+}
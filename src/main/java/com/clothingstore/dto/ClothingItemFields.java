@@ -0,0 +1,48 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.exception.BadRequestException;
+import com.clothingstore.model.ClothingItem;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Разбор параметра {@code fields} и проекция товара на выбранные поля. */
+public final class ClothingItemFields {
+
+    public static final List<String> ALL = List.of("id", "name", "size", "price");
+
+    private ClothingItemFields() {
+    }
+
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return new LinkedHashSet<>(ALL);
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (!ALL.contains(trimmed)) {
+                throw new BadRequestException("Unknown field: " + trimmed
+                        + ". Allowed fields: " + String.join(", ", ALL));
+            }
+            selected.add(trimmed);
+        }
+        return selected;
+    }
+
+    public static Map<String, Object> project(ClothingItem item, Set<String> fields) {
+        Map<String, Object> projection = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> projection.put(field, item.getId());
+                case "name" -> projection.put(field, item.getName());
+                case "size" -> projection.put(field, item.getSize());
+                case "price" -> projection.put(field, item.getPrice());
+                default -> throw new BadRequestException("Unknown field: " + field);
+            }
+        }
+        return projection;
+    }
+}
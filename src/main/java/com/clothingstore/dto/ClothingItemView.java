@@ -0,0 +1,35 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.model.ClothingItem;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Товар в ответах API. Заполняется проекцией запроса; отзывы добавляются только по
+ * запросу клиента ({@code include=reviews}) одним пакетным запросом.
+ *
+ * @param id      id товара
+ * @param name    название
+ * @param size    размер
+ * @param price   цена
+ * @param version версия товара, меняется при каждом его изменении
+ * @param reviews отзывы товара или {@code null}, если они не запрашивались
+ */
+public record ClothingItemView(Long id, String name, String size, Double price, Long version,
+                               @JsonInclude(JsonInclude.Include.NON_NULL)
+                               List<ReviewView> reviews) {
+
+    /** Конструктор для проекций JPQL: товар без отзывов. */
+    public ClothingItemView(Long id, String name, String size, Double price, Long version) {
+        this(id, name, size, price, version, null);
+    }
+
+    public static ClothingItemView of(ClothingItem item) {
+        return new ClothingItemView(item.getId(), item.getName(), item.getSize(),
+                item.getPrice(), item.getVersion());
+    }
+
+    public ClothingItemView withReviews(List<ReviewView> itemReviews) {
+        return new ClothingItemView(id, name, size, price, version, itemReviews);
+    }
+}
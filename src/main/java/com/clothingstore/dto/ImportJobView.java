@@ -0,0 +1,30 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.model.ImportJob;
+import com.clothingstore.model.ImportJobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+
+/**
+ * Состояние задания импорта в ответах API.
+ *
+ * @param id            id задания
+ * @param status        статус задания
+ * @param rowsRead      сколько строк прочитано
+ * @param rowsCommitted сколько товаров сохранено
+ * @param rowsRejected  сколько строк отклонено
+ * @param error         причина ошибки для {@code FAILED}
+ * @param createdAt     время создания задания
+ * @param updatedAt     время последнего изменения прогресса
+ */
+public record ImportJobView(Long id, ImportJobStatus status, long rowsRead, long rowsCommitted,
+                            long rowsRejected,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) String error,
+                            Instant createdAt, Instant updatedAt) {
+
+    public static ImportJobView of(ImportJob job) {
+        return new ImportJobView(job.getId(), job.getStatus(), job.getRowsRead(),
+                job.getRowsCommitted(), job.getRowsRejected(), job.getError(),
+                job.getCreatedAt(), job.getUpdatedAt());
+    }
+}
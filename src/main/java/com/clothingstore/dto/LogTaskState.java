@@ -0,0 +1,13 @@
+package com.clothingstore.dto;
+
+public enum LogTaskState {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
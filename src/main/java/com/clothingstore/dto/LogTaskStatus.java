@@ -0,0 +1,19 @@
+package com.clothingstore.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Состояние задачи выгрузки логов.
+ *
+ * @param id            id задачи
+ * @param state         состояние
+ * @param queuePosition место в очереди, начиная с 1; только для {@code QUEUED}
+ * @param waitedMillis  сколько задача ждала в очереди
+ * @param elapsedMillis сколько задача выполняется или выполнялась
+ * @param error         причина ошибки для {@code FAILED}
+ */
+public record LogTaskStatus(String id, LogTaskState state,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Integer queuePosition,
+                            long waitedMillis, long elapsedMillis,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) String error) {
+}
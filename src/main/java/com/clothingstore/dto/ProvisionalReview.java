@@ -0,0 +1,10 @@
+package com.clothingstore.dto;
+
+/**
+ * Подтверждение отзыва, принятого в буфер отложенной записи.
+ *
+ * @param provisionalId временный отрицательный id; постоянный id будет назначен при записи
+ * @param review        принятый отзыв
+ */
+public record ProvisionalReview(long provisionalId, ReviewRequest review) {
+}
@@ -0,0 +1,13 @@
+package com.clothingstore.dto;
+
+import java.util.List;
+
+/**
+ * Страница отзывов товара.
+ *
+ * @param reviews     отзывы страницы в порядке сортировки
+ * @param nextCursor  курсор следующей страницы или {@code null}, если страница последняя
+ * @param totalCount  общее число отзывов товара
+ */
+public record ReviewPage(List<ReviewView> reviews, String nextCursor, long totalCount) {
+}
@@ -0,0 +1,38 @@
+package com.clothingstore.dto;
+
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.model.Review;
+
+/**
+ * Отзыв в массовой загрузке: товар указывается id, а не вложенным объектом.
+ *
+ * @param productId id товара
+ * @param username  имя пользователя
+ * @param comment   текст отзыва
+ * @param rating    оценка от 1 до 5
+ */
+public record ReviewRequest(Long productId, String username, String comment, Integer rating) {
+
+    /** Запрос из отзыва с вложенным товаром. */
+    public static ReviewRequest of(Review review) {
+        Long productId = review.getClothingItem() == null ? null : review.getClothingItem().getId();
+        return new ReviewRequest(productId, review.getUsername(), review.getComment(),
+                review.getRating());
+    }
+
+    /** Отзыв для проверки ограничений сущности; товар представлен только своим id. */
+    public Review toReview() {
+        Review review = new Review();
+        review.setUsername(username);
+        review.setComment(comment);
+        if (rating != null) {
+            review.setRating(rating);
+        }
+        if (productId != null) {
+            ClothingItem item = new ClothingItem();
+            item.setId(productId);
+            review.setClothingItem(item);
+        }
+        return review;
+    }
+}
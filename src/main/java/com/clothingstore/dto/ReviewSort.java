@@ -0,0 +1,9 @@
+package com.clothingstore.dto;
+
+/** Порядок сортировки постраничного списка отзывов товара. */
+public enum ReviewSort {
+    /** Сначала новые (по убыванию id). */
+    NEWEST,
+    /** Сначала высокие оценки, при равной оценке — новые. */
+    RATING
+}
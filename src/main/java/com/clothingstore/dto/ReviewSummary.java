@@ -0,0 +1,15 @@
+package com.clothingstore.dto;
+
+import java.util.Map;
+
+/**
+ * Сводка отзывов товара из денормализованных агрегатов, без чтения таблицы отзывов.
+ *
+ * @param productId     id товара
+ * @param reviewCount   общее число отзывов
+ * @param averageRating средняя оценка или 0, если отзывов нет
+ * @param histogram     число отзывов по каждой оценке от 1 до 5
+ */
+public record ReviewSummary(Long productId, long reviewCount, double averageRating,
+                            Map<Integer, Long> histogram) {
+}
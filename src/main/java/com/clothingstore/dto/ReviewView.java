@@ -0,0 +1,14 @@
+package com.clothingstore.dto;
+
+/**
+ * Отзыв в ответах API. Заполняется проекцией запроса, без загрузки сущности и товара.
+ *
+ * @param id        id отзыва
+ * @param productId id товара
+ * @param username  имя пользователя
+ * @param comment   текст отзыва
+ * @param rating    оценка от 1 до 5
+ */
+public record ReviewView(Long id, Long productId, String username, String comment,
+                         Integer rating) {
+}
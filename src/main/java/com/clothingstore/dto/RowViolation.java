@@ -0,0 +1,14 @@
+package com.clothingstore.dto;
+
+/**
+ * Причина отказа в строке массовой загрузки.
+ *
+ * @param field   путь к полю товара или {@code null}, если ошибка относится ко всей строке
+ * @param message описание ошибки
+ */
+public record RowViolation(String field, String message) {
+
+    public static RowViolation ofRow(String message) {
+        return new RowViolation(null, message);
+    }
+}
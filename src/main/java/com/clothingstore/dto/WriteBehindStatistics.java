@@ -0,0 +1,30 @@
+package com.clothingstore.dto;
+
+/**
+ * Снимок счётчиков буфера отложенной записи отзывов.
+ *
+ * @param enabled            включён ли режим отложенной записи
+ * @param queueDepth         отзывы, ожидающие записи
+ * @param capacity           ёмкость очереди
+ * @param accepted           принятые в очередь отзывы
+ * @param saved              записанные в БД отзывы
+ * @param rejected           отзывы, отклонённые при записи (нет товара, повтор, ошибка)
+ * @param flushes            выполненные сбросы пачек
+ * @param flushFailures      сбросы, завершившиеся ошибкой и повторяемые позже
+ * @param deadLettered       отзывы, отложенные в dead-letter после исчерпания попыток
+ * @param averageFlushMillis средняя длительность сброса
+ * @param maxFlushMillis     максимальная длительность сброса
+ */
+public record WriteBehindStatistics(
+        boolean enabled,
+        int queueDepth,
+        int capacity,
+        long accepted,
+        long saved,
+        long rejected,
+        long flushes,
+        long flushFailures,
+        long deadLettered,
+        double averageFlushMillis,
+        double maxFlushMillis) {
+}
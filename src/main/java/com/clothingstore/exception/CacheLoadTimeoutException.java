@@ -0,0 +1,7 @@
+package com.clothingstore.exception;
+
+public class CacheLoadTimeoutException extends RuntimeException {
+    public CacheLoadTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,23 @@
 package com.clothingstore.exception;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Path;
 import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterValidationResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -35,6 +43,43 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(CacheLoadTimeoutException.class)
+    public ResponseEntity<Map<String, String>> handleCacheLoadTimeout(
+            CacheLoadTimeoutException ex) {
+        logger.warn("CacheLoadTimeoutException: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put(ERROR_KEY, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequests(
+            TooManyRequestsException ex) {
+        logger.warn("TooManyRequestsException: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put(ERROR_KEY, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(error);
+    }
+
+    @ExceptionHandler(GoneException.class)
+    public ResponseEntity<Map<String, String>> handleGone(GoneException ex) {
+        logger.warn("GoneException: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put(ERROR_KEY, ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.GONE);
+    }
+
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(
+            ObjectOptimisticLockingFailureException ex) {
+        logger.warn("ObjectOptimisticLockingFailureException: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put(ERROR_KEY, "Item was modified concurrently, retry the request");
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(
             MethodArgumentNotValidException ex) {
@@ -46,6 +91,38 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    /** Нарушение ограничений параметров запроса, например {@code @Min} у {@code limit}. */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<Map<String, String>> handleMethodValidation(
+            HandlerMethodValidationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        for (ParameterValidationResult result : ex.getParameterValidationResults()) {
+            for (MessageSourceResolvable error : result.getResolvableErrors()) {
+                String name = error instanceof FieldError fieldError
+                        ? fieldError.getField()
+                        : result.getMethodParameter().getParameterName();
+                errors.put(name, error.getDefaultMessage());
+            }
+        }
+        logger.warn("Validation error: {}", errors);
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Map<String, String>> handleConstraintViolation(
+            ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+            String name = null;
+            for (Path.Node node : violation.getPropertyPath()) {
+                name = node.getName();
+            }
+            errors.put(name, violation.getMessage());
+        }
+        logger.warn("Validation error: {}", errors);
+        return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleAll(Exception ex) {
         logger.error("Unhandled exception: ", ex);
@@ -0,0 +1,82 @@
+package com.clothingstore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений каталога. Пишется в той же транзакции, что и само изменение,
+ * поэтому журнал не расходится с данными. Номер {@code seq} выдаётся последовательностью
+ * БД и служит курсором для клиентов-зеркал.
+ */
+@Entity
+@Table(name = "catalog_change", indexes = {
+    @Index(name = "idx_catalog_change_entity", columnList = "target, entity_id, seq"),
+    @Index(name = "idx_catalog_change_created_at", columnList = "created_at")
+})
+public class CatalogChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeTarget target;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ChangeOperation operation;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public CatalogChange() {}
+
+    public CatalogChange(Long seq, ChangeTarget target, Long entityId, Long productId,
+                         ChangeOperation operation, Instant createdAt) {
+        this.seq = seq;
+        this.target = target;
+        this.entityId = entityId;
+        this.productId = productId;
+        this.operation = operation;
+        this.createdAt = createdAt;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public ChangeTarget getTarget() {
+        return target;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public ChangeOperation getOperation() {
+        return operation;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
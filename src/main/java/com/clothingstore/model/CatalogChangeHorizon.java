@@ -0,0 +1,38 @@
+package com.clothingstore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Граница сжатия журнала изменений: все записи с {@code seq} не больше
+ * {@link #getPurgedThrough()} удалены по сроку хранения. Таблица содержит одну строку.
+ */
+@Entity
+@Table(name = "catalog_change_horizon")
+public class CatalogChangeHorizon {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+
+    public CatalogChangeHorizon() {}
+
+    public CatalogChangeHorizon(long purgedThrough) {
+        this.id = SINGLETON_ID;
+        this.purgedThrough = purgedThrough;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getPurgedThrough() {
+        return purgedThrough;
+    }
+}
@@ -0,0 +1,6 @@
+package com.clothingstore.model;
+
+public enum ChangeOperation {
+    UPSERT,
+    DELETE
+}
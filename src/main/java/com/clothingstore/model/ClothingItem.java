@@ -2,13 +2,16 @@ package com.clothingstore.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -18,7 +21,10 @@ import jakarta.validation.constraints.Size;
 import java.util.List;
 
 @Entity
-@Table(name = "product")
+@Table(name = "product", indexes = {
+    @Index(name = "idx_product_price_id", columnList = "price, id"),
+    @Index(name = "idx_product_name_id", columnList = "name, id")
+})
 public class ClothingItem {
 
     @Id
@@ -39,6 +45,11 @@ public class ClothingItem {
     @DecimalMax(value = "100000", message = "Цена не может превышать 100 000")
     private Double price;
 
+    /** Версия товара: растёт при каждом изменении, служит для ETag и оптимистичной блокировки. */
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @OneToMany(mappedBy = "clothingItem", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Review> reviews;
@@ -64,14 +75,30 @@ public class ClothingItem {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public String getSize() {
         return size;
     }
 
+    public void setSize(String size) {
+        this.size = size;
+    }
+
     public double getPrice() {
         return price;
     }
 
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
     public List<Review> getReviews() {
         return reviews;
     }
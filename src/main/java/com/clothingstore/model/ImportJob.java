@@ -0,0 +1,132 @@
+package com.clothingstore.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Задание на импорт товаров из NDJSON-файла. Прогресс сохраняется после каждой
+ * зафиксированной порции, поэтому после перезапуска задание продолжается
+ * со строки, следующей за {@link #getLastCommittedLine()}.
+ */
+@Entity
+@Table(name = "import_job")
+public class ImportJob {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImportJobStatus status;
+
+    @JsonIgnore
+    @Column(name = "spool_path", nullable = false)
+    private String spoolPath;
+
+    @Column(name = "rows_read", nullable = false)
+    private long rowsRead;
+
+    @Column(name = "rows_committed", nullable = false)
+    private long rowsCommitted;
+
+    @Column(name = "rows_rejected", nullable = false)
+    private long rowsRejected;
+
+    @Column(name = "last_committed_line", nullable = false)
+    private long lastCommittedLine;
+
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ImportJob() {}
+
+    public ImportJob(String spoolPath) {
+        this.spoolPath = spoolPath;
+        this.status = ImportJobStatus.QUEUED;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public String getSpoolPath() {
+        return spoolPath;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsCommitted() {
+        return rowsCommitted;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getLastCommittedLine() {
+        return lastCommittedLine;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void markRunning() {
+        status = ImportJobStatus.RUNNING;
+        updatedAt = Instant.now();
+    }
+
+    /** Учитывает обработанную порцию, заканчивающуюся строкой файла {@code line}. */
+    public void recordChunk(long line, long read, long committed, long rejected) {
+        lastCommittedLine = line;
+        rowsRead += read;
+        rowsCommitted += committed;
+        rowsRejected += rejected;
+        updatedAt = Instant.now();
+    }
+
+    public void markCompleted() {
+        status = ImportJobStatus.COMPLETED;
+        updatedAt = Instant.now();
+    }
+
+    public void markFailed(String reason) {
+        status = ImportJobStatus.FAILED;
+        error = reason != null && reason.length() > MAX_ERROR_LENGTH
+                ? reason.substring(0, MAX_ERROR_LENGTH) : reason;
+        updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.clothingstore.model;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
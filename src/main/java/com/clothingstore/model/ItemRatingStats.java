@@ -0,0 +1,127 @@
+package com.clothingstore.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Денормализованные агрегаты отзывов товара: количество, сумма и максимум оценок,
+ * а также гистограмма по звёздам. Обновляется в той же транзакции, что и отзывы.
+ */
+@Entity
+@Table(name = "item_rating_stats", indexes = {
+    @Index(name = "idx_item_rating_stats_max_rating", columnList = "max_rating, product_id")
+})
+public class ItemRatingStats {
+
+    public static final int MAX_RATING = 5;
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "review_count", nullable = false)
+    private long reviewCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "max_rating", nullable = false)
+    private int maxRating;
+
+    @Column(name = "rating_1", nullable = false)
+    private long rating1;
+
+    @Column(name = "rating_2", nullable = false)
+    private long rating2;
+
+    @Column(name = "rating_3", nullable = false)
+    private long rating3;
+
+    @Column(name = "rating_4", nullable = false)
+    private long rating4;
+
+    @Column(name = "rating_5", nullable = false)
+    private long rating5;
+
+    /** Растёт при каждом изменении агрегатов; позволяет упорядочить их применение к индексам. */
+    @Column(name = "revision", nullable = false, columnDefinition = "bigint default 0")
+    private long revision;
+
+    public ItemRatingStats() {}
+
+    public ItemRatingStats(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public double getAverageRating() {
+        return reviewCount == 0 ? 0 : (double) ratingSum / reviewCount;
+    }
+
+    /** Количество отзывов с оценкой {@code rating} (от 1 до 5). */
+    public long getCount(int rating) {
+        return switch (rating) {
+            case 1 -> rating1;
+            case 2 -> rating2;
+            case 3 -> rating3;
+            case 4 -> rating4;
+            case 5 -> rating5;
+            default -> throw new IllegalArgumentException("Rating out of range: " + rating);
+        };
+    }
+
+    public void addRating(int rating) {
+        adjust(rating, 1);
+    }
+
+    public void removeRating(int rating) {
+        if (getCount(rating) == 0) {
+            throw new IllegalStateException("No reviews with rating " + rating
+                    + " for product " + productId);
+        }
+        adjust(rating, -1);
+    }
+
+    private void adjust(int rating, int delta) {
+        switch (rating) {
+            case 1 -> rating1 += delta;
+            case 2 -> rating2 += delta;
+            case 3 -> rating3 += delta;
+            case 4 -> rating4 += delta;
+            case 5 -> rating5 += delta;
+            default -> throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        reviewCount += delta;
+        revision++;
+        ratingSum += (long) delta * rating;
+        maxRating = 0;
+        for (int r = MAX_RATING; r >= 1; r--) {
+            if (getCount(r) > 0) {
+                maxRating = r;
+                break;
+            }
+        }
+    }
+}
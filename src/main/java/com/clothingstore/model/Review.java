@@ -1,14 +1,20 @@
 package com.clothingstore.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -17,7 +23,10 @@ import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "review")
+@Table(name = "review", indexes = {
+    @Index(name = "idx_review_product_id_id", columnList = "product_id, id"),
+    @Index(name = "idx_review_product_rating_id", columnList = "product_id, rating, id")
+})
 public class Review {
 
     @Id
@@ -44,6 +53,9 @@ public class Review {
     @Max(value = 5, message = "Максимальный рейтинг - 5")
     private Integer rating;
 
+    @Transient
+    private Integer persistedRating;
+
     public Review() {}
 
     public Review(String username, String comment, int rating) {
@@ -88,4 +100,20 @@ public class Review {
         this.rating = rating;
     }
 
+    /**
+     * Оценка, сохранённая в БД на момент загрузки или последней записи отзыва;
+     * {@code null} для ещё не сохранённого отзыва.
+     */
+    @JsonIgnore
+    public Integer getPersistedRating() {
+        return persistedRating;
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedRating() {
+        persistedRating = rating;
+    }
+
 }
@@ -0,0 +1,21 @@
+package com.clothingstore.repository;
+
+import com.clothingstore.model.CatalogChangeHorizon;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogChangeHorizonRepository
+        extends JpaRepository<CatalogChangeHorizon, Integer> {
+
+    /** Сдвигает границу сжатия вперёд; граница никогда не уменьшается. */
+    @Modifying
+    @Query(value = "INSERT INTO catalog_change_horizon (id, purged_through) "
+            + "VALUES (" + CatalogChangeHorizon.SINGLETON_ID + ", :seq) "
+            + "ON CONFLICT (id) DO UPDATE SET purged_through = GREATEST("
+            + "catalog_change_horizon.purged_through, EXCLUDED.purged_through)",
+            nativeQuery = true)
+    void advance(long seq);
+}
@@ -0,0 +1,39 @@
+package com.clothingstore.repository;
+
+import com.clothingstore.model.CatalogChange;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    @Query("SELECT c FROM CatalogChange c WHERE c.seq > :since ORDER BY c.seq")
+    List<CatalogChange> findAfter(long since, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM CatalogChange c")
+    long findLatestSeq();
+
+    /** Наибольший {@code seq} среди записей, созданных раньше {@code before}. */
+    @Query("SELECT MAX(c.seq) FROM CatalogChange c WHERE c.createdAt < :before")
+    Long findLatestSeqBefore(Instant before);
+
+    /**
+     * Удаляет записи, для которых есть более поздняя запись о той же сущности, созданная
+     * раньше {@code settledBefore}: клиенту достаточно последнего состояния сущности.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM catalog_change c WHERE EXISTS ("
+            + "SELECT 1 FROM catalog_change n WHERE n.target = c.target "
+            + "AND n.entity_id = c.entity_id AND n.seq > c.seq "
+            + "AND n.created_at < :settledBefore)", nativeQuery = true)
+    int deleteSuperseded(Instant settledBefore);
+
+    @Modifying
+    @Query("DELETE FROM CatalogChange c WHERE c.seq <= :seq")
+    int deleteThrough(long seq);
+}
@@ -1,35 +1,84 @@
 package com.clothingstore.repository;
 
+import com.clothingstore.dto.ClothingItemView;
 import com.clothingstore.model.ClothingItem;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ClothingItemRepository extends JpaRepository<ClothingItem, Long> {
 
-    List<ClothingItem> findByNameContainingIgnoreCase(String name);
+    int STREAM_FETCH_SIZE = 500;
+
+    /** Выборка проекции {@link ClothingItemView}: только столбцы товара, без отзывов. */
+    String SELECT_VIEW = "SELECT new com.clothingstore.dto.ClothingItemView("
+            + "c.id, c.name, c.size, c.price, c.version) FROM ClothingItem c ";
+
+    @Query(SELECT_VIEW + "ORDER BY c.id")
+    List<ClothingItemView> findAllViews();
+
+    @Query(SELECT_VIEW + "WHERE c.id = :id")
+    Optional<ClothingItemView> findViewById(Long id);
+
+    @Query(SELECT_VIEW + "WHERE c.id IN :ids ORDER BY c.id")
+    List<ClothingItemView> findViewsByIdIn(Collection<Long> ids);
+
+    /**
+     * Поиск по подстроке имени без учёта регистра. Символы {@code %}, {@code _} и
+     * {@code \} в {@code name} должны быть экранированы обратной косой чертой.
+     */
+    @Query(SELECT_VIEW + "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%')) "
+            + "ESCAPE '\\' ORDER BY c.id")
+    List<ClothingItemView> findViewsByNameContaining(String name);
+
+    @Query("SELECT c.id FROM ClothingItem c WHERE c.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM ClothingItem c ORDER BY c.id")
+    Stream<ClothingItem> streamAllBy();
 
     @Query("SELECT c FROM ClothingItem c "
-            + "JOIN c.reviews r "
-            + "WHERE r.rating >= :rating")
-    List<ClothingItem> findAllByReviewRatingGreaterThanEqual(int rating);
+            + "WHERE c.id > :lastId "
+            + "ORDER BY c.id")
+    List<ClothingItem> findPageOrderById(long lastId, Pageable pageable);
 
-    @Query(value = "SELECT p.* FROM product p "
-            + "INNER JOIN review r ON p.id = r.product_id "
-            + "WHERE r.rating >= :rating", nativeQuery = true)
-    List<ClothingItem> findAllByReviewRatingGreaterThanEqualNative(int rating);
+    @Query("SELECT c FROM ClothingItem c "
+            + "WHERE (c.price, c.id) > (:price, :lastId) "
+            + "ORDER BY c.price, c.id")
+    List<ClothingItem> findPageOrderByPrice(double price, long lastId, Pageable pageable);
 
     @Query("SELECT c FROM ClothingItem c "
-            + "JOIN c.reviews r "
-            + "WHERE c.name LIKE %:name% "
-            + "AND r.rating >= :rating")
-    List<ClothingItem> findAllByNameAndReviewRatingGreaterThanEqual(String name, int rating);
-
-    @Query(value = "SELECT p.* FROM product p "
-            + "INNER JOIN review r ON p.id = r.product_id "
-            + "WHERE p.name LIKE %:name% "
-            + "AND r.rating >= :rating", nativeQuery = true)
-    List<ClothingItem> findAllByNameAndReviewRatingGreaterThanEqualNative(String name, int rating);
+            + "WHERE (c.name, c.id) > (:name, :lastId) "
+            + "ORDER BY c.name, c.id")
+    List<ClothingItem> findPageOrderByName(String name, long lastId, Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE c.id IN (SELECT s.productId FROM ItemRatingStats s "
+            + "WHERE s.maxRating >= :rating) "
+            + "ORDER BY c.id")
+    List<ClothingItemView> findViewsByMaxReviewRatingAtLeast(int rating);
+
+    /**
+     * Поиск по подстроке имени без учёта регистра среди товаров с оценкой не ниже
+     * {@code rating}; {@code name} экранируется, как для {@link #findViewsByNameContaining}.
+     */
+    @Query(SELECT_VIEW
+            + "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%')) ESCAPE '\\' "
+            + "AND c.id IN (SELECT s.productId FROM ItemRatingStats s "
+            + "WHERE s.maxRating >= :rating) "
+            + "ORDER BY c.id")
+    List<ClothingItemView> findViewsByNameAndMaxReviewRatingAtLeast(String name, int rating);
 }
@@ -0,0 +1,14 @@
+package com.clothingstore.repository;
+
+import com.clothingstore.model.ImportJob;
+import com.clothingstore.model.ImportJobStatus;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    List<ImportJob> findAllByStatusInOrderById(Collection<ImportJobStatus> statuses);
+}
@@ -0,0 +1,84 @@
+package com.clothingstore.repository;
+
+import com.clothingstore.model.ItemRatingStats;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ItemRatingStatsRepository extends JpaRepository<ItemRatingStats, Long> {
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE,
+                value = "" + ClothingItemRepository.STREAM_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM ItemRatingStats s WHERE s.maxRating > 0")
+    Stream<ItemRatingStats> streamRated();
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO item_rating_stats (product_id, review_count, rating_sum, "
+            + "max_rating, rating_1, rating_2, rating_3, rating_4, rating_5) "
+            + "VALUES (:productId, 0, 0, 0, 0, 0, 0, 0, 0) "
+            + "ON CONFLICT (product_id) DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ItemRatingStats s WHERE s.productId = :productId")
+    Optional<ItemRatingStats> findForUpdate(Long productId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ItemRatingStats s WHERE s.productId = :productId")
+    void deleteByProductId(Long productId);
+
+    /** Блокирует запись отзывов до конца транзакции пересчёта. */
+    @Modifying
+    @Query(value = "LOCK TABLE review IN SHARE MODE", nativeQuery = true)
+    void lockReviews();
+
+    /**
+     * Обнуляет агрегаты товаров, у которых не осталось отзывов. Ревизия растёт, а не
+     * сбрасывается: индекс рейтингов отбрасывает обновления с ревизией не новее известной.
+     */
+    @Modifying
+    @Query(value = "UPDATE item_rating_stats s SET review_count = 0, rating_sum = 0, "
+            + "max_rating = 0, rating_1 = 0, rating_2 = 0, rating_3 = 0, rating_4 = 0, "
+            + "rating_5 = 0, revision = s.revision + 1 "
+            + "WHERE NOT EXISTS (SELECT 1 FROM review r WHERE r.product_id = s.product_id)",
+            nativeQuery = true)
+    int resetStatsWithoutReviews();
+
+    /**
+     * Пересчитывает агрегаты товаров с отзывами; у существующих строк ревизия растёт.
+     * Возвращает число товаров с отзывами.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO item_rating_stats (product_id, review_count, rating_sum, "
+            + "max_rating, rating_1, rating_2, rating_3, rating_4, rating_5, revision) "
+            + "SELECT r.product_id, COUNT(*), SUM(r.rating), MAX(r.rating), "
+            + "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END), 1 "
+            + "FROM review r WHERE r.product_id IS NOT NULL "
+            + "GROUP BY r.product_id "
+            + "ON CONFLICT (product_id) DO UPDATE SET "
+            + "review_count = EXCLUDED.review_count, rating_sum = EXCLUDED.rating_sum, "
+            + "max_rating = EXCLUDED.max_rating, rating_1 = EXCLUDED.rating_1, "
+            + "rating_2 = EXCLUDED.rating_2, rating_3 = EXCLUDED.rating_3, "
+            + "rating_4 = EXCLUDED.rating_4, rating_5 = EXCLUDED.rating_5, "
+            + "revision = item_rating_stats.revision + 1", nativeQuery = true)
+    int upsertAllFromReviews();
+}
@@ -0,0 +1,7 @@
+package com.clothingstore.repository;
+
+/**
+ * Пара «товар — автор отзыва»: один пользователь может оставить товару только один отзыв.
+ */
+public record ReviewAuthor(Long productId, String username) {
+}
@@ -1,15 +1,52 @@
 package com.clothingstore.repository;
 
+import com.clothingstore.dto.ReviewView;
 import com.clothingstore.model.Review;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
 
-    List<Review> findByClothingItemId(Long clothingItemId);
+    /** Выборка проекции {@link ReviewView}: товар представлен внешним ключом, без join. */
+    String SELECT_VIEW = "SELECT new com.clothingstore.dto.ReviewView("
+            + "r.id, r.clothingItem.id, r.username, r.comment, r.rating) FROM Review r ";
 
-    boolean existsByUsernameAndClothingItemId(String username, Long clothingItemId);
+    @Query(SELECT_VIEW + "WHERE r.clothingItem.id = :productId ORDER BY r.id")
+    List<ReviewView> findViewsByProductId(Long productId);
+
+    @Query(SELECT_VIEW + "WHERE r.id IN :ids")
+    List<ReviewView> findViewsByIdIn(Collection<Long> ids);
+
+    @Query(SELECT_VIEW + "WHERE r.clothingItem.id IN :productIds "
+            + "ORDER BY r.clothingItem.id, r.id")
+    List<ReviewView> findViewsByProductIdIn(Collection<Long> productIds);
+
+    @Query(SELECT_VIEW + "WHERE r.clothingItem.id = :productId AND r.id < :lastId "
+            + "ORDER BY r.id DESC")
+    List<ReviewView> findPageNewest(Long productId, long lastId, Pageable pageable);
+
+    /**
+     * Сравнение строк {@code (rating, id) < (...)} идёт одним диапазоном по индексу
+     * {@code (product_id, rating, id)}, поэтому глубина страницы не влияет на стоимость.
+     */
+    @Query(SELECT_VIEW + "WHERE r.clothingItem.id = :productId "
+            + "AND (r.rating, r.id) < (:rating, :lastId) "
+            + "ORDER BY r.rating DESC, r.id DESC")
+    List<ReviewView> findPageByRating(Long productId, int rating, long lastId,
+                                      Pageable pageable);
+
+    /**
+     * Возвращает уже существующие отзывы среди пар из {@code productIds} × {@code usernames};
+     * вызывающий код отбрасывает лишние сочетания.
+     */
+    @Query("SELECT new com.clothingstore.repository.ReviewAuthor(r.clothingItem.id, r.username) "
+            + "FROM Review r "
+            + "WHERE r.clothingItem.id IN :productIds AND r.username IN :usernames")
+    List<ReviewAuthor> findAuthors(Collection<Long> productIds, Collection<String> usernames);
 }
@@ -0,0 +1,202 @@
+package com.clothingstore.search;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Инвертированный индекс триграмм по названиям товаров для поиска подстроки без учёта регистра.
+ *
+ * <p>Для каждой триграммы хранится битовая карта id товаров, в названии которых она
+ * встречается. Запрос пересекает карты всех своих триграмм и проверяет кандидатов на точное
+ * вхождение подстроки. Запросы короче трёх символов проверяют все товары.
+ */
+@Component
+public class NameTrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, BitSet> postings = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private String[] names = new String[1024];
+
+    private volatile boolean ready;
+    private BitSet touchedDuringLoad;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** Начинает первоначальную загрузку: изменения, пришедшие во время неё, имеют приоритет. */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            touchedDuringLoad = new BitSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Добавляет товар, прочитанный загрузкой, если он не менялся после её начала. */
+    public void load(long id, String name) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad == null || !touchedDuringLoad.get(key)) {
+                replace(key, name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void completeLoad() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(long id, String name) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            touch(key);
+            replace(key, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            touch(key);
+            unindex(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Возвращает id товаров, название которых содержит {@code term} без учёта регистра. */
+    public BitSet search(String term) {
+        return search(term, null);
+    }
+
+    /**
+     * То же, что {@link #search(String)}, но проверяет только товары из {@code within},
+     * если он задан: так пересечение с другим индексом обходится без лишних сравнений строк.
+     */
+    public BitSet search(String term, BitSet within) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            BitSet candidates = candidates(needle);
+            if (within != null) {
+                candidates.and(within);
+            }
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (!names[id].contains(needle)) {
+                    candidates.clear(id);
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet candidates(String needle) {
+        if (needle.length() < GRAM) {
+            return (BitSet) live.clone();
+        }
+        BitSet result = null;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            BitSet posting = postings.get(trigram(needle, i));
+            if (posting == null) {
+                return new BitSet();
+            }
+            if (result == null) {
+                result = (BitSet) posting.clone();
+            } else {
+                result.and(posting);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void replace(int key, String name) {
+        unindex(key);
+        String normalized = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        if (key >= names.length) {
+            String[] grown = new String[Math.max(key + 1, names.length * 2)];
+            System.arraycopy(names, 0, grown, 0, names.length);
+            names = grown;
+        }
+        names[key] = normalized;
+        live.set(key);
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            postings.computeIfAbsent(trigram(normalized, i), t -> new BitSet()).set(key);
+        }
+    }
+
+    private void unindex(int key) {
+        if (!live.get(key)) {
+            return;
+        }
+        String previous = names[key];
+        for (int i = 0; i + GRAM <= previous.length(); i++) {
+            long trigram = trigram(previous, i);
+            BitSet posting = postings.get(trigram);
+            if (posting != null) {
+                posting.clear(key);
+                if (posting.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+        names[key] = null;
+        live.clear(key);
+    }
+
+    private void touch(int key) {
+        if (touchedDuringLoad != null) {
+            touchedDuringLoad.set(key);
+        }
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32)
+                | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+    }
+
+    private static int toKey(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Item id out of index range: " + id);
+        }
+        return (int) id;
+    }
+}
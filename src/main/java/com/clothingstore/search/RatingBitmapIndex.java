@@ -0,0 +1,176 @@
+package com.clothingstore.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * Битовые карты товаров по порогам рейтинга: карта {@code n} содержит id товаров,
+ * у которых есть отзыв с оценкой не ниже {@code n}.
+ *
+ * <p>Индекс хранит для каждого товара максимальную оценку и ревизию агрегатов, из которых
+ * она получена. Обновления с ревизией не новее уже применённой отбрасываются, поэтому
+ * порядок, в котором завершившиеся транзакции сообщают об изменениях, не важен.
+ *
+ * <p>Загрузка читает только товары с оценками, поэтому по её завершении из карт убираются
+ * товары, которые она не прочитала и которые не менялись во время неё: их отзывы исчезли.
+ */
+@Component
+public class RatingBitmapIndex {
+
+    public static final int MAX_RATING = 5;
+
+    private static final long REMOVED = Long.MAX_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet[] atLeast = new BitSet[MAX_RATING];
+    private byte[] maxRatings = new byte[1024];
+    private long[] revisions = new long[1024];
+
+    private volatile boolean ready;
+    private BitSet touchedDuringLoad;
+    private BitSet loaded;
+
+    public RatingBitmapIndex() {
+        Arrays.setAll(atLeast, i -> new BitSet());
+        Arrays.fill(revisions, -1);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Начинает (пере)загрузку: изменения, пришедшие во время неё, имеют приоритет.
+     * Известные ревизии сохраняются: пересчёт агрегатов их только увеличивает, поэтому
+     * запоздавшее обновление со старой ревизией по-прежнему отбрасывается.
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            touchedDuringLoad = new BitSet();
+            loaded = new BitSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Применяет агрегаты, прочитанные загрузкой, если товар не менялся после её начала. */
+    public void load(long id, int maxRating, long revision) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            if (touchedDuringLoad == null || !touchedDuringLoad.get(key)) {
+                ensureCapacity(key);
+                if (loaded != null) {
+                    loaded.set(key);
+                }
+                if (revisions[key] != REMOVED) {
+                    apply(key, maxRating, revision);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Завершает загрузку, убирая из карт товары, не прочитанные и не изменённые за неё. */
+    public void completeLoad() {
+        lock.writeLock().lock();
+        try {
+            if (loaded != null) {
+                BitSet rated = atLeast[0];
+                for (int key = rated.nextSetBit(0); key >= 0; key = rated.nextSetBit(key + 1)) {
+                    if (!loaded.get(key) && !touchedDuringLoad.get(key)) {
+                        apply(key, 0, revisions[key]);
+                    }
+                }
+            }
+            loaded = null;
+            touchedDuringLoad = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Применяет зафиксированные агрегаты товара, если они новее уже известных индексу. */
+    public void put(long id, int maxRating, long revision) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(key);
+            if (revision > revisions[key]) {
+                touch(key);
+                apply(key, maxRating, revision);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Удаляет товар; последующие обновления его агрегатов игнорируются. */
+    public void remove(long id) {
+        int key = toKey(id);
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(key);
+            touch(key);
+            apply(key, 0, REMOVED);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Возвращает id товаров, у которых есть отзыв с оценкой не ниже {@code rating}. */
+    public BitSet atLeast(int rating) {
+        if (rating > MAX_RATING) {
+            return new BitSet();
+        }
+        lock.readLock().lock();
+        try {
+            return (BitSet) atLeast[Math.max(rating, 1) - 1].clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(int key, int maxRating, long revision) {
+        int previous = maxRatings[key];
+        for (int r = maxRating + 1; r <= previous; r++) {
+            atLeast[r - 1].clear(key);
+        }
+        for (int r = previous + 1; r <= maxRating; r++) {
+            atLeast[r - 1].set(key);
+        }
+        maxRatings[key] = (byte) maxRating;
+        revisions[key] = revision;
+    }
+
+    private void ensureCapacity(int key) {
+        if (key < maxRatings.length) {
+            return;
+        }
+        int length = Math.max(key + 1, maxRatings.length * 2);
+        maxRatings = Arrays.copyOf(maxRatings, length);
+        int oldLength = revisions.length;
+        revisions = Arrays.copyOf(revisions, length);
+        Arrays.fill(revisions, oldLength, length, -1);
+    }
+
+    private void touch(int key) {
+        if (touchedDuringLoad != null) {
+            touchedDuringLoad.set(key);
+        }
+    }
+
+    private static int toKey(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Item id out of index range: " + id);
+        }
+        return (int) id;
+    }
+}
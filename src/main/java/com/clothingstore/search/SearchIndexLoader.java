@@ -0,0 +1,105 @@
+package com.clothingstore.search;
+
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.model.ItemRatingStats;
+import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ItemRatingStatsRepository;
+import jakarta.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Заполняет поисковые индексы при старте приложения, читая каталог курсором БД.
+ * Каждая загрузка выполняется в собственной транзакции только для чтения, поэтому её
+ * можно запускать и после фиксации другой транзакции.
+ */
+@Component
+public class SearchIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexLoader.class);
+
+    private final ClothingItemRepository clothingItemRepository;
+    private final ItemRatingStatsRepository ratingStatsRepository;
+    private final EntityManager entityManager;
+    private final NameTrigramIndex nameIndex;
+    private final RatingBitmapIndex ratingIndex;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public SearchIndexLoader(ClothingItemRepository clothingItemRepository,
+                             ItemRatingStatsRepository ratingStatsRepository,
+                             EntityManager entityManager,
+                             NameTrigramIndex nameIndex,
+                             RatingBitmapIndex ratingIndex,
+                             PlatformTransactionManager transactionManager) {
+        this.clothingItemRepository = clothingItemRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.entityManager = entityManager;
+        this.nameIndex = nameIndex;
+        this.ratingIndex = ratingIndex;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadNames();
+        loadRatings();
+    }
+
+    public void loadNames() {
+        nameIndex.beginLoad();
+        long count = stream("item names", clothingItemRepository::streamAllBy,
+                (ClothingItem item) -> nameIndex.load(item.getId(), item.getName()));
+        if (count >= 0) {
+            nameIndex.completeLoad();
+        }
+    }
+
+    public void loadRatings() {
+        ratingIndex.beginLoad();
+        long count = stream("item ratings", ratingStatsRepository::streamRated,
+                (ItemRatingStats stats) -> ratingIndex.load(stats.getProductId(),
+                        stats.getMaxRating(), stats.getRevision()));
+        if (count >= 0) {
+            ratingIndex.completeLoad();
+        }
+    }
+
+    /** Возвращает число прочитанных строк или -1, если загрузка не удалась. */
+    private <T> long stream(String what, Supplier<Stream<T>> query, Consumer<T> consumer) {
+        long started = System.nanoTime();
+        try {
+            Long count = readOnlyTransaction.execute(status -> {
+                long rows = 0;
+                try (Stream<T> stream = query.get()) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        consumer.accept(iterator.next());
+                        if (++rows % ClothingItemRepository.STREAM_FETCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+                return rows;
+            });
+            logger.info("Indexed {} {} in {} ms", count, what,
+                    (System.nanoTime() - started) / 1_000_000);
+            return count == null ? 0 : count;
+        } catch (RuntimeException e) {
+            logger.error("Failed to index {}, falling back to database search", what, e);
+            return -1;
+        }
+    }
+}
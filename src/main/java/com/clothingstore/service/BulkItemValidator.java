@@ -0,0 +1,128 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.model.ClothingItem;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Проверка строк массовой загрузки товаров. Использует общий потокобезопасный
+ * {@link Validator} приложения вместо создания фабрики валидаторов на каждый вызов.
+ *
+ * <p>Списки от {@code bulk.validation.parallel-threshold} строк делятся на диапазоны и
+ * проверяются в выделенном {@link ForkJoinPool} из {@code bulk.validation.parallelism}
+ * потоков, чтобы не занимать общий пул и не конкурировать с другими задачами.
+ */
+@Component
+public class BulkItemValidator {
+
+    private static final int MIN_SLICE = 256;
+    private static final Comparator<RowViolation> BY_FIELD = Comparator
+            .comparing(RowViolation::field, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(RowViolation::message);
+
+    private final Validator validator;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    @Autowired
+    public BulkItemValidator(Validator validator,
+                             @Value("${bulk.validation.parallelism:0}") int parallelism,
+                             @Value("${bulk.validation.parallel-threshold:2000}")
+                             int parallelThreshold) {
+        this.validator = validator;
+        this.parallelThreshold = parallelThreshold;
+        this.pool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread =
+                            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setName("bulk-validation-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    /** Валидатор, проверяющий строки только в вызывающем потоке. */
+    public BulkItemValidator(Validator validator) {
+        this(validator, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает нарушения для каждой строки в порядке входного списка;
+     * пустой список означает, что строка корректна.
+     */
+    public List<List<RowViolation>> validate(List<ClothingItem> items) {
+        List<ClothingItem> rows = items instanceof RandomAccess ? items : new ArrayList<>(items);
+        List<List<RowViolation>> results = new ArrayList<>(Collections.nCopies(rows.size(), null));
+        if (rows.size() < parallelThreshold || pool.getParallelism() == 1) {
+            validateRange(rows, results, 0, rows.size());
+        } else {
+            int slice = Math.max(MIN_SLICE, rows.size() / (pool.getParallelism() * 4));
+            pool.invoke(new ValidateRange(rows, results, 0, rows.size(), slice));
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void validateRange(List<ClothingItem> rows, List<List<RowViolation>> results,
+                               int from, int to) {
+        for (int i = from; i < to; i++) {
+            results.set(i, validate(rows.get(i)));
+        }
+    }
+
+    private List<RowViolation> validate(ClothingItem item) {
+        if (item == null) {
+            return List.of(RowViolation.ofRow("Item is null"));
+        }
+        return validator.validate(item).stream()
+                .map(violation -> new RowViolation(violation.getPropertyPath().toString(),
+                        violation.getMessage()))
+                .sorted(BY_FIELD)
+                .toList();
+    }
+
+    private final class ValidateRange extends RecursiveAction {
+
+        private final transient List<ClothingItem> rows;
+        private final transient List<List<RowViolation>> results;
+        private final int from;
+        private final int to;
+        private final int slice;
+
+        ValidateRange(List<ClothingItem> rows, List<List<RowViolation>> results,
+                      int from, int to, int slice) {
+            this.rows = rows;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.slice = slice;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= slice) {
+                validateRange(rows, results, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidateRange(rows, results, from, middle, slice),
+                    new ValidateRange(rows, results, middle, to, slice));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.clothingstore.service;
+
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.clothingstore.model.ClothingItem;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Быстрая вставка товаров в обход Hibernate. С {@code GenerationType.IDENTITY} Hibernate
+ * не может группировать INSERT, поэтому товары пишутся многострочными
+ * {@code INSERT ... VALUES (...), (...) RETURNING id} по {@code bulk.insert.batch-size} строк,
+ * а транзакция фиксируется каждые {@code bulk.insert.commit-interval} строк. В той же
+ * транзакции вставленные товары записываются в {@link CatalogChangeLog}.
+ */
+@Component
+public class BulkItemWriter {
+
+    /** Ограничение протокола PostgreSQL на число параметров одного запроса. */
+    private static final int MAX_PARAMETERS = 65_535;
+    private static final int COLUMNS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final CatalogChangeLog changeLog;
+    private final int batchSize;
+    private final int commitInterval;
+    private final String fullBatchSql;
+
+    public BulkItemWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          CatalogChangeLog changeLog,
+                          @Value("${bulk.insert.batch-size:1000}") int batchSize,
+                          @Value("${bulk.insert.commit-interval:10000}") int commitInterval) {
+        if (batchSize <= 0 || batchSize * COLUMNS > MAX_PARAMETERS) {
+            throw new IllegalArgumentException("bulk.insert.batch-size must be between 1 and "
+                    + MAX_PARAMETERS / COLUMNS);
+        }
+        if (commitInterval <= 0) {
+            throw new IllegalArgumentException("bulk.insert.commit-interval must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.changeLog = changeLog;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+        this.fullBatchSql = insertSql(batchSize);
+    }
+
+    /** Сколько строк вызывающий код передаёт в один вызов {@link #insert(List)}. */
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * Вставляет товары одной транзакцией и проставляет им сгенерированные id.
+     * Если транзакция откатывается, id не проставляются.
+     */
+    public void insert(List<ClothingItem> items) {
+        insert(items, () -> { });
+    }
+
+    /**
+     * То же, что {@link #insert(List)}, но перед фиксацией выполняет {@code beforeCommit}
+     * в той же транзакции, например чтобы атомарно сохранить прогресс импорта.
+     */
+    public void insert(List<ClothingItem> items, Runnable beforeCommit) {
+        List<Long> ids = transaction.execute(status -> {
+            List<Long> generated = new ArrayList<>(items.size());
+            for (int from = 0; from < items.size(); from += batchSize) {
+                generated.addAll(insertBatch(
+                        items.subList(from, Math.min(from + batchSize, items.size()))));
+            }
+            changeLog.recordAll(ChangeTarget.ITEM, generated, generated, ChangeOperation.UPSERT);
+            beforeCommit.run();
+            return generated;
+        });
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setId(ids.get(i));
+        }
+    }
+
+    private List<Long> insertBatch(List<ClothingItem> batch) {
+        String sql = batch.size() == batchSize ? fullBatchSql : insertSql(batch.size());
+        List<Long> ids = jdbcTemplate.query(sql, statement -> {
+            int parameter = 1;
+            for (ClothingItem item : batch) {
+                statement.setString(parameter++, item.getName());
+                statement.setString(parameter++, item.getSize());
+                statement.setDouble(parameter++, item.getPrice());
+            }
+        }, (rs, rowNum) -> rs.getLong(1));
+        if (ids.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size()
+                    + " generated ids, got " + ids.size());
+        }
+        return ids;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO product (name, size, price) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        return sql.append(" RETURNING id").toString();
+    }
+}
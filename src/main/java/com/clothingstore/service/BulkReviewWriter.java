@@ -0,0 +1,81 @@
+package com.clothingstore.service;
+
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.clothingstore.model.Review;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Быстрая вставка отзывов многострочными {@code INSERT ... RETURNING id} по
+ * {@code bulk.insert.batch-size} строк, аналогично {@link BulkItemWriter}, с записью
+ * вставленных отзывов в {@link CatalogChangeLog} в той же транзакции.
+ */
+@Component
+public class BulkReviewWriter {
+
+    private static final int MAX_PARAMETERS = 65_535;
+    private static final int COLUMNS = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final CatalogChangeLog changeLog;
+    private final int batchSize;
+
+    public BulkReviewWriter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            CatalogChangeLog changeLog,
+                            @Value("${bulk.insert.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.changeLog = changeLog;
+        this.batchSize = Math.min(batchSize, MAX_PARAMETERS / COLUMNS);
+    }
+
+    /**
+     * Вставляет отзывы одной транзакцией, перед фиксацией выполняет {@code beforeCommit}
+     * и возвращает сгенерированные id в порядке входного списка.
+     */
+    public List<Long> insert(List<Review> reviews, Runnable beforeCommit) {
+        return transaction.execute(status -> {
+            List<Long> ids = new ArrayList<>(reviews.size());
+            for (int from = 0; from < reviews.size(); from += batchSize) {
+                ids.addAll(insertBatch(
+                        reviews.subList(from, Math.min(from + batchSize, reviews.size()))));
+            }
+            changeLog.recordAll(ChangeTarget.REVIEW, ids, reviews.stream()
+                    .map(review -> review.getClothingItem().getId())
+                    .toList(), ChangeOperation.UPSERT);
+            beforeCommit.run();
+            return ids;
+        });
+    }
+
+    private List<Long> insertBatch(List<Review> batch) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO review (product_id, username, comment, rating) VALUES ");
+        for (int i = 0; i < batch.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        sql.append(" RETURNING id");
+        List<Long> ids = jdbcTemplate.query(sql.toString(), statement -> {
+            int parameter = 1;
+            for (Review review : batch) {
+                statement.setLong(parameter++, review.getClothingItem().getId());
+                statement.setString(parameter++, review.getUsername());
+                statement.setString(parameter++, review.getComment());
+                statement.setInt(parameter++, review.getRating());
+            }
+        }, (rs, rowNum) -> rs.getLong(1));
+        if (ids.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size()
+                    + " generated ids, got " + ids.size());
+        }
+        return ids;
+    }
+}
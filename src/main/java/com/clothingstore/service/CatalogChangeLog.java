@@ -0,0 +1,267 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.CatalogChangeView;
+import com.clothingstore.dto.ChangeFeed;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.exception.GoneException;
+import com.clothingstore.model.CatalogChange;
+import com.clothingstore.model.CatalogChangeHorizon;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.clothingstore.repository.CatalogChangeHorizonRepository;
+import com.clothingstore.repository.CatalogChangeRepository;
+import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ReviewRepository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Журнал изменений каталога для дельта-синхронизации зеркал. Каждая запись товара или
+ * отзыва добавляет в журнал строку в той же транзакции; клиент запоминает {@code seq}
+ * последнего полученного изменения и запрашивает только более поздние.
+ *
+ * <p>Номера выдаются последовательностью при вставке, а видны после фиксации, поэтому
+ * более поздний номер может стать виден раньше более раннего. Чтобы клиент не перескочил
+ * ещё не зафиксированное изменение, выдача останавливается перед пропуском в номерах,
+ * пока запись за пропуском моложе {@code changes.gap-timeout}; пропуски от откаченных
+ * транзакций задерживают выдачу не дольше этого времени.
+ *
+ * <p>Журнал периодически сжимается: из нескольких записей об одной сущности остаётся
+ * последняя, а записи старше {@code changes.retention} удаляются. Клиент, отставший
+ * дальше границы удаления, получает 410 и должен загрузить каталог заново.
+ */
+@Service
+public class CatalogChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeLog.class);
+
+    private static final String INSERT_SQL = "INSERT INTO catalog_change "
+            + "(target, entity_id, product_id, operation, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogChangeRepository changeRepository;
+    private final CatalogChangeHorizonRepository horizonRepository;
+    private final ClothingItemRepository clothingItemRepository;
+    private final ReviewRepository reviewRepository;
+    private final Duration retention;
+    private final Duration gapTimeout;
+    private final List<Runnable> commitListeners = new CopyOnWriteArrayList<>();
+
+    public CatalogChangeLog(JdbcTemplate jdbcTemplate,
+                            CatalogChangeRepository changeRepository,
+                            CatalogChangeHorizonRepository horizonRepository,
+                            ClothingItemRepository clothingItemRepository,
+                            ReviewRepository reviewRepository,
+                            @Value("${changes.retention:7d}") Duration retention,
+                            @Value("${changes.gap-timeout:30s}") Duration gapTimeout) {
+        if (gapTimeout.isZero() || gapTimeout.isNegative()
+                || retention.compareTo(gapTimeout) <= 0) {
+            throw new IllegalArgumentException(
+                    "changes.gap-timeout must be positive and shorter than changes.retention");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeRepository = changeRepository;
+        this.horizonRepository = horizonRepository;
+        this.clothingItemRepository = clothingItemRepository;
+        this.reviewRepository = reviewRepository;
+        this.retention = retention;
+        this.gapTimeout = gapTimeout;
+    }
+
+    /**
+     * Регистрирует действие, выполняемое после фиксации каждой транзакции, записавшей
+     * изменения. Действие выполняется в пишущем потоке и не должно блокироваться.
+     */
+    public void onCommit(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    /** Записывает изменение одной сущности в текущей транзакции. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeTarget target, Long entityId, Long productId,
+                       ChangeOperation operation) {
+        recordAll(target, List.of(entityId), productId == null ? null : List.of(productId),
+                operation);
+    }
+
+    /**
+     * Записывает изменения нескольких сущностей одним пакетом JDBC в текущей транзакции.
+     * {@code productIds} идут в том же порядке, что и {@code entityIds}, или {@code null}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ChangeTarget target, List<Long> entityIds, List<Long> productIds,
+                          ChangeOperation operation) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setString(1, target.name());
+                statement.setLong(2, entityIds.get(i));
+                if (productIds == null || productIds.get(i) == null) {
+                    statement.setNull(3, Types.BIGINT);
+                } else {
+                    statement.setLong(3, productIds.get(i));
+                }
+                statement.setString(4, operation.name());
+                statement.setTimestamp(5, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entityIds.size();
+            }
+        });
+        if (!commitListeners.isEmpty()) {
+            TransactionCallbacks.afterCommit(() -> commitListeners.forEach(Runnable::run));
+        }
+    }
+
+    /**
+     * Возвращает до {@code limit} изменений после {@code since}. В пределах порции
+     * остаётся только последнее изменение каждой сущности; изменения {@code UPSERT}
+     * дополняются текущим состоянием сущности, а если сущность уже удалена, пропускаются:
+     * её удаление придёт в журнале позже.
+     *
+     * @throws GoneException если изменения после {@code since} уже удалены сжатием
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeed changesSince(long since, int limit) {
+        long horizon = horizonRepository.findById(CatalogChangeHorizon.SINGLETON_ID)
+                .map(CatalogChangeHorizon::getPurgedThrough)
+                .orElse(0L);
+        if (since < horizon) {
+            throw new GoneException("Changes up to sequence " + horizon
+                    + " were compacted; reload the catalog and resume from GET "
+                    + "/api/clothing/changes/head");
+        }
+        List<CatalogChange> rows = changeRepository.findAfter(since,
+                PageRequest.ofSize(limit + 1));
+        List<CatalogChange> visible = visiblePrefix(since, rows.subList(0,
+                Math.min(limit, rows.size())), Instant.now().minus(gapTimeout));
+        long nextSince = visible.isEmpty() ? since : visible.get(visible.size() - 1).getSeq();
+        return new ChangeFeed(hydrate(latestPerEntity(visible)), nextSince,
+                rows.size() > visible.size());
+    }
+
+    /**
+     * Точка, с которой зеркало продолжает синхронизацию после полной загрузки каталога:
+     * номер последнего изменения, которое заведомо зафиксировано. Её нужно запросить
+     * до загрузки каталога; изменения, попавшие и в каталог, и в журнал, применяются
+     * повторно без вреда.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeed head() {
+        Long settled = changeRepository.findLatestSeqBefore(Instant.now().minus(gapTimeout));
+        long head = settled == null ? 0 : settled;
+        return new ChangeFeed(List.of(), head, changeRepository.findLatestSeq() > head);
+    }
+
+    /**
+     * Удаляет вытесненные записи и записи старше {@code changes.retention}, сдвигая
+     * границу, раньше которой клиенты получают 410.
+     */
+    @Scheduled(initialDelayString = "${changes.compaction-interval:1h}",
+            fixedDelayString = "${changes.compaction-interval:1h}")
+    @Transactional
+    public void compact() {
+        Instant now = Instant.now();
+        int superseded = changeRepository.deleteSuperseded(now.minus(gapTimeout));
+        Long purgeThrough = changeRepository.findLatestSeqBefore(now.minus(retention));
+        int expired = 0;
+        if (purgeThrough != null) {
+            expired = changeRepository.deleteThrough(purgeThrough);
+            horizonRepository.advance(purgeThrough);
+        }
+        logger.info("Compacted change log: {} superseded and {} expired entries removed",
+                superseded, expired);
+    }
+
+    /** Записи до первого пропуска в номерах, за которым идёт ещё не устоявшаяся запись. */
+    private static List<CatalogChange> visiblePrefix(long since, List<CatalogChange> rows,
+                                                     Instant settledBefore) {
+        List<CatalogChange> visible = new ArrayList<>(rows.size());
+        long expected = since + 1;
+        for (CatalogChange row : rows) {
+            if (row.getSeq() != expected && row.getCreatedAt().isAfter(settledBefore)) {
+                break;
+            }
+            visible.add(row);
+            expected = row.getSeq() + 1;
+        }
+        return visible;
+    }
+
+    /** Оставляет последнее изменение каждой сущности, сохраняя порядок {@code seq}. */
+    private static List<CatalogChange> latestPerEntity(List<CatalogChange> rows) {
+        Map<String, CatalogChange> latest = new LinkedHashMap<>();
+        for (CatalogChange row : rows) {
+            String key = row.getTarget() + ":" + row.getEntityId();
+            latest.remove(key);
+            latest.put(key, row);
+        }
+        return List.copyOf(latest.values());
+    }
+
+    private List<CatalogChangeView> hydrate(List<CatalogChange> changes) {
+        List<Long> itemIds = upsertIds(changes, ChangeTarget.ITEM);
+        List<Long> reviewIds = upsertIds(changes, ChangeTarget.REVIEW);
+        Map<Long, ClothingItemView> items = itemIds.isEmpty() ? Map.of()
+                : clothingItemRepository.findViewsByIdIn(itemIds).stream()
+                        .collect(Collectors.toMap(ClothingItemView::id, Function.identity()));
+        Map<Long, ReviewView> reviews = reviewIds.isEmpty() ? Map.of()
+                : reviewRepository.findViewsByIdIn(reviewIds).stream()
+                        .collect(Collectors.toMap(ReviewView::id, Function.identity()));
+        List<CatalogChangeView> views = new ArrayList<>(changes.size());
+        for (CatalogChange change : changes) {
+            ClothingItemView item = null;
+            ReviewView review = null;
+            if (change.getOperation() == ChangeOperation.UPSERT) {
+                if (change.getTarget() == ChangeTarget.ITEM) {
+                    item = items.get(change.getEntityId());
+                } else {
+                    review = reviews.get(change.getEntityId());
+                }
+                if (item == null && review == null) {
+                    continue;
+                }
+            }
+            views.add(new CatalogChangeView(change.getSeq(), change.getTarget(),
+                    change.getOperation(), change.getEntityId(), change.getProductId(),
+                    item, review));
+        }
+        return views;
+    }
+
+    private static List<Long> upsertIds(List<CatalogChange> changes, ChangeTarget target) {
+        return changes.stream()
+                .filter(change -> change.getTarget() == target
+                        && change.getOperation() == ChangeOperation.UPSERT)
+                .map(CatalogChange::getEntityId)
+                .toList();
+    }
+}
@@ -0,0 +1,59 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.CatalogSort;
+import com.clothingstore.exception.BadRequestException;
+import com.clothingstore.model.ClothingItem;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации: ключ сортировки и id последнего товара страницы.
+ */
+record CatalogCursor(String sortKey, long lastId) {
+
+    private static final char SEPARATOR = '|';
+
+    static CatalogCursor first(CatalogSort sort) {
+        return switch (sort) {
+            case ID -> new CatalogCursor("", 0);
+            case PRICE -> new CatalogCursor(String.valueOf(-Double.MAX_VALUE), 0);
+            case NAME -> new CatalogCursor("", 0);
+        };
+    }
+
+    static CatalogCursor after(ClothingItem item, CatalogSort sort) {
+        return switch (sort) {
+            case ID -> new CatalogCursor("", item.getId());
+            case PRICE -> new CatalogCursor(String.valueOf(item.getPrice()), item.getId());
+            case NAME -> new CatalogCursor(item.getName(), item.getId());
+        };
+    }
+
+    static CatalogCursor decode(String cursor, CatalogSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return first(sort);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            String sortKey = raw.substring(0, separator);
+            long lastId = Long.parseLong(raw.substring(separator + 1));
+            if (sort == CatalogSort.PRICE) {
+                Double.parseDouble(sortKey);
+            }
+            return new CatalogCursor(sortKey, lastId);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    String encode() {
+        String raw = sortKey + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    double price() {
+        return Double.parseDouble(sortKey);
+    }
+}
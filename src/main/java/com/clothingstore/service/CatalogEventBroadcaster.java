@@ -0,0 +1,414 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.CatalogChangeView;
+import com.clothingstore.dto.ChangeFeed;
+import com.clothingstore.exception.GoneException;
+import com.clothingstore.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Рассылка изменений каталога подписчикам Server-Sent Events. Источником событий служит
+ * {@link CatalogChangeLog}: id события — номер изменения в журнале, поэтому клиент,
+ * переподключившийся с {@code Last-Event-ID}, получает пропущенное из журнала.
+ *
+ * <p>Пишущие потоки только будят поток рассылки после фиксации. Он читает журнал и
+ * раскладывает готовые события по ограниченным очередям подписчиков, а очереди
+ * вычитываются небольшим общим пулом отправки. Соединения держатся асинхронным
+ * режимом сервлета, так что простаивающий подписчик не занимает поток.
+ *
+ * <p>Подписчик, очередь которого переполнилась, отключается: он переподключится с
+ * {@code Last-Event-ID} и дочитает журнал в своём темпе, не тормозя остальных. Так же
+ * отключается подписчик, запись которому заблокирована дольше {@code events.send-timeout}:
+ * поток отправки остаётся ждать таймаута записи контейнера, а пул на это время получает
+ * замену, чтобы не перестать обслуживать остальных.
+ */
+@Component
+public class CatalogEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogEventBroadcaster.class);
+    private static final int BATCH_SIZE = 500;
+    private static final long UNSET = -1;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+    private static final long IDLE = 0;
+    private static final long STALLED = Long.MIN_VALUE;
+    /** Сколько заблокированных потоков отправки заменяется, в долях {@code sender-threads}. */
+    private static final int MAX_STALLED_FACTOR = 4;
+
+    private final CatalogChangeLog changeLog;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int senderThreads;
+    private final Function<Long, SseEmitter> emitterFactory;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher;
+    private final ThreadPoolExecutor senders;
+    /** Потоки отправки, заблокированные записью отключённым подписчикам. */
+    private int stalledSenders;
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+    /** Номер, до которого события разосланы; меняется только потоком рассылки. */
+    private long liveCursor = UNSET;
+
+    public CatalogEventBroadcaster(
+            CatalogChangeLog changeLog,
+            ObjectMapper objectMapper,
+            @Value("${events.buffer-size:256}") int bufferSize,
+            @Value("${events.max-subscribers:10000}") int maxSubscribers,
+            @Value("${events.sender-threads:4}") int senderThreads,
+            @Value("${events.poll-interval:1s}") Duration pollInterval,
+            @Value("${events.heartbeat-interval:15s}") Duration heartbeatInterval,
+            @Value("${events.timeout:30m}") Duration timeout,
+            @Value("${events.send-timeout:10s}") Duration sendTimeout) {
+        this(changeLog, objectMapper, bufferSize, maxSubscribers, senderThreads, pollInterval,
+                heartbeatInterval, timeout, sendTimeout, SseEmitter::new);
+    }
+
+    CatalogEventBroadcaster(CatalogChangeLog changeLog, ObjectMapper objectMapper,
+                            int bufferSize, int maxSubscribers, int senderThreads,
+                            Duration pollInterval, Duration heartbeatInterval,
+                            Duration timeout, Duration sendTimeout,
+                            Function<Long, SseEmitter> emitterFactory) {
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senderThreads = senderThreads;
+        this.emitterFactory = emitterFactory;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(
+                WorkerThreads.platformFactory("catalog-events"));
+        // SseEmitter пишет в сокет под своим монитором: на виртуальном потоке медленный
+        // клиент закрепил бы поток-носитель, поэтому отправка всегда на обычных потоках
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                WorkerThreads.platformFactory("catalog-events-sender"));
+        long pollMillis = Math.max(1, pollInterval.toMillis());
+        dispatcher.scheduleWithFixedDelay(this::dispatchSafely, pollMillis, pollMillis,
+                TimeUnit.MILLISECONDS);
+        long heartbeatMillis = Math.max(1, heartbeatInterval.toMillis());
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis,
+                TimeUnit.MILLISECONDS);
+        long watchdogMillis = Math.max(1, sendTimeout.toMillis() / 2);
+        dispatcher.scheduleWithFixedDelay(this::dropStalled, watchdogMillis, watchdogMillis,
+                TimeUnit.MILLISECONDS);
+        changeLog.onCommit(this::signal);
+    }
+
+    /**
+     * Регистрирует подписчика. Без {@code lastEventId} подписчик получает изменения,
+     * начиная с последних зафиксированных; с ним — всё после этого номера.
+     *
+     * @throws TooManyRequestsException если достигнут лимит {@code events.max-subscribers}
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Too many event stream subscribers");
+        }
+        SseEmitter emitter = emitterFactory.apply(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize),
+                parseCursor(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        signal();
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /** Будит поток рассылки; не блокирует вызывающий поток. */
+    void signal() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatchSafely);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        subscribers.clear();
+        senders.shutdown();
+        senders.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatchSafely() {
+        dispatchRequested.set(false);
+        try {
+            dispatch();
+        } catch (RuntimeException e) {
+            logger.warn("Catalog event dispatch failed", e);
+        }
+    }
+
+    /**
+     * Рассылает новые изменения подписчикам, идущим вровень с журналом, и догружает из
+     * журнала отставших: каждому не больше, чем свободно в его очереди.
+     */
+    void dispatch() {
+        if (subscribers.isEmpty()) {
+            liveCursor = UNSET;
+            return;
+        }
+        if (liveCursor == UNSET) {
+            liveCursor = changeLog.head().nextSince();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cursor == UNSET) {
+                subscriber.cursor = liveCursor;
+            }
+        }
+        while (true) {
+            long from = liveCursor;
+            ChangeFeed feed = changeLog.changesSince(from, BATCH_SIZE);
+            List<PreparedEvent> events = prepare(feed.changes());
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.cursor >= from) {
+                    deliverLive(subscriber, events, feed.nextSince());
+                }
+            }
+            liveCursor = feed.nextSince();
+            if (!feed.hasMore() || liveCursor == from) {
+                break;
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.cursor != UNSET && subscriber.cursor < liveCursor) {
+                catchUp(subscriber);
+            }
+        }
+    }
+
+    private void deliverLive(Subscriber subscriber, List<PreparedEvent> events, long nextSince) {
+        List<PreparedEvent> pending = events.stream()
+                .filter(event -> event.seq > subscriber.cursor)
+                .toList();
+        if (subscriber.queue.remainingCapacity() < pending.size()) {
+            logger.info("Dropping slow event stream subscriber with {} queued events",
+                    subscriber.queue.size());
+            drop(subscriber);
+            return;
+        }
+        subscriber.queue.addAll(pending.stream().map(PreparedEvent::data).toList());
+        subscriber.cursor = Math.max(subscriber.cursor, nextSince);
+        schedule(subscriber);
+    }
+
+    /** Догружает отставшего подписчика из журнала, не заходя дальше {@link #liveCursor}. */
+    private void catchUp(Subscriber subscriber) {
+        int room = Math.min(BATCH_SIZE, subscriber.queue.remainingCapacity());
+        if (room == 0) {
+            return;
+        }
+        ChangeFeed feed;
+        try {
+            feed = changeLog.changesSince(subscriber.cursor, room);
+        } catch (GoneException e) {
+            subscribers.remove(subscriber);
+            subscriber.queue.offer(SseEmitter.event().name("reset").data(e.getMessage()).build());
+            subscriber.closeAfterDrain = true;
+            schedule(subscriber);
+            return;
+        }
+        for (PreparedEvent event : prepare(feed.changes())) {
+            if (event.seq <= liveCursor) {
+                subscriber.queue.add(event.data);
+            }
+        }
+        subscriber.cursor = Math.min(feed.nextSince(), liveCursor);
+        subscriber.lagging = subscriber.cursor < liveCursor;
+        schedule(subscriber);
+    }
+
+    /**
+     * Комментарий-keepalive подписчикам без ожидающих событий; у остальных соединение и так
+     * не простаивает, а догружаемому подписчику очередь заполняется целиком.
+     */
+    void heartbeat() {
+        Set<DataWithMediaType> comment = SseEmitter.event().comment("keepalive").build();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.isEmpty() && subscriber.queue.offer(comment)) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Отключает подписчиков, запись которым идёт дольше {@code events.send-timeout}, и
+     * добавляет в пул поток взамен каждого заблокированного.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted.get();
+            if (started != IDLE && started != STALLED && now - started > sendTimeoutNanos
+                    && subscriber.sendStarted.compareAndSet(started, STALLED)) {
+                logger.info("Dropping event stream subscriber: send blocked for {} ms",
+                        TimeUnit.NANOSECONDS.toMillis(now - started));
+                resizeSenders(1);
+                drop(subscriber);
+            }
+        }
+    }
+
+    /** Меняет размер пула отправки на {@code delta} заблокированных потоков. */
+    private synchronized void resizeSenders(int delta) {
+        stalledSenders += delta;
+        int size = senderThreads + Math.min(stalledSenders, senderThreads * MAX_STALLED_FACTOR);
+        if (size > senders.getMaximumPoolSize()) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else if (size < senders.getMaximumPoolSize()) {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Отключает подписчика. Эмиттер закрывает поток отправки: закрывать ответ параллельно
+     * с записью в него небезопасно, а поток рассылки не должен ждать зависшую запись.
+     */
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.queue.clear();
+        subscriber.closeAfterDrain = true;
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    /** Вычитывает очередь подписчика в пуле отправки; за раз — не больше одного буфера. */
+    private void send(Subscriber subscriber) {
+        try {
+            for (int sent = 0; sent < bufferSize; sent++) {
+                Set<DataWithMediaType> event = subscriber.queue.poll();
+                if (event == null) {
+                    break;
+                }
+                // младший бит отличает время от IDLE и STALLED
+                subscriber.sendStarted.set(System.nanoTime() | 1);
+                try {
+                    subscriber.emitter.send(event);
+                } finally {
+                    if (subscriber.sendStarted.getAndSet(IDLE) == STALLED) {
+                        resizeSenders(-1);
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.queue.clear();
+            subscriber.close(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        } else if (subscriber.closeAfterDrain) {
+            subscriber.close(null);
+        } else if (subscriber.lagging) {
+            signal();
+        }
+    }
+
+    private List<PreparedEvent> prepare(List<CatalogChangeView> changes) {
+        List<PreparedEvent> events = new ArrayList<>(changes.size());
+        for (CatalogChangeView change : changes) {
+            String name = (change.target() + "-" + change.operation()).toLowerCase(Locale.ROOT);
+            try {
+                events.add(new PreparedEvent(change.seq(), SseEmitter.event()
+                        .id(Long.toString(change.seq()))
+                        .name(name)
+                        .data(objectMapper.writeValueAsString(change))
+                        .build()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize change " + change.seq(), e);
+            }
+        }
+        return events;
+    }
+
+    private static long parseCursor(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return UNSET;
+        }
+        try {
+            return Math.max(0, Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed Last-Event-ID: {}", lastEventId);
+            return UNSET;
+        }
+    }
+
+    private record PreparedEvent(long seq, Set<DataWithMediaType> data) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        /** Время начала текущей записи, {@link #IDLE} или {@link #STALLED}. */
+        private final AtomicLong sendStarted = new AtomicLong(IDLE);
+        /** Номер последнего поставленного в очередь изменения; только поток рассылки. */
+        private long cursor;
+        private volatile boolean closeAfterDrain;
+        /** Подписчик догружается из журнала: после опустошения очереди нужна ещё порция. */
+        private volatile boolean lagging;
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue,
+                           long cursor) {
+            this.emitter = emitter;
+            this.queue = queue;
+            this.cursor = cursor;
+        }
+
+        private void close(Throwable error) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (error == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.ClothingItemFields;
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.repository.ClothingItemRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Потоковая выгрузка всего каталога в формате NDJSON (одна JSON-запись на строку).
+ *
+ * <p>Строки читаются курсором БД порциями по {@link ClothingItemRepository#STREAM_FETCH_SIZE};
+ * после каждой порции ответ сбрасывается клиенту, а контекст персистентности очищается,
+ * поэтому расход памяти не зависит от размера каталога.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExportService.class);
+    private static final Set<String> EXPORT_FIELDS =
+            new LinkedHashSet<>(ClothingItemFields.ALL);
+
+    private final ClothingItemRepository clothingItemRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CatalogExportService(ClothingItemRepository clothingItemRepository,
+                                EntityManager entityManager,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.clothingItemRepository = clothingItemRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Пишет все товары в {@code out} и возвращает их количество. Поток не закрывается.
+     */
+    public long exportNdjson(OutputStream out) {
+        Long exported = readOnlyTransaction.execute(status -> {
+            try (Stream<ClothingItem> items = clothingItemRepository.streamAllBy();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                long count = 0;
+                Iterator<ClothingItem> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(ClothingItemFields.project(iterator.next(),
+                            EXPORT_FIELDS));
+                    generator.writeRaw('\n');
+                    if (++count % ClothingItemRepository.STREAM_FETCH_SIZE == 0) {
+                        generator.flush();
+                        entityManager.clear();
+                    }
+                }
+                generator.flush();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} items as NDJSON", exported);
+        return exported == null ? 0 : exported;
+    }
+}
@@ -0,0 +1,51 @@
+package com.clothingstore.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+
+/**
+ * Монотонно растущая версия каталога. Увеличивается после фиксации любого изменения
+ * товаров и до сброса кэша, поэтому снимок каталога, прочитанный после сброса, всегда
+ * помечен версией не меньше той, что включает изменение.
+ *
+ * <p>Версия растёт при изменении любого товара, поэтому ETag отдельного товара на её основе
+ * меняется чаще, чем сам товар; зато совпадение проверяется без чтения товара.
+ *
+ * <p>Счётчик живёт в памяти, поэтому ETag включает эпоху — момент запуска приложения:
+ * после перезапуска старые ETag клиентов гарантированно не совпадут с новыми.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long advance() {
+        return version.incrementAndGet();
+    }
+
+    /** Сильный ETag снимка каталога с версией {@code snapshotVersion}. */
+    public String etag(long snapshotVersion) {
+        return "\"catalog-" + epoch + "-" + snapshotVersion + "\"";
+    }
+
+    /**
+     * Сильный ETag gzip-представления того же снимка. Сжатое и несжатое тела различаются
+     * побайтно, поэтому не могут делить один сильный ETag.
+     */
+    public String gzipEtag(long snapshotVersion) {
+        return "\"catalog-" + epoch + "-" + snapshotVersion + "-gzip\"";
+    }
+
+    /**
+     * Сильный ETag товара {@code id} при версии каталога {@code version}. Версия каталога
+     * известна без обращения к БД, поэтому условный запрос проверяется до загрузки товара.
+     */
+    public String itemEtag(long id, long version) {
+        return "\"item-" + id + "-" + epoch + "-" + version + "\"";
+    }
+}
@@ -1,20 +1,39 @@
 package com.clothingstore.service;
 
 import com.clothingstore.cache.CacheService;
+import com.clothingstore.cache.CacheTags;
+import com.clothingstore.dto.BulkRowResult;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.CatalogPage;
+import com.clothingstore.dto.CatalogSnapshot;
+import com.clothingstore.dto.CatalogSort;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
 import com.clothingstore.model.ClothingItem;
 import com.clothingstore.repository.ClothingItemRepository;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
-import jakarta.validation.Validator;
-import jakarta.validation.ValidatorFactory;
+import com.clothingstore.repository.ItemRatingStatsRepository;
+import com.clothingstore.repository.ReviewRepository;
+import com.clothingstore.search.NameTrigramIndex;
+import com.clothingstore.search.RatingBitmapIndex;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ClothingItemService {
@@ -22,125 +41,315 @@ public class ClothingItemService {
     private static final Logger logger = LoggerFactory.getLogger(ClothingItemService.class);
 
     private static final String CACHE_ALL_ITEMS = "all_items";
-    private static final String FETCHING_FROM_CACHE = "Fetching '{}' from cache...";
     private static final String FETCHING_FROM_DB = "Fetching '{}' from database"
             + " and storing in cache...";
+    private static final int HYDRATE_BATCH_SIZE = 1000;
+    /** Сколько созданных товаров ещё сверяется с каждым поиском по имени при инвалидации. */
+    private static final int NAME_SEARCH_MATCH_LIMIT = 1000;
 
     private final ClothingItemRepository clothingItemRepository;
+    private final ItemRatingStatsRepository ratingStatsRepository;
+    private final ReviewRepository reviewRepository;
     private final CacheService cacheService;
+    private final NameTrigramIndex nameIndex;
+    private final RatingBitmapIndex ratingIndex;
+    private final BulkItemWriter bulkItemWriter;
+    private final BulkItemValidator bulkItemValidator;
+    private final CatalogVersion catalogVersion;
+    private final CatalogChangeLog changeLog;
 
     public ClothingItemService(ClothingItemRepository clothingItemRepository,
-                               CacheService cacheService) {
+                               ItemRatingStatsRepository ratingStatsRepository,
+                               ReviewRepository reviewRepository,
+                               CacheService cacheService,
+                               NameTrigramIndex nameIndex,
+                               RatingBitmapIndex ratingIndex,
+                               BulkItemWriter bulkItemWriter,
+                               BulkItemValidator bulkItemValidator,
+                               CatalogVersion catalogVersion,
+                               CatalogChangeLog changeLog) {
         this.clothingItemRepository = clothingItemRepository;
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.reviewRepository = reviewRepository;
         this.cacheService = cacheService;
+        this.nameIndex = nameIndex;
+        this.ratingIndex = ratingIndex;
+        this.bulkItemWriter = bulkItemWriter;
+        this.bulkItemValidator = bulkItemValidator;
+        this.catalogVersion = catalogVersion;
+        this.changeLog = changeLog;
     }
-    
 
 
     public List<ClothingItem> saveBulkItems(List<ClothingItem> clothingItems) {
-        ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-        Validator validator = factory.getValidator();
-
-        List<ClothingItem> validItems = clothingItems.stream()
-                .filter(Objects::nonNull)
-                .filter(item -> {
-                    Set<ConstraintViolation<ClothingItem>> violations = validator.validate(item);
-                    if (!violations.isEmpty()) {
-                        logger.warn("Item validation failed: {}", violations);
-                        return false;
-                    }
-                    return true;
-                })
+        BulkSaveReport report = ingestBulkItems(clothingItems);
+        return report.rows().stream()
+                .filter(BulkRowResult::isSaved)
+                .map(row -> clothingItems.get(row.index()))
                 .toList();
+    }
+
+    /**
+     * Проверяет и сохраняет товары через {@link BulkItemWriter}. Каждая порция из
+     * {@code bulk.insert.commit-interval} строк фиксируется отдельно: ошибка БД отклоняет
+     * только строки своей порции.
+     */
+    public BulkSaveReport ingestBulkItems(List<ClothingItem> clothingItems) {
+        BulkRowResult[] results = new BulkRowResult[clothingItems.size()];
+        List<List<RowViolation>> violations = bulkItemValidator.validate(clothingItems);
+        List<Integer> validIndexes = new ArrayList<>(clothingItems.size());
+        for (int index = 0; index < clothingItems.size(); index++) {
+            if (violations.get(index).isEmpty()) {
+                validIndexes.add(index);
+            } else {
+                results[index] = BulkRowResult.rejected(index, violations.get(index));
+            }
+        }
 
-        List<ClothingItem> savedItems = clothingItemRepository.saveAll(validItems);
-        cacheService.clear();
+        List<ClothingItem> savedItems = new ArrayList<>(validIndexes.size());
+        int commitInterval = bulkItemWriter.getCommitInterval();
+        for (int from = 0; from < validIndexes.size(); from += commitInterval) {
+            List<Integer> indexes = validIndexes.subList(from,
+                    Math.min(from + commitInterval, validIndexes.size()));
+            List<ClothingItem> chunk = indexes.stream().map(clothingItems::get).toList();
+            try {
+                bulkItemWriter.insert(chunk);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[indexes.get(i)] = BulkRowResult.saved(indexes.get(i),
+                            chunk.get(i).getId());
+                }
+                savedItems.addAll(chunk);
+            } catch (DataAccessException | TransactionException e) {
+                logger.warn("Bulk insert of {} items rolled back", chunk.size(), e);
+                List<RowViolation> error = List.of(RowViolation.ofRow(
+                        "Database error: " + e.getMostSpecificCause().getMessage()));
+                indexes.forEach(index -> results[index] = BulkRowResult.rejected(index, error));
+            }
+        }
 
+        registerCreatedItems(savedItems);
+
+        BulkSaveReport report = BulkSaveReport.of(Arrays.asList(results));
         logger.info("Saved {}/{} items ({} failed validation)",
-                savedItems.size(),
-                clothingItems.size(),
-                clothingItems.size() - savedItems.size());
+                report.saved(),
+                report.received(),
+                clothingItems.size() - validIndexes.size());
+        return report;
+    }
 
-        return savedItems;
+    public List<ClothingItemView> getAllItems() {
+        return getCatalogSnapshot().items();
     }
 
-    public List<ClothingItem> getAllItems() {
-        if (cacheService.contains(CACHE_ALL_ITEMS)) {
-            logger.info(FETCHING_FROM_CACHE, CACHE_ALL_ITEMS);
-            return (List<ClothingItem>) cacheService.get(CACHE_ALL_ITEMS);
-        }
+    /**
+     * Полный список товаров с версией каталога. Версия читается до запроса к БД, поэтому
+     * снимок никогда не помечен версией новее своих данных; даже устаревший снимок,
+     * отдаваемый во время перестройки, остаётся согласован со своей версией.
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        return cacheService.computeIfAbsentRefreshing(CACHE_ALL_ITEMS, () -> {
+            logger.info(FETCHING_FROM_DB, CACHE_ALL_ITEMS);
+            long version = catalogVersion.current();
+            return new CatalogSnapshot(version, clothingItemRepository.findAllViews());
+        }, snapshot -> tagsFor(snapshot.items(), CacheTags.ALL_ITEMS));
+    }
 
-        List<ClothingItem> items = clothingItemRepository.findAll();
-        cacheService.put(CACHE_ALL_ITEMS, items);
-        logger.info(FETCHING_FROM_DB, CACHE_ALL_ITEMS);
-        return items;
+    public CatalogPage getItemsPage(CatalogSort sort, String cursor, int size) {
+        CatalogCursor after = CatalogCursor.decode(cursor, sort);
+        String cacheKey = "items_page_" + sort + "_" + after.encode() + "_" + size;
+        return cacheService.computeIfAbsent(cacheKey, () -> {
+            logger.info(FETCHING_FROM_DB, cacheKey);
+            PageRequest limit = PageRequest.ofSize(size + 1);
+            List<ClothingItem> rows = switch (sort) {
+                case ID -> clothingItemRepository.findPageOrderById(after.lastId(), limit);
+                case PRICE -> clothingItemRepository
+                        .findPageOrderByPrice(after.price(), after.lastId(), limit);
+                case NAME -> clothingItemRepository
+                        .findPageOrderByName(after.sortKey(), after.lastId(), limit);
+            };
+            if (rows.size() <= size) {
+                return new CatalogPage(rows, null);
+            }
+            List<ClothingItem> items = List.copyOf(rows.subList(0, size));
+            return new CatalogPage(items,
+                    CatalogCursor.after(items.get(size - 1), sort).encode());
+        }, page -> Set.of(CacheTags.CATALOG_PAGES));
     }
 
-    public Optional<ClothingItem> getItemById(Long id) {
-        String cacheKey = "item_" + id;
-        if (cacheService.contains(cacheKey)) {
-            logger.info(FETCHING_FROM_CACHE, cacheKey);
-            return Optional.of((ClothingItem) cacheService.get(cacheKey));
-        }
+    public Optional<ClothingItemView> getItemById(Long id) {
+        String cacheKey = itemCacheKey(id);
+        return Optional.ofNullable(cacheService.computeIfAbsent(cacheKey, () -> {
+            logger.info(FETCHING_FROM_DB, cacheKey);
+            return clothingItemRepository.findViewById(id).orElse(null);
+        }, item -> Set.of(CacheTags.item(id))));
+    }
 
-        Optional<ClothingItem> item = clothingItemRepository.findById(id);
-        item.ifPresent(value -> {
-            cacheService.put(cacheKey, value);
+    public List<ClothingItemView> getItemsByName(String name) {
+        String cacheKey = "items_by_name_" + name.toLowerCase();
+        return cacheService.computeIfAbsent(cacheKey, () -> {
+            logger.info(FETCHING_FROM_DB, cacheKey);
+            if (!nameIndex.isReady()) {
+                return clothingItemRepository.findViewsByNameContaining(escapeLike(name));
+            }
+            return findAllByIds(nameIndex.search(name));
+        }, items -> tagsFor(items, CacheTags.nameSearch(name)));
+    }
+
+    public List<ClothingItemView> getItemsByNameAndRating(String name, int rating) {
+        String cacheKey = "items_by_name_and_rating_" + name.toLowerCase() + "_" + rating;
+        return cacheService.computeIfAbsent(cacheKey, () -> {
+            logger.info(FETCHING_FROM_DB, cacheKey);
+            if (!nameIndex.isReady() || !ratingIndex.isReady()) {
+                return clothingItemRepository
+                        .findViewsByNameAndMaxReviewRatingAtLeast(escapeLike(name), rating);
+            }
+            return findAllByIds(nameIndex.search(name, ratingIndex.atLeast(rating)));
+        }, items -> tagsFor(items, CacheTags.nameSearch(name), CacheTags.ratingSearch(rating)));
+    }
+
+    public List<ClothingItemView> getItemsByRating(int rating) {
+        String cacheKey = "items_by_rating_" + rating;
+        return cacheService.computeIfAbsent(cacheKey, () -> {
             logger.info(FETCHING_FROM_DB, cacheKey);
+            if (!ratingIndex.isReady()) {
+                return clothingItemRepository.findViewsByMaxReviewRatingAtLeast(rating);
+            }
+            return findAllByIds(ratingIndex.atLeast(rating));
+        }, items -> tagsFor(items, CacheTags.ratingSearch(rating)));
+    }
+
+    /**
+     * Создаёт товар или обновляет существующий. При обновлении поля копируются в
+     * загруженную сущность, чтобы сохранилась её версия: конкурентное изменение того же
+     * товара завершится ошибкой оптимистичной блокировки, а не затрёт чужие данные.
+     * Индексы и кэш обновляются после фиксации вместе с записью в журнале изменений.
+     */
+    @Transactional
+    public ClothingItem saveItem(ClothingItem item) {
+        boolean created = item.getId() == null;
+        ClothingItem savedItem = clothingItemRepository.save(created ? item : copyToStored(item));
+        changeLog.record(ChangeTarget.ITEM, savedItem.getId(), savedItem.getId(),
+                ChangeOperation.UPSERT);
+        TransactionCallbacks.afterCommit(() -> {
+            nameIndex.put(savedItem.getId(), savedItem.getName());
+            if (created) {
+                evictCreatedItems(List.of(savedItem));
+            } else {
+                cacheService.remove(itemCacheKey(savedItem.getId()));
+                catalogVersion.advance();
+                cacheService.invalidateTags(List.of(
+                        CacheTags.item(savedItem.getId()), CacheTags.CATALOG_PAGES));
+                evictNameSearches(List.of(savedItem));
+            }
         });
-        return item;
+        return savedItem;
     }
 
-    public List<ClothingItem> getItemsByName(String name) {
-        String cacheKey = "items_by_name_" + name.toLowerCase();
-        if (cacheService.contains(cacheKey)) {
-            logger.info(FETCHING_FROM_CACHE, cacheKey);
-            return (List<ClothingItem>) cacheService.get(cacheKey);
+    @Transactional
+    public void deleteItem(Long id) {
+        clothingItemRepository.deleteById(id);
+        ratingStatsRepository.deleteByProductId(id);
+        changeLog.record(ChangeTarget.ITEM, id, id, ChangeOperation.DELETE);
+        TransactionCallbacks.afterCommit(() -> {
+            nameIndex.remove(id);
+            ratingIndex.remove(id);
+            cacheService.remove(itemCacheKey(id));
+            catalogVersion.advance();
+            cacheService.invalidateTags(List.of(CacheTags.item(id), CacheTags.CATALOG_PAGES));
+        });
+    }
+
+    private ClothingItem copyToStored(ClothingItem item) {
+        ClothingItem stored = clothingItemRepository.findById(item.getId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Item not found with id: " + item.getId()));
+        stored.setName(item.getName());
+        stored.setSize(item.getSize());
+        stored.setPrice(item.getPrice());
+        return stored;
+    }
+
+    /**
+     * Добавляет к товарам их отзывы. Отзывы загружаются запросами с {@code IN} по
+     * {@value #HYDRATE_BATCH_SIZE} товаров, а не отдельным запросом на каждый товар.
+     */
+    public List<ClothingItemView> withReviews(List<ClothingItemView> items) {
+        Map<Long, List<ReviewView>> reviews = new HashMap<>();
+        for (int from = 0; from < items.size(); from += HYDRATE_BATCH_SIZE) {
+            List<Long> ids = items.subList(from, Math.min(from + HYDRATE_BATCH_SIZE, items.size()))
+                    .stream()
+                    .map(ClothingItemView::id)
+                    .toList();
+            for (ReviewView review : reviewRepository.findViewsByProductIdIn(ids)) {
+                reviews.computeIfAbsent(review.productId(), id -> new ArrayList<>()).add(review);
+            }
         }
+        return items.stream()
+                .map(item -> item.withReviews(reviews.getOrDefault(item.id(), List.of())))
+                .toList();
+    }
 
-        List<ClothingItem> items = clothingItemRepository.findByNameContainingIgnoreCase(name);
-        cacheService.put(cacheKey, items);
-        logger.info(FETCHING_FROM_DB, cacheKey);
+    /**
+     * Загружает товары по найденным в индексе id порциями, чтобы не упираться в лимит
+     * параметров запроса, и возвращает их в порядке возрастания id.
+     */
+    private List<ClothingItemView> findAllByIds(BitSet ids) {
+        List<ClothingItemView> items = new ArrayList<>(ids.cardinality());
+        List<Long> batch = new ArrayList<>(HYDRATE_BATCH_SIZE);
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            batch.add((long) id);
+            if (batch.size() == HYDRATE_BATCH_SIZE) {
+                items.addAll(clothingItemRepository.findViewsByIdIn(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            items.addAll(clothingItemRepository.findViewsByIdIn(batch));
+        }
         return items;
     }
 
-    public List<ClothingItem> getItemsByNameAndRating(String name, int rating) {
-        String cacheKey = "items_by_name_and_rating_" + name.toLowerCase() + "_" + rating;
+    /**
+     * Добавляет товары, вставленные в обход {@link #saveItem}, в поисковые индексы и
+     * сбрасывает зависящие от них записи кэша. Вызывается после фиксации вставки.
+     */
+    public void registerCreatedItems(List<ClothingItem> items) {
+        items.forEach(item -> nameIndex.put(item.getId(), item.getName()));
+        evictCreatedItems(items);
+    }
 
-        if (cacheService.contains(cacheKey)) {
-            logger.info(FETCHING_FROM_CACHE, cacheKey);
-            return (List<ClothingItem>) cacheService.get(cacheKey);
+    private void evictCreatedItems(List<ClothingItem> items) {
+        if (items.isEmpty()) {
+            return;
         }
-
-        List<ClothingItem> items = clothingItemRepository
-                .findAllByNameAndReviewRatingGreaterThanEqualNative(name, rating);
-        cacheService.put(cacheKey, items);
-        logger.info(FETCHING_FROM_DB, cacheKey);
-        return items;
+        catalogVersion.advance();
+        cacheService.invalidateTags(List.of(CacheTags.ALL_ITEMS, CacheTags.CATALOG_PAGES));
+        evictNameSearches(items);
     }
 
-    public List<ClothingItem> getItemsByRating(int rating) {
-        String cacheKey = "items_by_rating_" + rating;
-        if (cacheService.contains(cacheKey)) {
-            logger.info(FETCHING_FROM_CACHE, cacheKey);
-            return (List<ClothingItem>) cacheService.get(cacheKey);
+    private void evictNameSearches(List<ClothingItem> items) {
+        if (items.size() > NAME_SEARCH_MATCH_LIMIT) {
+            cacheService.invalidateTagsMatching(CacheTags::isNameSearch);
+            return;
         }
+        cacheService.invalidateTagsMatching(tag -> items.stream()
+                .anyMatch(item -> CacheTags.isNameSearchMatching(tag, item.getName())));
+    }
 
-        List<ClothingItem> items = clothingItemRepository
-                .findAllByReviewRatingGreaterThanEqual(rating);
-        cacheService.put(cacheKey, items);
-        logger.info(FETCHING_FROM_DB, cacheKey);
-        return items;
+    /**
+     * Ключ кэша товара. Запись удаляется и до увеличения версии каталога: ETag товара
+     * строится из текущей версии, и товар, закэшированный до изменения, не должен
+     * отдаваться с новой версией.
+     */
+    private static String itemCacheKey(Long id) {
+        return "item_" + id;
     }
 
-    public ClothingItem saveItem(ClothingItem item) {
-        ClothingItem savedItem = clothingItemRepository.save(item);
-        cacheService.clear();
-        return savedItem;
+    private static Set<String> tagsFor(List<ClothingItemView> items, String... queryTags) {
+        return CacheTags.forItems(items.stream().map(ClothingItemView::id).toList(), queryTags);
     }
 
-    public void deleteItem(Long id) {
-        clothingItemRepository.deleteById(id);
-        cacheService.clear();
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
@@ -0,0 +1,293 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.exception.TooManyRequestsException;
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.model.ImportJob;
+import com.clothingstore.model.ImportJobStatus;
+import com.clothingstore.repository.ImportJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Асинхронный импорт товаров из NDJSON. Тело запроса сохраняется во временный файл,
+ * после чего задание выполняется на выделенном пуле: файл читается построчно, строки
+ * проверяются и вставляются порциями по {@code bulk.insert.commit-interval}. Прогресс
+ * задания фиксируется в той же транзакции, что и вставка порции, поэтому после
+ * перезапуска приложения незавершённые задания продолжаются с первой незафиксированной
+ * строки без повторной вставки.
+ *
+ * <p>Остановка приложения прерывает выполняемые задания между порциями: задание остаётся
+ * в статусе {@code RUNNING} и после перезапуска продолжается с последней зафиксированной
+ * порции, а не помечается {@code FAILED}.
+ *
+ * <p>Очередь пула ограничена {@code import.queue-capacity}; когда она заполнена, новые
+ * задания отклоняются с {@link TooManyRequestsException}.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    private static final List<ImportJobStatus> UNFINISHED =
+            List.of(ImportJobStatus.QUEUED, ImportJobStatus.RUNNING);
+    private static final String QUEUE_FULL = "Import queue is full, retry later";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ImportJobRepository importJobRepository;
+    private final ClothingItemService clothingItemService;
+    private final BulkItemValidator bulkItemValidator;
+    private final BulkItemWriter bulkItemWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final Path spoolDir;
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            ClothingItemService clothingItemService,
+                            BulkItemValidator bulkItemValidator,
+                            BulkItemWriter bulkItemWriter,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            WorkerThreads workerThreads,
+                            @Value("${import.spool-dir:imports}") String spoolDir,
+                            @Value("${import.threads:1}") int threads,
+                            @Value("${import.queue-capacity:4}") int queueCapacity) {
+        this.importJobRepository = importJobRepository;
+        this.clothingItemService = clothingItemService;
+        this.bulkItemValidator = bulkItemValidator;
+        this.bulkItemWriter = bulkItemWriter;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.spoolDir = Path.of(spoolDir);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), workerThreads.factory("import"));
+    }
+
+    /** Сохраняет тело запроса во временный файл и ставит задание импорта в очередь. */
+    public ImportJob submit(InputStream body) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new TooManyRequestsException(QUEUE_FULL);
+        }
+        Path spool = spool(body);
+        ImportJob job = importJobRepository.save(new ImportJob(spool.toString()));
+        if (!schedule(job.getId())) {
+            importJobRepository.delete(job);
+            deleteQuietly(spool);
+            throw new TooManyRequestsException(QUEUE_FULL);
+        }
+        logger.info("Queued import job {}", job.getId());
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(Long id) {
+        return importJobRepository.findById(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        for (ImportJob job : importJobRepository.findAllByStatusInOrderById(UNFINISHED)) {
+            if (!schedule(job.getId())) {
+                logger.info("Import job {} stays queued until a worker is free", job.getId());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            logger.warn("Import jobs did not stop in {}", SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    /**
+     * Передаёт задание пулу, если оно ещё не передано: {@link #submit} и
+     * {@link #resumeUnfinished} могут одновременно увидеть одно и то же новое задание.
+     * Id снимается с учёта только после завершения {@link #run}. Возвращает {@code false},
+     * если очередь пула заполнена.
+     */
+    private boolean schedule(Long jobId) {
+        if (!scheduled.add(jobId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> run(jobId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(jobId);
+            return false;
+        }
+    }
+
+    void run(Long jobId) {
+        try {
+            importJobRepository.findById(jobId)
+                    .filter(job -> UNFINISHED.contains(job.getStatus()))
+                    .ifPresent(this::process);
+        } finally {
+            scheduled.remove(jobId);
+            if (!executor.isShutdown()) {
+                resumeUnfinished();
+            }
+        }
+    }
+
+    private void process(ImportJob job) {
+        job.markRunning();
+        job = importJobRepository.save(job);
+        Path spool = Path.of(job.getSpoolPath());
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            int chunkSize = bulkItemWriter.getCommitInterval();
+            List<ClothingItem> items = new ArrayList<>(chunkSize);
+            long line = 0;
+            int read = 0;
+            int unparsed = 0;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line <= job.getLastCommittedLine() || text.isBlank()) {
+                    continue;
+                }
+                read++;
+                try {
+                    items.add(objectMapper.readValue(text, ClothingItem.class));
+                } catch (JsonProcessingException e) {
+                    unparsed++;
+                }
+                if (read == chunkSize) {
+                    if (stopping()) {
+                        logInterrupted(job);
+                        return;
+                    }
+                    job = commitChunk(job.getId(), items, line, read, unparsed);
+                    items.clear();
+                    read = 0;
+                    unparsed = 0;
+                }
+            }
+            if (read > 0) {
+                job = commitChunk(job.getId(), items, line, read, unparsed);
+            }
+            job.markCompleted();
+            importJobRepository.save(job);
+            deleteQuietly(spool);
+            logger.info("Import job {} completed: {} rows read, {} committed, {} rejected",
+                    job.getId(), job.getRowsRead(), job.getRowsCommitted(),
+                    job.getRowsRejected());
+        } catch (IOException | RuntimeException e) {
+            if (stopping()) {
+                logInterrupted(job);
+                return;
+            }
+            logger.error("Import job {} failed", job.getId(), e);
+            job.markFailed(e.getMessage());
+            importJobRepository.save(job);
+        }
+    }
+
+    /**
+     * Вставляет корректные строки порции и в той же транзакции сдвигает прогресс задания.
+     * Если БД отклоняет порцию, все её строки учитываются как отклонённые.
+     */
+    private ImportJob commitChunk(Long jobId, List<ClothingItem> items, long line,
+                                  int read, int unparsed) {
+        List<List<RowViolation>> violations = bulkItemValidator.validate(items);
+        List<ClothingItem> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (violations.get(i).isEmpty()) {
+                valid.add(items.get(i));
+            }
+        }
+        int rejected = read - valid.size();
+        ImportJob[] progress = new ImportJob[1];
+        try {
+            bulkItemWriter.insert(valid, () -> progress[0] =
+                    recordChunk(jobId, line, read, valid.size(), rejected));
+        } catch (DataAccessException | TransactionException e) {
+            if (stopping()) {
+                throw e;
+            }
+            logger.warn("Import job {}: chunk ending at line {} rolled back", jobId, line, e);
+            return transaction.execute(status -> recordChunk(jobId, line, read, 0, read));
+        }
+        clothingItemService.registerCreatedItems(valid);
+        if (unparsed > 0) {
+            logger.warn("Import job {}: {} malformed lines before line {}", jobId, unparsed, line);
+        }
+        return progress[0];
+    }
+
+    /** Пул останавливается или поток прерван: задание нужно оставить незавершённым. */
+    private boolean stopping() {
+        return executor.isShutdown() || Thread.currentThread().isInterrupted();
+    }
+
+    private static void logInterrupted(ImportJob job) {
+        logger.info("Import job {} interrupted at line {}, resumes after restart",
+                job.getId(), job.getLastCommittedLine());
+    }
+
+    private ImportJob recordChunk(Long jobId, long line, long read, long committed,
+                                  long rejected) {
+        ImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("Import job " + jobId
+                        + " disappeared"));
+        job.recordChunk(line, read, committed, rejected);
+        return importJobRepository.save(job);
+    }
+
+    private Path spool(InputStream body) {
+        Path spool = null;
+        try {
+            Files.createDirectories(spoolDir);
+            spool = Files.createTempFile(spoolDir, "import-", ".ndjson");
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+            return spool;
+        } catch (IOException e) {
+            if (spool != null) {
+                deleteQuietly(spool);
+            }
+            throw new UncheckedIOException("Failed to spool import body", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete import spool file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.clothingstore.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Потоковая запись строк участка файла в ответ: без сборки результата в памяти, с
+ * фильтром по подстроке и постраничной выборкой ({@code offset} строк пропускается, не
+ * больше {@code limit} пишется). Участок читается блоками по {@value #BUFFER_SIZE} байт;
+ * совпавшие строки пишутся прямо из буфера чтения.
+ *
+ * <p>Без фильтра и страниц участок передаётся целиком через
+ * {@link FileChannel#transferTo}. Запись прекращается, когда клиент отключился (запись в
+ * ответ бросает {@link IOException}) или поток прерван по таймауту запроса.
+ */
+final class LogLineWriter {
+
+    static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private LogLineWriter() {
+    }
+
+    /**
+     * Пишет строки {@code [start, end)} файла {@code file}, содержащие {@code needle}
+     * (все, если {@code null}), и возвращает число записанных байт. Поток не закрывается.
+     */
+    static long write(Path file, long start, long end, byte[] needle, long offset, long limit,
+                      OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (needle == null && offset == 0 && limit == NO_LIMIT) {
+                return transfer(channel, start, end, out);
+            }
+            LineCopier copier = new LineCopier(needle, offset, limit, out);
+            scanLines(channel, start, end, copier);
+            return copier.written;
+        }
+    }
+
+    /**
+     * Смещение первой строки {@code [start, end)}, содержащей {@code needle}, или -1.
+     */
+    static long find(Path file, long start, long end, byte[] needle) throws IOException {
+        long[] found = {-1};
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scanLines(channel, start, end, (buffer, from, to, position) -> {
+                if (!contains(buffer, from, to, needle)) {
+                    return true;
+                }
+                found[0] = position;
+                return false;
+            });
+        }
+        return found[0];
+    }
+
+    /**
+     * Передаёт участок через {@link FileChannel#transferTo}. Если файл укоротился после
+     * расчёта участка (ротация, усечение), передаётся то, что осталось.
+     */
+    private static long transfer(FileChannel channel, long start, long end, OutputStream out)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        while (position < end) {
+            checkInterrupted();
+            long transferred = channel.transferTo(position,
+                    Math.min(BUFFER_SIZE, end - position), target);
+            if (transferred == 0 && position >= channel.size()) {
+                break;
+            }
+            position += transferred;
+        }
+        return position - start;
+    }
+
+    @FunctionalInterface
+    private interface LineVisitor {
+
+        /**
+         * Строка {@code buffer[from, to)}, начинающаяся в файле со смещения
+         * {@code position}; {@code false} останавливает просмотр.
+         */
+        boolean visit(byte[] buffer, int from, int to, long position) throws IOException;
+    }
+
+    /** Фильтр по подстроке и постраничная выборка при копировании строк. */
+    private static final class LineCopier implements LineVisitor {
+
+        private final byte[] needle;
+        private final long offset;
+        private final long limit;
+        private final OutputStream out;
+        private long skipped;
+        private long lines;
+        private long written;
+
+        private LineCopier(byte[] needle, long offset, long limit, OutputStream out) {
+            this.needle = needle;
+            this.offset = offset;
+            this.limit = limit;
+            this.out = out;
+        }
+
+        @Override
+        public boolean visit(byte[] buffer, int from, int to, long position)
+                throws IOException {
+            if (needle != null && !contains(buffer, from, to, needle)) {
+                return true;
+            }
+            if (skipped < offset) {
+                skipped++;
+                return true;
+            }
+            out.write(buffer, from, to - from);
+            written += to - from;
+            return ++lines < limit;
+        }
+    }
+
+    /** Передаёт строки участка по одной; последняя может быть без перевода строки. */
+    private static void scanLines(FileChannel channel, long start, long end, LineVisitor visitor)
+            throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int filled = 0;
+        long bufferPosition = start;
+        long position = start;
+        while (true) {
+            checkInterrupted();
+            int toRead = (int) Math.min(buffer.length - filled, end - position);
+            if (toRead > 0) {
+                int read = channel.read(ByteBuffer.wrap(buffer, filled, toRead), position);
+                if (read < 0) {
+                    end = position;
+                } else {
+                    position += read;
+                    filled += read;
+                }
+            }
+            boolean last = position >= end;
+
+            int lineStart = 0;
+            while (lineStart < filled) {
+                int newline = indexOf(buffer, (byte) '\n', lineStart, filled);
+                if (newline < 0 && !last) {
+                    break;
+                }
+                int lineEnd = newline < 0 ? filled : newline + 1;
+                if (!visitor.visit(buffer, lineStart, lineEnd, bufferPosition + lineStart)) {
+                    return;
+                }
+                lineStart = lineEnd;
+            }
+            if (last) {
+                return;
+            }
+            if (lineStart == 0 && filled == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                filled -= lineStart;
+                bufferPosition += lineStart;
+            }
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Log query cancelled");
+        }
+    }
+
+    private static int indexOf(byte[] buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contains(byte[] buffer, int from, int to, byte[] needle) {
+        int last = to - needle.length;
+        outer:
+        for (int i = from; i <= last; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (buffer[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,309 @@
+package com.clothingstore.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Разреженный индекс «время → смещение» по файлу логов приложения. Строки записей
+ * начинаются с ISO-8601 времени ({@code 2025-05-16T18:44:07.315+03:00  INFO ...}) и идут
+ * по возрастанию; строки без времени (продолжения стектрейсов и т. п.) относятся к
+ * предыдущей записи.
+ *
+ * <p>Индекс хранит одну запись примерно на каждые {@code logs.index.stride} байт: время и
+ * смещение первой записи после границы. Для построения не нужно читать файл целиком —
+ * от каждой границы читается только хвост строки и начало следующей записи. Индекс
+ * достраивается при каждом запросе по дописанному хвосту и перестраивается, если файл
+ * сменился при ротации или стал короче.
+ *
+ * <p>Запрос интервала ищет ближайшие точки индекса бинарным поиском, а точные границы —
+ * просмотром не больше одного шага индекса через отображённый в память файл. Стоимость
+ * запроса поэтому зависит от размера результата, а не от размера файла.
+ */
+@Component
+public class LogOffsetIndex {
+
+    private static final int WINDOW = 64 * 1024;
+    private static final int MAX_TIMESTAMP_LENGTH = 40;
+    private static final int MIN_TIMESTAMP_LENGTH = 20;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    /** Участок файла {@code [start, end)}, занятый записями из запрошенного интервала. */
+    public record Slice(long start, long end) {
+
+        public long length() {
+            return end - start;
+        }
+
+        public boolean isEmpty() {
+            return end <= start;
+        }
+    }
+
+    private record Hit(long offset, long millis) {
+    }
+
+    private final Path source;
+    private final long stride;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Object fileKey;
+    private long nextBoundary;
+    private long indexedLength;
+    private long[] millis = new long[64];
+    private long[] offsets = new long[64];
+    private int size;
+
+    public LogOffsetIndex(@Value("${logging.file.name:logs/clothingstore.log}") String source,
+                          @Value("${logs.index.stride:64KB}") DataSize stride) {
+        this.source = Paths.get(source);
+        this.stride = stride.toBytes();
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * Участок файла с записями, время которых попадает в {@code [from, to)}. Пусто, если
+     * файла логов нет.
+     */
+    public Optional<Slice> find(Instant from, Instant to) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long limit;
+            long startHint;
+            long endHint;
+            lock.lock();
+            try {
+                limit = refresh(channel);
+                startHint = hint(from.toEpochMilli());
+                endHint = hint(to.toEpochMilli());
+            } finally {
+                lock.unlock();
+            }
+            long start = seek(channel, startHint, limit, from.toEpochMilli());
+            long end = seek(channel, Math.max(start, endHint), limit, to.toEpochMilli());
+            return Optional.of(new Slice(start, end));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Число точек индекса; для тестов и диагностики. */
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Достраивает индекс до конца последней полной строки и возвращает эту границу. */
+    private long refresh(FileChannel channel) throws IOException {
+        Object key = Files.readAttributes(source, BasicFileAttributes.class).fileKey();
+        long limit = LogSnapshotter.lastLineEnd(channel, channel.size());
+        if (!Objects.equals(key, fileKey) || limit < indexedLength) {
+            fileKey = key;
+            nextBoundary = 0;
+            size = 0;
+        }
+        while (nextBoundary < limit) {
+            Hit hit = nextBoundary == 0
+                    ? findLine(channel, 0, limit, NO_TIMESTAMP + 1, false)
+                    : findLine(channel, nextBoundary - 1, limit, NO_TIMESTAMP + 1, true);
+            if (hit == null) {
+                break;
+            }
+            long previous = size == 0 ? NO_TIMESTAMP : millis[size - 1];
+            append(hit.offset, Math.max(previous, hit.millis));
+            nextBoundary = hit.offset + stride;
+        }
+        indexedLength = limit;
+        return limit;
+    }
+
+    private void append(long offset, long timestamp) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            millis = Arrays.copyOf(millis, size * 2);
+        }
+        offsets[size] = offset;
+        millis[size] = timestamp;
+        size++;
+    }
+
+    /**
+     * Смещение последней точки индекса, до которой все записи раньше {@code target}, или 0.
+     * Время в индексе — накопленный максимум, поэтому оно не убывает.
+     */
+    private long hint(long target) {
+        int low = 0;
+        int high = size - 1;
+        long result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (millis[mid] < target) {
+                result = offsets[mid];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /** Смещение первой записи не раньше {@code target}, начиная с {@code position}. */
+    private static long seek(FileChannel channel, long position, long limit, long target)
+            throws IOException {
+        Hit hit = findLine(channel, position, limit, target, false);
+        return hit != null ? hit.offset : limit;
+    }
+
+    /**
+     * Первая строка с временем не раньше {@code minMillis} в {@code [position, limit)}.
+     * Если {@code skipPartial}, сначала пропускается остаток строки, на которую попадает
+     * {@code position}. Файл читается окнами по {@value #WINDOW} байт.
+     */
+    private static Hit findLine(FileChannel channel, long position, long limit, long minMillis,
+                                boolean skipPartial) throws IOException {
+        boolean skipping = skipPartial;
+        while (position < limit) {
+            int length = (int) Math.min(WINDOW, limit - position);
+            boolean lastWindow = position + length == limit;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int i = 0;
+            while (i < length) {
+                if (!skipping) {
+                    if (length - i < MAX_TIMESTAMP_LENGTH && !lastWindow) {
+                        break;
+                    }
+                    long timestamp = timestampAt(window, i, length);
+                    if (timestamp != NO_TIMESTAMP && timestamp >= minMillis) {
+                        return new Hit(position + i, timestamp);
+                    }
+                }
+                int newline = indexOf(window, (byte) '\n', i, length);
+                if (newline < 0) {
+                    skipping = true;
+                    i = length;
+                    break;
+                }
+                skipping = false;
+                i = newline + 1;
+            }
+            position += i;
+        }
+        return null;
+    }
+
+    /** Время в начале строки в миллисекундах или {@link #NO_TIMESTAMP}. */
+    private static long timestampAt(MappedByteBuffer window, int start, int length) {
+        if (length - start < MIN_TIMESTAMP_LENGTH || !isDigit(window.get(start))
+                || window.get(start + 4) != '-' || window.get(start + 10) != 'T') {
+            return NO_TIMESTAMP;
+        }
+        int end = indexOf(window, (byte) ' ', start,
+                Math.min(length, start + MAX_TIMESTAMP_LENGTH));
+        if (end < 0) {
+            return NO_TIMESTAMP;
+        }
+        try {
+            long timestamp = logbackTimestamp(window, start, end);
+            if (timestamp != NO_TIMESTAMP) {
+                return timestamp;
+            }
+            byte[] text = new byte[end - start];
+            window.get(start, text);
+            return OffsetDateTime.parse(new String(text, StandardCharsets.US_ASCII),
+                    DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    /**
+     * Разбор формата logback по умолчанию {@code yyyy-MM-dd'T'HH:mm:ss.SSSXXX} без
+     * создания объектов; для другого формата — {@link #NO_TIMESTAMP}.
+     */
+    private static long logbackTimestamp(MappedByteBuffer window, int start, int end) {
+        int length = end - start;
+        if (length != 24 && length != 29 || window.get(start + 13) != ':'
+                || window.get(start + 16) != ':' || window.get(start + 19) != '.') {
+            return NO_TIMESTAMP;
+        }
+        int offsetSeconds;
+        byte sign = window.get(start + 23);
+        if (length == 24 && sign == 'Z') {
+            offsetSeconds = 0;
+        } else if (length == 29 && (sign == '+' || sign == '-')
+                && window.get(start + 26) == ':') {
+            int hours = digits(window, start + 24, 2);
+            int minutes = digits(window, start + 27, 2);
+            if (hours < 0 || minutes < 0) {
+                return NO_TIMESTAMP;
+            }
+            offsetSeconds = (sign == '-' ? -1 : 1) * (hours * 3600 + minutes * 60);
+        } else {
+            return NO_TIMESTAMP;
+        }
+        int year = digits(window, start, 4);
+        int month = digits(window, start + 5, 2);
+        int day = digits(window, start + 8, 2);
+        int hour = digits(window, start + 11, 2);
+        int minute = digits(window, start + 14, 2);
+        int second = digits(window, start + 17, 2);
+        int milli = digits(window, start + 20, 3);
+        if ((year | month | day | hour | minute | second | milli) < 0
+                || hour > 23 || minute > 59 || second > 59) {
+            return NO_TIMESTAMP;
+        }
+        long epochDay = LocalDate.of(year, month, day).toEpochDay();
+        return (epochDay * 86_400 + hour * 3600 + minute * 60 + second - offsetSeconds) * 1000
+                + milli;
+    }
+
+    private static int digits(MappedByteBuffer window, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte digit = window.get(i);
+            if (!isDigit(digit)) {
+                return -1;
+            }
+            value = value * 10 + digit - '0';
+        }
+        return value;
+    }
+
+    private static int indexOf(MappedByteBuffer window, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (window.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+}
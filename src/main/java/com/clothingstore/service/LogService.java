@@ -1,102 +1,133 @@
 package com.clothingstore.service;
 
-import com.clothingstore.cache.CacheService;
+import com.clothingstore.dto.LogTaskStatus;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Stream;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.stereotype.Service;
 
 @Service
-@EnableAsync
 public class LogService {
-    private static final String SOURCE_LOG_FILE = "logs/clothingstore.log";
     private static final String GENERATED_LOGS_DIR = "generated_logs/";
-    private final AtomicLong idGenerator = new AtomicLong(1);
-
-    private final CacheService cacheService;
-    private final ApplicationContext applicationContext;
-
-    @Autowired
-    public LogService(CacheService cacheService, ApplicationContext applicationContext) {
-        this.cacheService = cacheService;
-        this.applicationContext = applicationContext;
+    private static final String FULL_LOG_TASK = "full-log";
+    private static final String DELTA_LOG_TASK = "delta-log";
+
+    private final LogTaskEngine logTaskEngine;
+    private final LogSnapshotter logSnapshotter;
+    private final LogOffsetIndex logOffsetIndex;
+
+    public LogService(LogTaskEngine logTaskEngine, LogSnapshotter logSnapshotter,
+                      LogOffsetIndex logOffsetIndex) {
+        this.logTaskEngine = logTaskEngine;
+        this.logSnapshotter = logSnapshotter;
+        this.logOffsetIndex = logOffsetIndex;
     }
 
-    public String startLogFileCreation() {
-        String taskId = String.valueOf(idGenerator.getAndIncrement());
-        cacheService.put(taskId + "_status", "IN_PROGRESS");
-
-        LogService proxy = applicationContext.getBean(LogService.class);
-        proxy.createLogFileAsync(taskId);
-
-        return taskId;
+    /**
+     * Ставит выгрузку лог-файла в очередь. Пока предыдущая выгрузка того же вида не
+     * завершилась, возвращается её статус.
+     *
+     * @param delta выгрузить только строки, дописанные после предыдущей выгрузки
+     */
+    public LogTaskStatus startLogFileCreation(boolean delta) {
+        return logTaskEngine.submit(delta ? DELTA_LOG_TASK : FULL_LOG_TASK,
+                taskId -> createLogFile(taskId, delta));
     }
 
-    @Async
-    public void createLogFileAsync(String taskId) {
+    /**
+     * Снимает лог во временный файл и переименовывает его по завершении, так что
+     * недописанный файл никогда не выдаётся. Имя дельта-снимка содержит участок
+     * исходного файла, например {@code log_7_1024-4096.log}.
+     */
+    Path createLogFile(String taskId, boolean delta) throws IOException {
+        Path outputDir = Paths.get(GENERATED_LOGS_DIR);
+        Files.createDirectories(outputDir);
+        Path partFile = outputDir.resolve("log_" + taskId + ".log.part");
+
+        LogSnapshotter.Range range;
         try {
-            cacheService.put(taskId + "_status", "PROCESSING");
-            Thread.sleep(5000);
+            range = logSnapshotter.snapshot(partFile, delta);
+        } catch (IOException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        String name = delta
+                ? "log_" + taskId + "_" + range.from() + "-" + range.to() + ".log"
+                : "log_" + taskId + ".log";
+        return Files.move(partFile, outputDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+    }
 
-            Path source = Paths.get(SOURCE_LOG_FILE);
-            Path outputDir = Paths.get(GENERATED_LOGS_DIR);
-            Files.createDirectories(outputDir);
+    public Optional<LogTaskStatus> getTaskStatus(String taskId) {
+        return logTaskEngine.getStatus(taskId);
+    }
 
-            Path outputFile = outputDir.resolve("log_" + taskId + ".log");
-            Files.copy(source, outputFile);
+    public Optional<LogTaskStatus> cancelTask(String taskId) {
+        return logTaskEngine.cancel(taskId);
+    }
 
-            cacheService.put(taskId + "_status", "DONE");
-            cacheService.put(taskId + "_file", outputFile.toString());
+    public Optional<Path> getLogFile(String taskId) {
+        return logTaskEngine.getResult(taskId);
+    }
 
-        } catch (IOException | InterruptedException e) {
-            cacheService.put(taskId + "_status", "FAILED");
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-        }
+    /**
+     * Участок основного лога с записями за дату {@code date} в часовом поясе приложения —
+     * том же, в котором logback пишет время. Пусто, если файла логов нет.
+     */
+    public Optional<LogOffsetIndex.Slice> findLogsByDate(LocalDate date) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        return findLogsBetween(date.atStartOfDay(zone).toInstant(),
+                date.plusDays(1).atStartOfDay(zone).toInstant());
     }
 
-    public Optional<String> getTaskStatus(String taskId) {
-        Object status = cacheService.get(taskId + "_status");
-        return status != null ? Optional.of(status.toString()) : Optional.empty();
+    /** Участок основного лога с записями в {@code [from, to)}. Пусто, если файла логов нет. */
+    public Optional<LogOffsetIndex.Slice> findLogsBetween(Instant from, Instant to)
+            throws IOException {
+        return logOffsetIndex.find(from, to);
     }
 
-    public Optional<Path> getLogFile(String taskId) {
-        Object filePath = cacheService.get(taskId + "_file");
-        if (filePath != null) {
-            return Optional.of(Paths.get(filePath.toString()));
-        }
-        return Optional.empty();
+    /**
+     * Пишет строки участка основного лога в {@code out}, пропустив {@code offset} строк и
+     * записав не больше {@code limit} ({@code null} — без ограничения).
+     */
+    public void writeLogs(LogOffsetIndex.Slice slice, long offset, Long limit, OutputStream out)
+            throws IOException {
+        LogLineWriter.write(logOffsetIndex.getSource(), slice.start(), slice.end(), null,
+                offset, limit == null ? LogLineWriter.NO_LIMIT : limit, out);
     }
 
-    public Optional<String> getLogsByDateFromGeneratedFile(String taskId, String date) {
-        Optional<Path> filePath = getLogFile(taskId);
-        if (filePath.isEmpty() || !Files.exists(filePath.get())) {
+    /**
+     * Участок выгруженного файла от первой строки, содержащей {@code date}, до конца файла.
+     * Участок пуст, если таких строк нет; результат пуст, если нет самого файла.
+     */
+    public Optional<LogOffsetIndex.Slice> findLogsByDateInGeneratedFile(Path file, String date)
+            throws IOException {
+        try {
+            long size = Files.size(file);
+            long first = LogLineWriter.find(file, 0, size, date.getBytes(StandardCharsets.UTF_8));
+            return Optional.of(new LogOffsetIndex.Slice(first < 0 ? size : first, size));
+        } catch (NoSuchFileException e) {
             return Optional.empty();
         }
+    }
 
-        try (Stream<String> lines = Files.lines(filePath.get())) {
-            List<String> filteredLines = lines
-                    .filter(line -> line.contains(date))
-                    .toList();
-
-            if (filteredLines.isEmpty()) {
-                return Optional.of("No log entries found for date: " + date);
-            }
-
-            return Optional.of(String.join("\n", filteredLines));
-        } catch (IOException e) {
-            return Optional.of("Error reading log file: " + e.getMessage());
-        }
+    /**
+     * Пишет в {@code out} строки участка выгруженного файла, содержащие {@code date}, с той
+     * же постраничной выборкой, что и {@link #writeLogs}.
+     */
+    public void writeLogsByDateFromGeneratedFile(Path file, LogOffsetIndex.Slice slice,
+                                                 String date, long offset, Long limit,
+                                                 OutputStream out) throws IOException {
+        LogLineWriter.write(file, slice.start(), slice.end(),
+                date.getBytes(StandardCharsets.UTF_8), offset,
+                limit == null ? LogLineWriter.NO_LIMIT : limit, out);
     }
 }
-
@@ -0,0 +1,106 @@
+package com.clothingstore.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Снимки файла логов приложения. Байты копируются через {@link FileChannel#transferTo},
+ * то есть внутри ядра ({@code copy_file_range}/{@code sendfile}), без буфера в куче.
+ * Снимок обрезается по концу последней полной строки, поэтому дельта-снимки можно
+ * склеивать друг с другом.
+ *
+ * <p>Дельта-снимок копирует только байты, дописанные после предыдущего снимка. Если файл
+ * логов с тех пор сменился (ротация) или стал короче, дельта начинается с начала файла.
+ *
+ * <p>Жёсткая ссылка на файл логов снимком не является: logback продолжает дописывать в
+ * тот же inode, и «снимок» рос бы вместе с логом.
+ */
+@Component
+public class LogSnapshotter {
+
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+    private static final int TAIL_SCAN = 64 * 1024;
+
+    /** Участок файла логов {@code [from, to)}, попавший в снимок. */
+    public record Range(long from, long to) {
+    }
+
+    private record Mark(Object fileKey, long offset) {
+
+        Mark later(Mark other) {
+            if (!Objects.equals(fileKey, other.fileKey)) {
+                return other;
+            }
+            return offset >= other.offset ? this : other;
+        }
+    }
+
+    private final Path source;
+    private final AtomicReference<Mark> last = new AtomicReference<>();
+
+    public LogSnapshotter(@Value("${logging.file.name:logs/clothingstore.log}") String source) {
+        this.source = Paths.get(source);
+    }
+
+    /**
+     * Записывает снимок в {@code target}: весь файл логов или, если {@code delta}, только
+     * дописанное после предыдущего снимка. Прерывание потока закрывает каналы и
+     * завершает копирование {@link java.nio.channels.ClosedByInterruptException}.
+     */
+    public Range snapshot(Path target, boolean delta) throws IOException {
+        Object fileKey = Files.readAttributes(source, BasicFileAttributes.class).fileKey();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long end = lastLineEnd(in, in.size());
+            Mark previous = last.get();
+            long start = delta && previous != null && Objects.equals(previous.fileKey, fileKey)
+                    && previous.offset <= end ? previous.offset : 0;
+
+            long position = start;
+            while (position < end) {
+                position += in.transferTo(position, Math.min(TRANSFER_CHUNK, end - position),
+                        out);
+            }
+            last.accumulateAndGet(new Mark(fileKey, end),
+                    (current, next) -> current == null ? next : current.later(next));
+            return new Range(start, end);
+        }
+    }
+
+    /**
+     * Позиция сразу после последнего перевода строки не дальше {@code size}; 0, если в
+     * файле нет ни одной полной строки. Файл просматривается с конца окнами по
+     * {@value #TAIL_SCAN} байт, поэтому длинная незавершённая строка в снимок не попадает.
+     */
+    static long lastLineEnd(FileChannel channel, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate((int) Math.min(TAIL_SCAN, size));
+        long to = size;
+        while (to > 0) {
+            long from = Math.max(0, to - window.capacity());
+            window.clear().limit((int) (to - from));
+            while (window.hasRemaining()) {
+                if (channel.read(window, from + window.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = window.position() - 1; i >= 0; i--) {
+                if (window.get(i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+            to = from;
+        }
+        return 0;
+    }
+}
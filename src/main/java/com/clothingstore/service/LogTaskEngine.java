@@ -0,0 +1,248 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.LogTaskState;
+import com.clothingstore.dto.LogTaskStatus;
+import com.clothingstore.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Исполнитель задач выгрузки логов: ограниченный пул {@code logs.tasks.threads} потоков с
+ * очередью на {@code logs.tasks.queue-capacity} задач и собственный реестр задач. Реестр не
+ * зависит от кэша каталога, поэтому состояние задачи не вытесняется трафиком и не
+ * сбрасывается при изменении товаров.
+ *
+ * <p>Одинаковые задачи (с одним ключом), поставленные, пока первая ещё не завершилась,
+ * получают ту же задачу. Завершённые задачи и их файлы удаляются через
+ * {@code logs.tasks.ttl} после завершения.
+ */
+@Component
+public class LogTaskEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTaskEngine.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Работа задачи: создаёт файл результата и возвращает путь к нему. */
+    @FunctionalInterface
+    public interface Work {
+        Path run(String taskId) throws IOException, InterruptedException;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final long ttlNanos;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, LogTask> tasks = new ConcurrentHashMap<>();
+    private final Map<String, LogTask> activeByKey = new ConcurrentHashMap<>();
+
+    public LogTaskEngine(WorkerThreads workerThreads,
+                         @Value("${logs.tasks.threads:2}") int threads,
+                         @Value("${logs.tasks.queue-capacity:16}") int queueCapacity,
+                         @Value("${logs.tasks.ttl:1h}") Duration ttl) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), workerThreads.factory("log-task"));
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Ставит задачу в очередь. Если задача с тем же {@code key} ещё не завершилась,
+     * возвращает её вместо новой.
+     *
+     * @throws TooManyRequestsException если очередь заполнена
+     */
+    public LogTaskStatus submit(String key, Work work) {
+        LogTask created = new LogTask(Long.toString(ids.incrementAndGet()), key, work);
+        LogTask task = activeByKey.merge(key, created,
+                (existing, fresh) -> existing.state.get().isFinished() ? fresh : existing);
+        if (task != created) {
+            logger.info("Log task for '{}' is already active as task {}", key, task.id);
+            return status(task);
+        }
+        tasks.put(created.id, created);
+        try {
+            created.future = executor.submit(created::run);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(created.id);
+            activeByKey.remove(key, created);
+            throw new TooManyRequestsException("Log task queue is full, retry later");
+        }
+        logger.info("Queued log task {} for '{}'", created.id, key);
+        return status(created);
+    }
+
+    public Optional<LogTaskStatus> getStatus(String id) {
+        return Optional.ofNullable(tasks.get(id)).map(this::status);
+    }
+
+    /** Файл результата, если задача завершилась успешно. */
+    public Optional<Path> getResult(String id) {
+        LogTask task = tasks.get(id);
+        if (task == null || task.state.get() != LogTaskState.DONE) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(task.result);
+    }
+
+    /**
+     * Отменяет задачу: ждущая убирается из очереди, выполняющаяся прерывается.
+     * Завершённая задача не меняется.
+     */
+    public Optional<LogTaskStatus> cancel(String id) {
+        LogTask task = tasks.get(id);
+        if (task == null) {
+            return Optional.empty();
+        }
+        if (task.finish(LogTaskState.QUEUED, LogTaskState.CANCELLED)) {
+            Future<?> future = task.future;
+            if (future != null) {
+                future.cancel(false);
+                executor.remove((Runnable) future);
+            }
+        } else if (task.state.get() == LogTaskState.RUNNING) {
+            task.cancelRequested = true;
+            Future<?> future = task.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        return Optional.of(status(task));
+    }
+
+    /** Удаляет задачи, завершившиеся раньше {@code logs.tasks.ttl}, вместе с их файлами. */
+    @Scheduled(fixedDelayString = "${logs.tasks.cleanup-interval:1m}")
+    public void removeExpired() {
+        long now = System.nanoTime();
+        tasks.values().removeIf(task -> {
+            long finished = task.finishedNanos;
+            if (finished == 0 || !task.state.get().isFinished() || now - finished < ttlNanos) {
+                return false;
+            }
+            if (task.result != null) {
+                deleteQuietly(task.result);
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            logger.warn("Log tasks did not stop in {}", SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    private LogTaskStatus status(LogTask task) {
+        LogTaskState state = task.state.get();
+        long now = System.nanoTime();
+        long started = task.startedNanos;
+        long finished = task.finishedNanos != 0 ? task.finishedNanos : now;
+        long waitedUntil = started != 0 ? started : state.isFinished() ? finished : now;
+        long elapsed = started == 0 ? 0 : (state.isFinished() ? finished : now) - started;
+        return new LogTaskStatus(task.id, state,
+                state == LogTaskState.QUEUED ? queuePosition(task) : null,
+                TimeUnit.NANOSECONDS.toMillis(waitedUntil - task.createdNanos),
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                task.error);
+    }
+
+    private Integer queuePosition(LogTask task) {
+        int position = 1;
+        for (Runnable queued : executor.getQueue()) {
+            if (queued == task.future) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete log task file {}", file, e);
+        }
+    }
+
+    private final class LogTask {
+
+        private final String id;
+        private final String key;
+        private final Work work;
+        private final long createdNanos = System.nanoTime();
+        private final AtomicReference<LogTaskState> state =
+                new AtomicReference<>(LogTaskState.QUEUED);
+        private volatile Future<?> future;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile boolean cancelRequested;
+        private volatile Path result;
+        private volatile String error;
+
+        private LogTask(String id, String key, Work work) {
+            this.id = id;
+            this.key = key;
+            this.work = work;
+        }
+
+        private void run() {
+            if (!state.compareAndSet(LogTaskState.QUEUED, LogTaskState.RUNNING)) {
+                return;
+            }
+            startedNanos = System.nanoTime();
+            LogTaskState outcome;
+            try {
+                result = work.run(id);
+                outcome = cancelRequested ? LogTaskState.CANCELLED : LogTaskState.DONE;
+            } catch (InterruptedException | ClosedByInterruptException e) {
+                outcome = LogTaskState.CANCELLED;
+            } catch (IOException | RuntimeException e) {
+                outcome = cancelRequested ? LogTaskState.CANCELLED : LogTaskState.FAILED;
+                if (outcome == LogTaskState.FAILED) {
+                    logger.warn("Log task {} failed", id, e);
+                    error = e.getMessage();
+                }
+            }
+            if (outcome == LogTaskState.CANCELLED && result != null) {
+                deleteQuietly(result);
+                result = null;
+            }
+            finish(LogTaskState.RUNNING, outcome);
+            logger.info("Log task {} finished as {}", id, outcome);
+        }
+
+        /**
+         * Переводит задачу в завершённое состояние. Время завершения записывается только
+         * при успешной смене состояния, поэтому повторная отмена завершённой задачи не
+         * продлевает её хранение. Пока время не записано, очистка задачу не удаляет.
+         */
+        private boolean finish(LogTaskState expected, LogTaskState outcome) {
+            if (!state.compareAndSet(expected, outcome)) {
+                return false;
+            }
+            finishedNanos = System.nanoTime();
+            activeByKey.remove(key, this);
+            return true;
+        }
+    }
+}
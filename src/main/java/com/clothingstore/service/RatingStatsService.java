@@ -0,0 +1,117 @@
+package com.clothingstore.service;
+
+import com.clothingstore.cache.CacheService;
+import com.clothingstore.cache.CacheTags;
+import com.clothingstore.dto.ReviewSummary;
+import com.clothingstore.model.ItemRatingStats;
+import com.clothingstore.repository.ItemRatingStatsRepository;
+import com.clothingstore.search.RatingBitmapIndex;
+import com.clothingstore.search.SearchIndexLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Поддержка агрегатов оценок товаров: изменение под блокировкой строки в транзакции
+ * записи отзывов, а после её фиксации — обновление индекса рейтингов и сброс кэша.
+ */
+@Service
+public class RatingStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStatsService.class);
+
+    private final ItemRatingStatsRepository ratingStatsRepository;
+    private final CacheService cacheService;
+    private final RatingBitmapIndex ratingIndex;
+    private final SearchIndexLoader searchIndexLoader;
+
+    public RatingStatsService(ItemRatingStatsRepository ratingStatsRepository,
+                              CacheService cacheService,
+                              RatingBitmapIndex ratingIndex,
+                              SearchIndexLoader searchIndexLoader) {
+        this.ratingStatsRepository = ratingStatsRepository;
+        this.cacheService = cacheService;
+        this.ratingIndex = ratingIndex;
+        this.searchIndexLoader = searchIndexLoader;
+    }
+
+    /**
+     * Применяет {@code change} к агрегатам товара. Вызывается в транзакции, записывающей
+     * отзывы; при изменении нескольких товаров вызывайте в порядке возрастания id,
+     * чтобы блокировки строк не приводили к взаимоблокировкам.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void update(Long productId, Consumer<ItemRatingStats> change) {
+        ratingStatsRepository.insertIfAbsent(productId);
+        ItemRatingStats stats = ratingStatsRepository.findForUpdate(productId)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Rating stats missing for product " + productId));
+        int previousMaxRating = stats.getMaxRating();
+        change.accept(stats);
+        ratingStatsRepository.save(stats);
+
+        int maxRating = stats.getMaxRating();
+        long revision = stats.getRevision();
+        List<String> tags = new ArrayList<>();
+        tags.add(CacheTags.item(productId));
+        for (int threshold = Math.min(previousMaxRating, maxRating) + 1;
+                threshold <= Math.max(previousMaxRating, maxRating); threshold++) {
+            tags.add(CacheTags.ratingSearch(threshold));
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            ratingIndex.put(productId, maxRating, revision);
+            cacheService.invalidateTags(tags);
+        });
+    }
+
+    /**
+     * Сводка отзывов товара из агрегатов: общее число, средняя оценка и гистограмма.
+     * Кэшируется под тегом товара и сбрасывается при любом изменении его отзывов.
+     */
+    public ReviewSummary getSummary(Long productId) {
+        String cacheKey = "review_summary_" + productId;
+        return cacheService.computeIfAbsent(cacheKey, () -> {
+            ItemRatingStats stats = ratingStatsRepository.findById(productId)
+                    .orElseGet(() -> new ItemRatingStats(productId));
+            Map<Integer, Long> histogram = new LinkedHashMap<>();
+            for (int rating = 1; rating <= ItemRatingStats.MAX_RATING; rating++) {
+                histogram.put(rating, stats.getCount(rating));
+            }
+            return new ReviewSummary(productId, stats.getReviewCount(),
+                    stats.getAverageRating(), Collections.unmodifiableMap(histogram));
+        }, summary -> Set.of(CacheTags.item(productId), CacheTags.REVIEW_SUMMARIES));
+    }
+
+    /** После фиксации сбрасывает записи кэша с товаром, отзывы которого изменились. */
+    public void evictItem(Long productId) {
+        TransactionCallbacks.afterCommit(() ->
+                cacheService.invalidateTag(CacheTags.item(productId)));
+    }
+
+    /**
+     * Пересчитывает агрегаты оценок всех товаров по таблице отзывов. Нужен один раз для
+     * данных, появившихся до введения агрегатов, или после ручных правок в БД.
+     */
+    @Transactional
+    public int rebuild() {
+        ratingStatsRepository.lockReviews();
+        ratingStatsRepository.resetStatsWithoutReviews();
+        int rebuilt = ratingStatsRepository.upsertAllFromReviews();
+        TransactionCallbacks.afterCommit(() -> {
+            searchIndexLoader.loadRatings();
+            cacheService.invalidateTagsMatching(CacheTags::isRatingSearch);
+            cacheService.invalidateTag(CacheTags.REVIEW_SUMMARIES);
+        });
+        logger.info("Rebuilt rating stats for {} items", rebuilt);
+        return rebuilt;
+    }
+}
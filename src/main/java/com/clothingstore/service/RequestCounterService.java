@@ -1,21 +1,27 @@
 package com.clothingstore.service;
 
+import java.util.concurrent.atomic.LongAdder;
 import org.springframework.stereotype.Service;
 
+/**
+ * Счётчик обращений к каталогу. Вызывается на каждом запросе, поэтому обходится без
+ * блокировок: под нагрузкой {@link LongAdder} не создаёт конкуренции за монитор, на
+ * которой виртуальные потоки закреплялись бы за потоками-носителями.
+ */
 @Service
 public class RequestCounterService {
 
-    private int requestCount = 0;
+    private final LongAdder requestCount = new LongAdder();
 
-    public synchronized void increment() {
-        requestCount++;
+    public void increment() {
+        requestCount.increment();
     }
 
-    public synchronized int getCount() {
-        return requestCount;
+    public int getCount() {
+        return requestCount.intValue();
     }
 
-    public synchronized void reset() {
-        requestCount = 0;
+    public void reset() {
+        requestCount.reset();
     }
 }
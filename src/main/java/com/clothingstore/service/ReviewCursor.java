@@ -0,0 +1,48 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.ReviewSort;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.exception.BadRequestException;
+import com.clothingstore.model.ItemRatingStats;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор keyset-пагинации отзывов: оценка и id последнего отзыва страницы.
+ * Отзывы идут по убыванию, поэтому курсор первой страницы стоит выше любого отзыва.
+ */
+record ReviewCursor(int rating, long lastId) {
+
+    private static final char SEPARATOR = '|';
+
+    static ReviewCursor first() {
+        return new ReviewCursor(ItemRatingStats.MAX_RATING + 1, Long.MAX_VALUE);
+    }
+
+    static ReviewCursor after(ReviewView review, ReviewSort sort) {
+        return switch (sort) {
+            case NEWEST -> new ReviewCursor(ItemRatingStats.MAX_RATING + 1, review.id());
+            case RATING -> new ReviewCursor(review.rating(), review.id());
+        };
+    }
+
+    static ReviewCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return first();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new ReviewCursor(Integer.parseInt(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    String encode() {
+        String raw = String.valueOf(rating) + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,25 +1,67 @@
 package com.clothingstore.service;
 
+import com.clothingstore.dto.BulkRowResult;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.ReviewPage;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.dto.ReviewSort;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.dto.RowViolation;
 import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
 import com.clothingstore.model.Review;
 import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ReviewAuthor;
 import com.clothingstore.repository.ReviewRepository;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ReviewService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
+
+    /** Сколько строк массовой загрузки проверяется одним запросом с {@code IN}. */
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
     private final ReviewRepository reviewRepository;
     private final ClothingItemRepository clothingItemRepository;
+    private final RatingStatsService ratingStatsService;
+    private final BulkReviewWriter bulkReviewWriter;
+    private final CatalogChangeLog changeLog;
+    private final Validator validator;
 
     public ReviewService(ReviewRepository reviewRepository,
-                         ClothingItemRepository clothingItemRepository) {
+                         ClothingItemRepository clothingItemRepository,
+                         RatingStatsService ratingStatsService,
+                         BulkReviewWriter bulkReviewWriter,
+                         CatalogChangeLog changeLog,
+                         Validator validator) {
         this.reviewRepository = reviewRepository;
         this.clothingItemRepository = clothingItemRepository;
+        this.ratingStatsService = ratingStatsService;
+        this.bulkReviewWriter = bulkReviewWriter;
+        this.changeLog = changeLog;
+        this.validator = validator;
     }
 
+    @Transactional
     public Review saveReview(Review review) {
         if (review.getClothingItem() == null
                 || review.getClothingItem().getId() == null
@@ -30,21 +72,185 @@ public class ReviewService {
                     +
                     " не найден.");
         }
-        return reviewRepository.save(review);
+        Long productId = review.getClothingItem().getId();
+        Integer previousRating = review.getId() == null ? null : review.getPersistedRating();
+        Review savedReview = reviewRepository.save(review);
+        changeLog.record(ChangeTarget.REVIEW, savedReview.getId(), productId,
+                ChangeOperation.UPSERT);
+        int rating = savedReview.getRating();
+        if (previousRating == null) {
+            ratingStatsService.update(productId, stats -> stats.addRating(rating));
+        } else if (previousRating != rating) {
+            ratingStatsService.update(productId, stats -> {
+                stats.removeRating(previousRating);
+                stats.addRating(rating);
+            });
+        } else {
+            ratingStatsService.evictItem(productId);
+        }
+        return savedReview;
+    }
+
+    /**
+     * Сохраняет отзывы пачкой: существование товаров и повторные отзывы проверяются
+     * запросами с {@code IN} на {@value #LOOKUP_BATCH_SIZE} строк, корректные отзывы
+     * вставляются одной транзакцией вместе с обновлением агрегатов оценок.
+     *
+     * <p>Повторный отзыв пользователя отсекается проверкой перед вставкой, а не уникальным
+     * ограничением: одиночное создание отзыва повторы допускает. Поэтому две пачки,
+     * параллельно сохраняющие отзыв одного пользователя к одному товару, могут сохранить
+     * оба.
+     */
+    public BulkSaveReport saveReviewsBulk(List<ReviewRequest> requests) {
+        return saveReviewsBulk(requests, false);
+    }
+
+    /**
+     * То же, что {@link #saveReviewsBulk(List)}, но ошибка БД не превращается в отказ
+     * по строкам, а пробрасывается: буфер отложенной записи повторяет такую пачку целиком.
+     */
+    BulkSaveReport flushReviews(List<ReviewRequest> requests) {
+        return saveReviewsBulk(requests, true);
     }
 
-    public List<Review> getReviewsByClothingItemId(Long clothingItemId) {
-        return reviewRepository.findByClothingItemId(clothingItemId);
+    private BulkSaveReport saveReviewsBulk(List<ReviewRequest> requests,
+                                           boolean propagateDatabaseErrors) {
+        long started = System.nanoTime();
+        BulkRowResult[] results = new BulkRowResult[requests.size()];
+        List<Integer> candidates = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            List<RowViolation> violations = validate(requests.get(index));
+            if (violations.isEmpty()) {
+                candidates.add(index);
+            } else {
+                results[index] = BulkRowResult.rejected(index, violations);
+            }
+        }
+
+        List<Integer> accepted = new ArrayList<>(candidates.size());
+        Set<ReviewAuthor> seen = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Integer> batch = candidates.subList(from,
+                    Math.min(from + LOOKUP_BATCH_SIZE, candidates.size()));
+            Set<Long> productIds = batch.stream()
+                    .map(index -> requests.get(index).productId())
+                    .collect(Collectors.toSet());
+            Set<String> usernames = batch.stream()
+                    .map(index -> requests.get(index).username())
+                    .collect(Collectors.toSet());
+            Set<Long> existingItems = new HashSet<>(
+                    clothingItemRepository.findExistingIds(productIds));
+            Set<ReviewAuthor> existingAuthors = new HashSet<>(
+                    reviewRepository.findAuthors(productIds, usernames));
+            for (int index : batch) {
+                ReviewRequest request = requests.get(index);
+                ReviewAuthor author = new ReviewAuthor(request.productId(), request.username());
+                if (!existingItems.contains(request.productId())) {
+                    results[index] = BulkRowResult.rejected(index, List.of(new RowViolation(
+                            "productId", "Item not found with id: " + request.productId())));
+                } else if (existingAuthors.contains(author) || !seen.add(author)) {
+                    results[index] = BulkRowResult.rejected(index, List.of(new RowViolation(
+                            "username", "User has already reviewed this item")));
+                } else {
+                    accepted.add(index);
+                }
+            }
+        }
+
+        List<Review> reviews = accepted.stream()
+                .map(index -> requests.get(index).toReview())
+                .toList();
+        try {
+            List<Long> ids = bulkReviewWriter.insert(reviews,
+                    () -> updateRatingStats(accepted, requests));
+            for (int i = 0; i < accepted.size(); i++) {
+                results[accepted.get(i)] = BulkRowResult.saved(accepted.get(i), ids.get(i));
+            }
+        } catch (DataAccessException | TransactionException e) {
+            if (propagateDatabaseErrors) {
+                throw e;
+            }
+            logger.warn("Bulk insert of {} reviews rolled back", reviews.size(), e);
+            List<RowViolation> error = List.of(RowViolation.ofRow(
+                    "Database error: " + e.getMostSpecificCause().getMessage()));
+            accepted.forEach(index -> results[index] = BulkRowResult.rejected(index, error));
+        }
+
+        BulkSaveReport report = BulkSaveReport.of(Arrays.asList(results));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        logger.info("Saved {}/{} reviews in {} ms ({} reviews/s)", report.saved(),
+                report.received(), Math.round(seconds * 1000),
+                Math.round(report.saved() / Math.max(seconds, 1e-9)));
+        return report;
+    }
+
+    public List<ReviewView> getReviewsByClothingItemId(Long clothingItemId) {
+        return reviewRepository.findViewsByProductId(clothingItemId);
+    }
+
+    /**
+     * Страница отзывов товара с keyset-пагинацией по индексам {@code (product_id, id)} и
+     * {@code (product_id, rating, id)}: стоимость страницы не зависит ни от её номера, ни
+     * от общего числа отзывов. Общее число берётся из кэшированной сводки агрегатов.
+     */
+    public ReviewPage getReviewsPage(Long productId, ReviewSort sort, String cursor, int size) {
+        ReviewCursor after = ReviewCursor.decode(cursor);
+        PageRequest limit = PageRequest.ofSize(size + 1);
+        List<ReviewView> rows = switch (sort) {
+            case NEWEST -> reviewRepository.findPageNewest(productId, after.lastId(), limit);
+            case RATING -> reviewRepository.findPageByRating(productId, after.rating(),
+                    after.lastId(), limit);
+        };
+        long totalCount = ratingStatsService.getSummary(productId).reviewCount();
+        if (rows.size() <= size) {
+            return new ReviewPage(rows, null, totalCount);
+        }
+        List<ReviewView> reviews = List.copyOf(rows.subList(0, size));
+        return new ReviewPage(reviews,
+                ReviewCursor.after(reviews.get(size - 1), sort).encode(), totalCount);
     }
 
     public Optional<Review> getReviewById(Long id) {
         return reviewRepository.findById(id);
     }
 
+    @Transactional
     public void deleteReview(Long id) {
-        if (!reviewRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Review not found with id: " + id);
-        }
+        Review review = reviewRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Review not found with id: " + id));
         reviewRepository.deleteById(id);
+        Long productId = review.getClothingItem() == null ? null : review.getClothingItem().getId();
+        changeLog.record(ChangeTarget.REVIEW, id, productId, ChangeOperation.DELETE);
+        if (review.getClothingItem() != null) {
+            int rating = review.getRating();
+            ratingStatsService.update(review.getClothingItem().getId(),
+                    stats -> stats.removeRating(rating));
+        }
+    }
+
+    private List<RowViolation> validate(ReviewRequest request) {
+        if (request == null) {
+            return List.of(RowViolation.ofRow("Review is null"));
+        }
+        List<RowViolation> violations = new ArrayList<>();
+        if (request.productId() == null) {
+            violations.add(new RowViolation("productId", "Item id is required"));
+        }
+        validator.validate(request.toReview()).forEach(violation -> violations.add(
+                new RowViolation(violation.getPropertyPath().toString(), violation.getMessage())));
+        return violations;
+    }
+
+    /** Обновляет агрегаты товаров в порядке возрастания id, чтобы не было взаимоблокировок. */
+    private void updateRatingStats(List<Integer> accepted, List<ReviewRequest> requests) {
+        Map<Long, List<Integer>> ratingsByProduct = new TreeMap<>();
+        for (int index : accepted) {
+            ReviewRequest request = requests.get(index);
+            ratingsByProduct.computeIfAbsent(request.productId(), id -> new ArrayList<>())
+                    .add(request.rating());
+        }
+        ratingsByProduct.forEach((productId, ratings) ->
+                ratingStatsService.update(productId, stats -> ratings.forEach(stats::addRating)));
     }
-}
\ No newline at end of file
+}
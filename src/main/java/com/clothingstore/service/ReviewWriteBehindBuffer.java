@@ -0,0 +1,412 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.BulkRowResult;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.ProvisionalReview;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.dto.WriteBehindStatistics;
+import com.clothingstore.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Отложенная запись отзывов. Принятые отзывы попадают в ограниченную очередь и сразу
+ * подтверждаются временным id; фоновый поток раз в {@code reviews.write-behind.flush-interval}
+ * или по накоплении {@code reviews.write-behind.flush-size} отзывов записывает их пачкой через
+ * {@link ReviewService#saveReviewsBulk}, который обновляет агрегаты оценок и кэш при фиксации.
+ *
+ * <p>Пачка, запись которой завершилась ошибкой, повторяется с экспоненциальной задержкой
+ * от {@code reviews.write-behind.retry-backoff}. Пока БД недоступна, попытки не ограничены;
+ * пачка, которую БД отклонила {@code reviews.write-behind.max-attempts} раз подряд,
+ * делится пополам, а одиночный отзыв откладывается в {@value #DEAD_LETTER_FILE} в
+ * {@code reviews.write-behind.spool-dir}. Так одна «ядовитая» строка не держит очередь.
+ *
+ * <p>При остановке приложения приём прекращается, а очередь дописывается до конца. Если
+ * БД так и не стала доступна, оставшиеся отзывы сохраняются в {@value #PENDING_FILE} и
+ * возвращаются в очередь при следующем запуске.
+ */
+@Component
+public class ReviewWriteBehindBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewWriteBehindBuffer.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_BACKOFF_SHIFT = 6;
+    static final String PENDING_FILE = "pending.ndjson";
+    static final String DEAD_LETTER_FILE = "dead-letter.ndjson";
+
+    private record PendingReview(long provisionalId, ReviewRequest request) {
+    }
+
+    private final ReviewService reviewService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int capacity;
+    private final int flushSize;
+    private final int maxAttempts;
+    private final long retryBackoffNanos;
+    private final Path spoolDir;
+    private final BlockingQueue<PendingReview> queue;
+    private final ScheduledExecutorService flusher;
+    private final AtomicLong provisionalIds = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    /** Не монитор: сброс ждёт БД, и виртуальный поток под монитором закрепил бы носитель. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile boolean closed;
+    /** Пачки, ожидающие повтора; первая — текущая. Доступ под {@link #flushLock}. */
+    private final Deque<List<PendingReview>> retries = new ArrayDeque<>();
+    /** Подряд идущие ошибки записи первой пачки и те из них, что не связаны с доступностью БД. */
+    private int failures;
+    private int attempts;
+    private long retryAtNanos;
+    private volatile int retryDepth;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+
+    public ReviewWriteBehindBuffer(
+            ReviewService reviewService,
+            ObjectMapper objectMapper,
+            WorkerThreads workerThreads,
+            @Value("${reviews.write-behind.enabled:false}") boolean enabled,
+            @Value("${reviews.write-behind.capacity:10000}") int capacity,
+            @Value("${reviews.write-behind.flush-size:500}") int flushSize,
+            @Value("${reviews.write-behind.flush-interval:200ms}") Duration flushInterval,
+            @Value("${reviews.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${reviews.write-behind.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${reviews.write-behind.spool-dir:review-spool}") String spoolDir) {
+        this.reviewService = reviewService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffNanos = retryBackoff.toNanos();
+        this.spoolDir = Path.of(spoolDir);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+                workerThreads.factory("review-write-behind"));
+        if (enabled) {
+            restorePending();
+            long intervalMillis = Math.max(1, flushInterval.toMillis());
+            flusher.scheduleWithFixedDelay(this::flushSafely, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит отзыв в очередь и возвращает подтверждение с временным id.
+     *
+     * @throws TooManyRequestsException если очередь заполнена или приложение останавливается
+     */
+    public ProvisionalReview submit(ReviewRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("Review write-behind is disabled");
+        }
+        long provisionalId = -provisionalIds.incrementAndGet();
+        if (closed || !queue.offer(new PendingReview(provisionalId, request))) {
+            throw new TooManyRequestsException("Review queue is full, retry later");
+        }
+        accepted.increment();
+        if (queue.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushSafely);
+        }
+        return new ProvisionalReview(provisionalId, request);
+    }
+
+    public WriteBehindStatistics stats() {
+        long completed = flushes.sum() + flushFailures.sum();
+        return new WriteBehindStatistics(
+                enabled,
+                queue.size() + retryDepth,
+                capacity,
+                accepted.sum(),
+                saved.sum(),
+                rejected.sum(),
+                flushes.sum(),
+                flushFailures.sum(),
+                deadLettered.sum(),
+                completed == 0 ? 0 : flushNanos.sum() / completed / 1_000_000.0,
+                maxFlushNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Дописывает очередь в БД. Отзывы, которые не удалось записать до истечения времени
+     * остановки или до прерывания потока, сохраняются в файл и будут записаны при
+     * следующем запуске; флаг прерывания после этого восстанавливается.
+     */
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                logger.warn("Review flusher did not stop in {}", SHUTDOWN_TIMEOUT);
+                flusher.shutdownNow();
+            }
+            drain();
+        } catch (InterruptedException e) {
+            flushLock.lock();
+            try {
+                spoolPending();
+            } finally {
+                flushLock.unlock();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Записывает очередь до конца или, если не успевает, сохраняет остаток в файл. */
+    private void drain() throws InterruptedException {
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        flushLock.lock();
+        try {
+            while (!retries.isEmpty() || !queue.isEmpty()) {
+                if (flush()) {
+                    continue;
+                }
+                long wait = Math.max(0, retryAtNanos - System.nanoTime());
+                if (System.nanoTime() + wait - deadline > 0) {
+                    spoolPending();
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        flushLock.lock();
+        try {
+            flush();
+            while (queue.size() >= flushSize && flush()) {
+                // дописываем накопившиеся полные пачки, не дожидаясь следующего интервала
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает одну пачку; возвращает {@code false}, если запись не удалась или ещё не
+     * истекла задержка перед повтором.
+     */
+    private boolean flush() {
+        List<PendingReview> batch = retries.peekFirst();
+        if (batch == null) {
+            batch = new ArrayList<>(flushSize);
+            queue.drainTo(batch, flushSize);
+            if (batch.isEmpty()) {
+                return true;
+            }
+            retries.addFirst(batch);
+            updateRetryDepth();
+        } else if (retryAtNanos - System.nanoTime() > 0) {
+            return false;
+        }
+        long started = System.nanoTime();
+        try {
+            BulkSaveReport report = reviewService.flushReviews(
+                    batch.stream().map(PendingReview::request).toList());
+            retries.removeFirst();
+            failures = 0;
+            attempts = 0;
+            saved.add(report.saved());
+            rejected.add(report.rejected());
+            for (BulkRowResult row : report.rows()) {
+                if (!row.isSaved()) {
+                    logger.warn("Queued review {} rejected: {}",
+                            batch.get(row.index()).provisionalId(), row.violations());
+                }
+            }
+            flushes.increment();
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            failures++;
+            if (!isUnavailable(e)) {
+                attempts++;
+            }
+            if (attempts < maxAttempts) {
+                logger.error("Failed to flush {} queued reviews (failure {}), will retry",
+                        batch.size(), failures, e);
+                int shift = Math.min(failures - 1, MAX_BACKOFF_SHIFT);
+                retryAtNanos = System.nanoTime() + (retryBackoffNanos << shift);
+            } else {
+                retries.removeFirst();
+                failures = 0;
+                attempts = 0;
+                retryAtNanos = System.nanoTime();
+                if (batch.size() > 1) {
+                    logger.error("Batch of {} queued reviews failed {} times, splitting it",
+                            batch.size(), maxAttempts, e);
+                    int half = batch.size() / 2;
+                    retries.addFirst(batch.subList(half, batch.size()));
+                    retries.addFirst(batch.subList(0, half));
+                } else {
+                    deadLetter(batch.get(0), e);
+                }
+            }
+            return false;
+        } finally {
+            updateRetryDepth();
+            long elapsed = System.nanoTime() - started;
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulate(elapsed);
+        }
+    }
+
+    /**
+     * Ошибки доступности БД ничего не говорят о содержимом пачки, поэтому не считаются в
+     * {@code max-attempts} и не приводят к её делению.
+     */
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void updateRetryDepth() {
+        int depth = 0;
+        for (List<PendingReview> batch : retries) {
+            depth += batch.size();
+        }
+        retryDepth = depth;
+    }
+
+    private void deadLetter(PendingReview review, RuntimeException cause) {
+        deadLettered.increment();
+        logger.error("Queued review {} failed {} times, moving it to {}",
+                review.provisionalId(), maxAttempts, DEAD_LETTER_FILE, cause);
+        try {
+            Files.createDirectories(spoolDir);
+            Files.writeString(spoolDir.resolve(DEAD_LETTER_FILE),
+                    objectMapper.writeValueAsString(review.request()) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("Failed to write dead-letter review {}: {}", review.provisionalId(),
+                    review.request(), e);
+        }
+    }
+
+    /** Сохраняет неотправленные отзывы на диск; вызывается при остановке под блокировкой. */
+    private void spoolPending() {
+        List<PendingReview> pending = new ArrayList<>(retryDepth + queue.size());
+        retries.forEach(pending::addAll);
+        queue.drainTo(pending);
+        retries.clear();
+        updateRetryDepth();
+        Path target = spoolDir.resolve(PENDING_FILE);
+        try {
+            Files.createDirectories(spoolDir);
+            Path part = Files.createTempFile(spoolDir, "pending-", ".part");
+            try (BufferedWriter writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                if (Files.exists(target)) {
+                    try (BufferedReader reader = Files.newBufferedReader(target,
+                            StandardCharsets.UTF_8)) {
+                        reader.transferTo(writer);
+                    }
+                }
+                for (PendingReview review : pending) {
+                    writer.write(objectMapper.writeValueAsString(review.request()));
+                    writer.newLine();
+                }
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.warn("Spooled {} unsaved reviews to {}, they are written on next start",
+                    pending.size(), target);
+        } catch (IOException e) {
+            logger.error("Failed to spool {} queued reviews to {}, they are lost",
+                    pending.size(), target, e);
+        }
+    }
+
+    /** Возвращает в очередь отзывы, сохранённые при предыдущей остановке. */
+    private void restorePending() {
+        Path source = spoolDir.resolve(PENDING_FILE);
+        List<PendingReview> batch = new ArrayList<>(flushSize);
+        int restored = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(new PendingReview(-provisionalIds.incrementAndGet(),
+                            objectMapper.readValue(line, ReviewRequest.class)));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipping malformed spooled review: {}", line);
+                    continue;
+                }
+                restored++;
+                if (batch.size() == flushSize) {
+                    retries.addLast(batch);
+                    batch = new ArrayList<>(flushSize);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            logger.error("Failed to restore spooled reviews from {}", source, e);
+            return;
+        }
+        if (!batch.isEmpty()) {
+            retries.addLast(batch);
+        }
+        updateRetryDepth();
+        try {
+            Files.delete(source);
+        } catch (IOException e) {
+            logger.error("Failed to delete {}, its reviews may be written twice", source, e);
+        }
+        logger.info("Restored {} spooled reviews from {}", restored, source);
+    }
+}
@@ -0,0 +1,113 @@
+package com.clothingstore.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Многопоточный бенчмарк пропускной способности кэша.
+ * Запуск: {@code mvn test -Dtest=CacheServiceBenchmarkTest -Dbenchmark=true}.
+ *
+ * <p>Для сравнения используется прежняя реализация на {@link LinkedHashMap}, обёрнутая в
+ * {@link Collections#synchronizedMap}: без синхронизации она разрушается при конкурентном доступе.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CacheServiceBenchmarkTest {
+
+    private static final int KEYS = 10_000;
+    private static final int CAPACITY = 1_000;
+    private static final long RUN_MILLIS = 2_000;
+
+    interface Cache {
+        Object get(String key);
+
+        void put(String key, Object value);
+    }
+
+    @Test
+    void throughput_shouldScaleWithThreads() throws Exception {
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "item_" + i;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-8s %20s %20s%n", "threads", "legacy ops/s", "segmented ops/s");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Map<String, Object> legacyMap = Collections.synchronizedMap(
+                    new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                            return size() > CAPACITY;
+                        }
+                    });
+            Cache legacy = new Cache() {
+                public Object get(String key) {
+                    return legacyMap.get(key);
+                }
+
+                public void put(String key, Object value) {
+                    legacyMap.put(key, value);
+                }
+            };
+            CacheService service = new CacheService(CAPACITY, 0, 64, Duration.ZERO,
+                    System::nanoTime);
+            Cache segmented = new Cache() {
+                public Object get(String key) {
+                    return service.get(key);
+                }
+
+                public void put(String key, Object value) {
+                    service.put(key, value);
+                }
+            };
+
+            long legacyOps = run(legacy, keys, threads);
+            long segmentedOps = run(segmented, keys, threads);
+            System.out.printf("%-8d %20d %20d%n", threads, legacyOps, segmentedOps);
+        }
+    }
+
+    private long run(Cache cache, String[] keys, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RUN_MILLIS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long local = 0;
+                while (System.nanoTime() < deadline) {
+                    // Скошенное распределение: малая часть ключей получает большую часть запросов
+                    int index = (int) (KEYS * Math.pow(random.nextDouble(), 3));
+                    String key = keys[index];
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                    local++;
+                }
+                operations.add(local);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(RUN_MILLIS * 2, TimeUnit.MILLISECONDS);
+        return operations.sum() * 1000 / RUN_MILLIS;
+    }
+}
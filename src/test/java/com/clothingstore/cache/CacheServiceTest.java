@@ -0,0 +1,379 @@
+package com.clothingstore.cache;
+
+import com.clothingstore.dto.CatalogSnapshot;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.exception.CacheLoadTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheServiceTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void putAndGet_shouldReturnStoredValue() {
+        // Arrange
+        CacheService cache = new CacheService();
+
+        // Act
+        cache.put("item_1", "value");
+
+        // Assert
+        assertTrue(cache.contains("item_1"));
+        assertEquals("value", cache.get("item_1"));
+        assertNull(cache.get("item_2"));
+    }
+
+    @Test
+    void clear_shouldRemoveAllEntries() {
+        // Arrange
+        CacheService cache = new CacheService();
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        // Act
+        cache.clear();
+
+        // Assert
+        assertFalse(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void put_shouldExpireEntryAfterTtl() {
+        // Arrange
+        CacheService cache = new CacheService(100, 0, 4, Duration.ZERO, clock::get);
+        cache.put("short", "value", Duration.ofSeconds(5));
+        cache.put("eternal", "value");
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // Assert
+        assertNull(cache.get("short"));
+        assertFalse(cache.contains("short"));
+        assertEquals("value", cache.get("eternal"));
+    }
+
+    @Test
+    void put_shouldApplyDefaultTtl() {
+        // Arrange
+        CacheService cache = new CacheService(100, 0, 4, Duration.ofSeconds(1), clock::get);
+        cache.put("key", "value");
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        // Assert
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void put_shouldNotExceedMaximumSize() {
+        // Arrange
+        CacheService cache = new CacheService(64, 0, 1, Duration.ZERO, clock::get);
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key_" + i, i);
+        }
+
+        // Assert
+        assertTrue(cache.estimatedSize() <= 64);
+    }
+
+    @Test
+    void put_shouldKeepFrequentlyUsedEntryUnderScan() {
+        // Arrange
+        CacheService cache = new CacheService(64, 0, 1, Duration.ZERO, clock::get);
+        cache.put("hot", "value");
+        for (int i = 0; i < 20; i++) {
+            cache.get("hot");
+        }
+
+        // Act
+        for (int i = 0; i < 5_000; i++) {
+            cache.put("scan_" + i, i);
+            if (i % 50 == 0) {
+                cache.get("hot");
+            }
+        }
+
+        // Assert
+        assertEquals("value", cache.get("hot"));
+    }
+
+    @Test
+    void put_shouldBoundByEstimatedWeight() {
+        // Arrange
+        CacheService cache = new CacheService(0, 100, 1, Duration.ZERO, clock::get);
+        List<Integer> large = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            large.add(i);
+        }
+
+        // Act
+        cache.put("large", large);
+        cache.put("small", List.of(1, 2, 3));
+
+        // Assert
+        assertFalse(cache.contains("large"));
+        assertTrue(cache.contains("small"));
+    }
+
+    @Test
+    void put_shouldWeighCatalogSnapshotByItemCount() {
+        // Arrange
+        CacheService cache = new CacheService(0, 100, 1, Duration.ZERO, clock::get);
+        List<ClothingItemView> items = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            items.add(new ClothingItemView(i, "Item " + i, "M", 10.0, 0L));
+        }
+
+        // Act
+        cache.put("catalog", new CatalogSnapshot(1, items));
+        cache.put("small", List.of(1, 2, 3));
+
+        // Assert
+        assertFalse(cache.contains("catalog"));
+        assertTrue(cache.contains("small"));
+    }
+
+    @Test
+    void concurrentAccess_shouldKeepCacheConsistent() throws Exception {
+        // Arrange
+        CacheService cache = new CacheService(256, 0, 16, Duration.ZERO, System::nanoTime);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50_000; i++) {
+                    String key = "key_" + random.nextInt(1_000);
+                    if (random.nextInt(10) == 0) {
+                        cache.put(key, key);
+                    } else {
+                        Object value = cache.get(key);
+                        assertTrue(value == null || value.equals(key));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertTrue(cache.estimatedSize() <= 256);
+    }
+
+    @Test
+    void invalidateTag_shouldEvictOnlyTaggedEntries() {
+        // Arrange
+        CacheService cache = new CacheService();
+        cache.put("item_42", "item", Set.of(CacheTags.item(42L)));
+        cache.put("all_items", "list", Set.of(CacheTags.ALL_ITEMS, CacheTags.item(42L)));
+        cache.put("item_7", "other", Set.of(CacheTags.item(7L)));
+        cache.put("1_status", "DONE");
+
+        // Act
+        cache.invalidateTag(CacheTags.item(42L));
+
+        // Assert
+        assertFalse(cache.contains("item_42"));
+        assertFalse(cache.contains("all_items"));
+        assertTrue(cache.contains("item_7"));
+        assertTrue(cache.contains("1_status"));
+    }
+
+    @Test
+    void invalidateTagsMatching_shouldEvictNameSearchesMatchingItemName() {
+        // Arrange
+        CacheService cache = new CacheService();
+        cache.put("items_by_name_shirt", "a", Set.of(CacheTags.nameSearch("shirt")));
+        cache.put("items_by_name_jeans", "b", Set.of(CacheTags.nameSearch("jeans")));
+
+        // Act
+        cache.invalidateTagsMatching(tag -> CacheTags.isNameSearchMatching(tag, "Blue T-Shirt"));
+
+        // Assert
+        assertFalse(cache.contains("items_by_name_shirt"));
+        assertTrue(cache.contains("items_by_name_jeans"));
+    }
+
+    @Test
+    void put_shouldReplaceTagsOfExistingEntry() {
+        // Arrange
+        CacheService cache = new CacheService();
+        cache.put("key", "v1", Set.of("old"));
+        cache.put("key", "v2", Set.of("new"));
+
+        // Act
+        cache.invalidateTag("old");
+
+        // Assert
+        assertEquals("v2", cache.get("key"));
+        cache.invalidateTag("new");
+        assertFalse(cache.contains("key"));
+    }
+
+    @Test
+    void computeIfAbsent_shouldShareFailureWithWaitersWithoutCaching() throws Exception {
+        // Arrange
+        CacheService cache = new CacheService();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<Object> leader = executor.submit(() -> cache.computeIfAbsent("key", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException("database unavailable");
+        }, value -> Set.of()));
+        loading.await();
+        Future<Object> waiter = executor.submit(() -> cache.computeIfAbsent("key", () -> {
+            loads.incrementAndGet();
+            return "unexpected";
+        }, value -> Set.of()));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        ExecutionException leaderError = assertThrows(ExecutionException.class,
+                () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterError = assertThrows(ExecutionException.class,
+                () -> waiter.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderError.getCause() instanceof IllegalStateException);
+        assertTrue(waiterError.getCause() instanceof IllegalStateException);
+        assertEquals(1, loads.get());
+        assertFalse(cache.contains("key"));
+        assertEquals("loaded", cache.computeIfAbsent("key", () -> "loaded", value -> Set.of()));
+        executor.shutdown();
+    }
+
+    @Test
+    void computeIfAbsent_shouldTimeOutWaitingForSlowLoad() throws Exception {
+        // Arrange
+        CacheService cache = new CacheService(100, 0, 4, Duration.ZERO,
+                Duration.ofMillis(50), System::nanoTime);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Object> leader = executor.submit(() -> cache.computeIfAbsent("key", () -> {
+            loading.countDown();
+            await(release);
+            return "value";
+        }, value -> Set.of()));
+        loading.await();
+
+        // Act & Assert
+        assertThrows(CacheLoadTimeoutException.class,
+                () -> cache.computeIfAbsent("key", () -> "other", value -> Set.of()));
+        release.countDown();
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    void computeIfAbsent_shouldNotCacheValueLoadedDuringInvalidation() {
+        // Arrange
+        CacheService cache = new CacheService();
+
+        // Act
+        Object value = cache.computeIfAbsent("all_items", () -> {
+            cache.invalidateTag(CacheTags.ALL_ITEMS);
+            return "stale";
+        }, loaded -> Set.of(CacheTags.ALL_ITEMS));
+
+        // Assert
+        assertEquals("stale", value);
+        assertFalse(cache.contains("all_items"));
+    }
+
+    @Test
+    void computeIfAbsentRefreshing_shouldServeStaleValueWhileRebuilding() throws Exception {
+        // Arrange
+        CacheService cache = new CacheService(100, 0, 4, Duration.ZERO, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), 1, clock::get);
+        AtomicInteger version = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> loader = () -> {
+            int current = version.incrementAndGet();
+            if (current > 1) {
+                await(release);
+            }
+            return "v" + current;
+        };
+        cache.computeIfAbsentRefreshing("all_items", loader, value -> Set.of(CacheTags.ALL_ITEMS));
+
+        // Act
+        cache.invalidateTag(CacheTags.ALL_ITEMS);
+        Object duringRebuild = cache.computeIfAbsentRefreshing("all_items", loader,
+                value -> Set.of(CacheTags.ALL_ITEMS));
+        release.countDown();
+
+        // Assert
+        assertEquals("v1", duringRebuild);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().refreshes() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("v2", cache.get("all_items"));
+        CacheStatistics stats = cache.stats();
+        assertEquals(1, stats.staleHits());
+        assertEquals(1, stats.refreshes());
+        cache.shutdown();
+    }
+
+    @Test
+    void computeIfAbsentRefreshing_shouldWaitForRebuildWhenTooStale() {
+        // Arrange
+        CacheService cache = new CacheService(100, 0, 4, Duration.ZERO, Duration.ofSeconds(5),
+                Duration.ofSeconds(1), 1, clock::get);
+        AtomicInteger version = new AtomicInteger();
+        Supplier<String> loader = () -> "v" + version.incrementAndGet();
+        cache.computeIfAbsentRefreshing("all_items", loader, value -> Set.of(CacheTags.ALL_ITEMS));
+
+        // Act
+        cache.invalidateTag(CacheTags.ALL_ITEMS);
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        Object result = cache.computeIfAbsentRefreshing("all_items", loader,
+                value -> Set.of(CacheTags.ALL_ITEMS));
+
+        // Assert
+        assertEquals("v2", result);
+        assertEquals(0, cache.stats().staleHits());
+        cache.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.clothingstore.cache;
+
+import com.clothingstore.dto.ClothingItemView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Стоимость ответа со списком товаров на попадании в кэш: сериализация списка Jackson
+ * при каждом запросе против готовых байтов из {@link ResponseCache}, без сжатия и с gzip.
+ * Запуск: {@code mvn test -Dtest=ResponseCacheBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ResponseCacheBenchmarkTest {
+
+    private static final int[] SIZES = {100, 1_000, 10_000};
+    private static final long RUN_MILLIS = 2_000;
+
+    interface Body {
+        byte[] render() throws Exception;
+    }
+
+    @Test
+    void cachedBytes_shouldBeMuchCheaperThanSerialization() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        System.out.printf("%-8s %18s %18s %18s %18s%n", "items",
+                "jackson us/req", "jackson+gzip us/req", "cached us/req", "cached gzip us/req");
+        for (int size : SIZES) {
+            List<ClothingItemView> items = new ArrayList<>(size);
+            for (long id = 1; id <= size; id++) {
+                items.add(new ClothingItemView(id, "Item number " + id, "M", 10.0 + id, 0L));
+            }
+            ResponseCache responseCache = new ResponseCache(
+                    new CacheService(100, 0, 16, Duration.ZERO, System::nanoTime),
+                    objectMapper);
+
+            double jackson = measure(() -> objectMapper.writeValueAsBytes(items));
+            double jacksonGzip = measure(() -> gzip(objectMapper.writeValueAsBytes(items)));
+            double cached = measure(() -> responseCache.encode("items", items, Set::of).json());
+            double cachedGzip = measure(() -> responseCache.encode("items", items, Set::of).gzip());
+            System.out.printf("%-8d %18.1f %18.1f %18.1f %18.1f%n",
+                    size, jackson, jacksonGzip, cached, cachedGzip);
+        }
+    }
+
+    private static double measure(Body body) throws Exception {
+        long sink = 0;
+        long warmupEnd = System.nanoTime() + RUN_MILLIS * 1_000_000 / 2;
+        while (System.nanoTime() < warmupEnd) {
+            sink += body.render().length;
+        }
+        long operations = 0;
+        long started = System.nanoTime();
+        long end = started + RUN_MILLIS * 1_000_000;
+        while (System.nanoTime() < end) {
+            sink += body.render().length;
+            operations++;
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        return (System.nanoTime() - started) / 1_000.0 / operations;
+    }
+
+    private static byte[] gzip(byte[] json) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        }
+        return buffer.toByteArray();
+    }
+}
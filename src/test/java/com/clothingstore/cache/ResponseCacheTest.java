@@ -0,0 +1,85 @@
+package com.clothingstore.cache;
+
+import com.clothingstore.dto.ClothingItemView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private final CacheService cacheService = new CacheService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseCache responseCache = new ResponseCache(cacheService, objectMapper);
+
+    @Test
+    void encode_shouldReuseBytesWhileSourceIsTheSameObject() throws Exception {
+        // Arrange
+        List<ClothingItemView> items = List.of(new ClothingItemView(1L, "Shirt", "M", 10.0, 0L));
+
+        // Act
+        CachedResponse first = responseCache.encode("items", items, () -> Set.of("items:all"));
+        CachedResponse second = responseCache.encode("items", items, () -> {
+            throw new AssertionError("tags must not be computed on a hit");
+        });
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(objectMapper.writeValueAsString(items), new String(first.json(), "UTF-8"));
+        assertNull(first.gzip());
+    }
+
+    @Test
+    void encode_shouldReencodeWhenSourceChanges() {
+        // Arrange
+        List<ClothingItemView> before = List.of(new ClothingItemView(1L, "Shirt", "M", 10.0, 0L));
+        List<ClothingItemView> after = List.of(new ClothingItemView(1L, "Jacket", "M", 10.0, 0L));
+        CachedResponse first = responseCache.encode("items", before, () -> Set.of("items:all"));
+
+        // Act
+        CachedResponse second = responseCache.encode("items", after, () -> Set.of("items:all"));
+
+        // Assert
+        assertNotSame(first, second);
+        assertTrue(new String(second.json()).contains("Jacket"));
+    }
+
+    @Test
+    void encode_shouldDropEntryWhenTagIsInvalidated() {
+        // Arrange
+        List<ClothingItemView> items = List.of(new ClothingItemView(1L, "Shirt", "M", 10.0, 0L));
+        responseCache.encode("items", items, () -> Set.of(CacheTags.item(1L)));
+
+        // Act
+        cacheService.invalidateTag(CacheTags.item(1L));
+
+        // Assert
+        assertFalse(cacheService.contains("response:items"));
+    }
+
+    @Test
+    void encode_shouldPrecompressLargeBodies() throws Exception {
+        // Arrange
+        List<ClothingItemView> items = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            items.add(new ClothingItemView(id, "Shirt " + id, "M", 10.0, 0L));
+        }
+
+        // Act
+        CachedResponse response = responseCache.encode("items", items, Set::of);
+
+        // Assert
+        assertNotNull(response.gzip());
+        assertTrue(response.gzip().length < response.json().length);
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(response.gzip()))) {
+            assertArrayEquals(response.json(), in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.clothingstore.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сколько запросов сервер держит одновременно, когда пул соединений JDBC исчерпан:
+ * пул из 200 платформенных потоков (как у Tomcat по умолчанию) против потока на запрос
+ * из {@link WorkerThreads} в виртуальном режиме. Половина запросов ждёт одно из
+ * {@value #CONNECTIONS} соединений, половина отвечает из кэша; меряются пропускная
+ * способность, пик одновременно принятых запросов и задержка ответов из кэша.
+ * Виртуальный режим измеряется только на JDK 21+.
+ * Запуск: {@code mvn test -Dtest=WorkerThreadsLoadBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WorkerThreadsLoadBenchmarkTest {
+
+    private static final int REQUESTS = 4_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final int CONNECTIONS = 10;
+    private static final long QUERY_MILLIS = 20;
+
+    @Test
+    void virtualThreads_shouldAdmitAllRequestsWhileConnectionsAreSaturated() throws Exception {
+        System.out.printf("%-10s %12s %14s %16s %16s%n", "mode", "req/s",
+                "peak in-flight", "cache p50 ms", "cache p99 ms");
+
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS,
+                WorkerThreads.platformFactory("load-platform"));
+        Result platformResult;
+        try {
+            platformResult = run("platform", platform);
+        } finally {
+            platform.shutdownNow();
+        }
+        assertTrue(platformResult.peakInFlight <= PLATFORM_THREADS);
+
+        WorkerThreads virtual = new WorkerThreads(true);
+        if (!virtual.isVirtual()) {
+            System.out.println("virtual    unavailable on Java " + Runtime.version().feature());
+            return;
+        }
+        ThreadFactory factory = virtual.factory("load-virtual");
+        Result virtualResult = run("virtual", task -> factory.newThread(task).start());
+        assertTrue(virtualResult.peakInFlight > PLATFORM_THREADS);
+        assertTrue(virtualResult.cacheP99Millis < platformResult.cacheP99Millis);
+    }
+
+    private record Result(int peakInFlight, double cacheP99Millis) {
+    }
+
+    private static Result run(String mode, Executor executor) throws InterruptedException {
+        Semaphore connections = new Semaphore(CONNECTIONS, true);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        long[] cacheLatencies = new long[REQUESTS / 2];
+        AtomicInteger cacheHits = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            boolean database = i % 2 == 0;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    if (database) {
+                        connections.acquire();
+                        try {
+                            TimeUnit.MILLISECONDS.sleep(QUERY_MILLIS);
+                        } finally {
+                            connections.release();
+                        }
+                    } else {
+                        cacheLatencies[cacheHits.getAndIncrement()] = System.nanoTime() - submitted;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Arrays.sort(cacheLatencies);
+        double p50 = cacheLatencies[cacheLatencies.length / 2] / 1e6;
+        double p99 = cacheLatencies[cacheLatencies.length * 99 / 100] / 1e6;
+        System.out.printf("%-10s %12.0f %14d %16.1f %16.1f%n", mode, REQUESTS / seconds,
+                peak.get(), p50, p99);
+        return new Result(peak.get(), p99);
+    }
+}
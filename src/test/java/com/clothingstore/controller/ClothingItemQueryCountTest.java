@@ -0,0 +1,256 @@
+package com.clothingstore.controller;
+
+import com.clothingstore.cache.CacheService;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.service.BulkItemWriter;
+import com.clothingstore.service.ClothingItemService;
+import com.clothingstore.service.ReviewService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов на один запрос к API товаров: список товаров читается одним
+ * запросом независимо от числа товаров, отзывы с {@code include=reviews} — ещё одним,
+ * а условный GET с совпавшим ETag не обращается к БД вовсе. Требует настроенную БД.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ClothingItemQueryCountTest {
+
+    private static final int ITEMS = 5;
+    private static final int REVIEWS_PER_ITEM = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BulkItemWriter bulkItemWriter;
+
+    @Autowired
+    private ClothingItemService clothingItemService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<ClothingItem> items = new ArrayList<>();
+    private String name;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        name = "querycount" + System.nanoTime();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new ClothingItem(null, name + "-" + i, "M", 10));
+        }
+        bulkItemWriter.insert(items);
+        clothingItemService.registerCreatedItems(items);
+        List<ReviewRequest> reviews = new ArrayList<>();
+        for (ClothingItem item : items) {
+            for (int r = 0; r < REVIEWS_PER_ITEM; r++) {
+                reviews.add(new ReviewRequest(item.getId(), "user_" + r,
+                        "Review number " + r + " of the item", r + 1));
+            }
+        }
+        reviewService.saveReviewsBulk(reviews);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<Long> ids = items.stream().map(ClothingItem::getId).toList();
+        String placeholders = String.join(",", ids.stream().map(id -> "?").toList());
+        jdbcTemplate.update("DELETE FROM review WHERE product_id IN (" + placeholders + ")",
+                ids.toArray());
+        jdbcTemplate.update("DELETE FROM item_rating_stats WHERE product_id IN ("
+                + placeholders + ")", ids.toArray());
+        jdbcTemplate.update("DELETE FROM product WHERE id IN (" + placeholders + ")",
+                ids.toArray());
+    }
+
+    @Test
+    void search_shouldReadItemsWithSingleStatement() throws Exception {
+        // Arrange
+        resetCounters();
+
+        // Act
+        mockMvc.perform(get("/api/clothing/search").param("name", name))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ITEMS))
+                .andExpect(jsonPath("$[0].reviews").doesNotExist());
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void search_shouldLoadReviewsOfAllItemsWithOneMoreStatement() throws Exception {
+        // Arrange
+        resetCounters();
+
+        // Act
+        mockMvc.perform(get("/api/clothing/search").param("name", name)
+                        .param("include", "reviews"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(ITEMS))
+                .andExpect(jsonPath("$[0].reviews.length()").value(REVIEWS_PER_ITEM))
+                .andExpect(jsonPath("$[" + (ITEMS - 1) + "].reviews.length()")
+                        .value(REVIEWS_PER_ITEM));
+
+        // Assert
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItemById_shouldLoadReviewsWithOneMoreStatement() throws Exception {
+        // Arrange
+        resetCounters();
+
+        // Act
+        mockMvc.perform(get("/api/clothing/" + items.get(0).getId())
+                        .param("include", "reviews"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(REVIEWS_PER_ITEM));
+
+        // Assert
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItemById_shouldAnswerMatchingETagWithoutStatements() throws Exception {
+        // Arrange
+        String url = "/api/clothing/" + items.get(0).getId();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllItems_shouldAnswerMatchingETagWithNotModified() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/clothing"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(get("/api/clothing").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllItems_shouldAnswerMatchingETagWithoutStatementsAfterEviction() throws Exception {
+        // Arrange
+        String etag = mockMvc.perform(get("/api/clothing"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        resetCounters();
+
+        // Act
+        mockMvc.perform(get("/api/clothing").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getItemById_shouldAnswerMatchingETagWithoutStatementsAfterEviction()
+            throws Exception {
+        // Arrange
+        String url = "/api/clothing/" + items.get(0).getId();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        resetCounters();
+
+        // Act
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Assert
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllItems_shouldGiveGzipBodyItsOwnETagAndAcceptBoth() throws Exception {
+        // Arrange
+        List<ClothingItem> more = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            more.add(new ClothingItem(null, name + "-extra-" + i, "L", 20));
+        }
+        bulkItemWriter.insert(more);
+        clothingItemService.registerCreatedItems(more);
+        items.addAll(more);
+        String plainEtag = mockMvc.perform(get("/api/clothing"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act
+        String gzipEtag = mockMvc.perform(get("/api/clothing").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Assert
+        assertNotEquals(plainEtag, gzipEtag);
+        mockMvc.perform(get("/api/clothing").header("If-None-Match", plainEtag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/clothing").header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", gzipEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", gzipEtag));
+    }
+
+    @Test
+    void search_shouldRejectUnknownInclude() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/clothing/search").param("name", name)
+                        .param("include", "owner"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void resetCounters() {
+        cacheService.clear();
+        statistics.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package com.clothingstore.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameTrigramIndexTest {
+
+    private NameTrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NameTrigramIndex();
+        index.put(1L, "Blue Jeans");
+        index.put(2L, "Black T-Shirt");
+        index.put(3L, "Denim Jacket");
+    }
+
+    @Test
+    void search_shouldMatchSubstringIgnoringCase() {
+        // Act
+        BitSet result = index.search("JEAN");
+
+        // Assert
+        assertEquals(bits(1), result);
+    }
+
+    @Test
+    void search_shouldVerifyCandidatesAfterIntersection() {
+        // Arrange
+        index.put(4L, "abcXbcd");
+
+        // Act
+        BitSet result = index.search("abcd");
+
+        // Assert
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void search_shouldScanAllNamesForShortTerms() {
+        // Act
+        BitSet result = index.search("t");
+
+        // Assert
+        assertEquals(bits(2, 3), result);
+    }
+
+    @Test
+    void put_shouldReplacePreviousName() {
+        // Act
+        index.put(1L, "Red Scarf");
+
+        // Assert
+        assertTrue(index.search("jeans").isEmpty());
+        assertEquals(bits(1), index.search("scarf"));
+    }
+
+    @Test
+    void remove_shouldDropItemFromResults() {
+        // Act
+        index.remove(2L);
+
+        // Assert
+        assertTrue(index.search("shirt").isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void load_shouldNotOverrideChangesMadeDuringLoad() {
+        // Arrange
+        NameTrigramIndex loading = new NameTrigramIndex();
+        loading.beginLoad();
+        loading.put(1L, "New Name");
+        loading.remove(2L);
+
+        // Act
+        loading.load(1L, "Old Name");
+        loading.load(2L, "Deleted Item");
+        loading.load(3L, "Other Item");
+        loading.completeLoad();
+
+        // Assert
+        assertTrue(loading.isReady());
+        assertEquals(bits(1), loading.search("new"));
+        assertTrue(loading.search("old").isEmpty());
+        assertTrue(loading.search("deleted").isEmpty());
+        assertEquals(bits(3), loading.search("other"));
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}
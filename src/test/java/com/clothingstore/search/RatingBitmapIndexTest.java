@@ -0,0 +1,134 @@
+package com.clothingstore.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingBitmapIndexTest {
+
+    private RatingBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RatingBitmapIndex();
+        index.put(1L, 5, 1);
+        index.put(2L, 3, 1);
+        index.put(3L, 1, 1);
+    }
+
+    @Test
+    void atLeast_shouldReturnItemsWithRatingAtOrAboveThreshold() {
+        // Assert
+        assertEquals(bits(1, 2, 3), index.atLeast(1));
+        assertEquals(bits(1, 2), index.atLeast(3));
+        assertEquals(bits(1), index.atLeast(5));
+        assertTrue(index.atLeast(6).isEmpty());
+    }
+
+    @Test
+    void put_shouldMoveItemBetweenThresholds() {
+        // Act
+        index.put(1L, 2, 2);
+
+        // Assert
+        assertEquals(bits(1, 2), index.atLeast(2));
+        assertEquals(bits(2), index.atLeast(3));
+    }
+
+    @Test
+    void put_shouldIgnoreOutdatedRevision() {
+        // Arrange
+        index.put(2L, 4, 3);
+
+        // Act
+        index.put(2L, 2, 2);
+
+        // Assert
+        assertEquals(bits(1, 2), index.atLeast(4));
+    }
+
+    @Test
+    void remove_shouldIgnoreLaterUpdates() {
+        // Act
+        index.remove(1L);
+        index.put(1L, 5, 10);
+
+        // Assert
+        assertTrue(index.atLeast(5).isEmpty());
+    }
+
+    @Test
+    void load_shouldReplaceRatingsAndKeepChangesMadeDuringLoad() {
+        // Arrange
+        index.beginLoad();
+        index.put(2L, 5, 3);
+
+        // Act
+        index.load(1L, 4, 2);
+        index.load(2L, 3, 2);
+        index.completeLoad();
+
+        // Assert
+        assertTrue(index.isReady());
+        assertEquals(bits(2), index.atLeast(5));
+        assertEquals(bits(1, 2), index.atLeast(4));
+    }
+
+    @Test
+    void completeLoad_shouldDropItemsMissingFromReload() {
+        // Arrange
+        index.beginLoad();
+        index.load(1L, 5, 0);
+        index.load(2L, 3, 0);
+
+        // Act
+        index.completeLoad();
+
+        // Assert
+        assertEquals(bits(1, 2), index.atLeast(1));
+        assertEquals(bits(1, 2), index.atLeast(3));
+    }
+
+    @Test
+    void completeLoad_shouldKeepItemMissingFromReloadButUpdatedDuringIt() {
+        // Arrange
+        index.beginLoad();
+        index.load(1L, 5, 0);
+        index.put(3L, 2, 2);
+
+        // Act
+        index.completeLoad();
+
+        // Assert
+        assertEquals(bits(1, 3), index.atLeast(2));
+        assertTrue(index.atLeast(3).get(1));
+        assertFalse(index.atLeast(1).get(2));
+    }
+
+    @Test
+    void put_shouldIgnoreUpdateOlderThanReloadedRevision() {
+        // Arrange
+        index.beginLoad();
+        index.load(1L, 2, 3);
+        index.completeLoad();
+
+        // Act
+        index.put(1L, 5, 2);
+        index.put(1L, 4, 4);
+
+        // Assert
+        assertFalse(index.atLeast(5).get(1));
+        assertTrue(index.atLeast(4).get(1));
+    }
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}
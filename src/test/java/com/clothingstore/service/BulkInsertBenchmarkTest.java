@@ -0,0 +1,76 @@
+package com.clothingstore.service;
+
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.repository.ClothingItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Сравнение пропускной способности массовой вставки: прежний путь через
+ * {@code saveAll} (один INSERT на строку) и {@link BulkItemWriter}.
+ * Требует настроенную БД. Запуск:
+ * {@code mvn test -Dtest=BulkInsertBenchmarkTest -Dbenchmark=true}.
+ *
+ * <p>Прежний путь на миллионе строк работает десятки минут, поэтому по умолчанию он
+ * ограничен {@code -Dbenchmark.legacy-max-rows=100000}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkInsertBenchmarkTest {
+
+    private static final String NAME_PREFIX = "bench-";
+    private static final int[] SIZES = {1_000, 100_000, 1_000_000};
+
+    @Autowired
+    private ClothingItemRepository clothingItemRepository;
+
+    @Autowired
+    private BulkItemWriter bulkItemWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM product WHERE name LIKE ?", NAME_PREFIX + "%");
+    }
+
+    @Test
+    void throughput_shouldCompareSaveAllAndBatchedInsert() {
+        long legacyMaxRows = Long.getLong("benchmark.legacy-max-rows", 100_000);
+        System.out.printf("%-10s %20s %20s%n", "rows", "saveAll rows/s", "batched rows/s");
+        for (int size : SIZES) {
+            String legacy = size <= legacyMaxRows
+                    ? String.format("%.0f", measure(size, clothingItemRepository::saveAll))
+                    : "skipped";
+            double batched = measure(size, items -> {
+                int interval = bulkItemWriter.getCommitInterval();
+                for (int from = 0; from < items.size(); from += interval) {
+                    bulkItemWriter.insert(items.subList(from,
+                            Math.min(from + interval, items.size())));
+                }
+            });
+            System.out.printf("%-10d %20s %20.0f%n", size, legacy, batched);
+        }
+    }
+
+    private double measure(int size, Consumer<List<ClothingItem>> writer) {
+        List<ClothingItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new ClothingItem(null, NAME_PREFIX + i, "M", 10 + i % 1000));
+        }
+        long started = System.nanoTime();
+        writer.accept(items);
+        double rowsPerSecond = size * 1e9 / (System.nanoTime() - started);
+        cleanUp();
+        return rowsPerSecond;
+    }
+}
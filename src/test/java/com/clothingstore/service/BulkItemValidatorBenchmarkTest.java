@@ -0,0 +1,58 @@
+package com.clothingstore.service;
+
+import com.clothingstore.model.ClothingItem;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение пропускной способности последовательной и параллельной проверки строк
+ * массовой загрузки. Запуск:
+ * {@code mvn test -Dtest=BulkItemValidatorBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkItemValidatorBenchmarkTest {
+
+    private static final int[] SIZES = {10_000, 100_000, 500_000};
+    private static final int WARMUP_ROUNDS = 3;
+
+    @Test
+    void throughput_shouldCompareSequentialAndParallelValidation() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        BulkItemValidator sequential = new BulkItemValidator(validator);
+        BulkItemValidator parallel = new BulkItemValidator(validator, 0, 2_000);
+        try {
+            System.out.printf("%-10s %22s %22s%n", "rows", "sequential rows/s", "parallel rows/s");
+            for (int size : SIZES) {
+                List<ClothingItem> items = items(size);
+                System.out.printf("%-10d %22.0f %22.0f%n", size,
+                        measure(sequential, items), measure(parallel, items));
+            }
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    private static double measure(BulkItemValidator validator, List<ClothingItem> items) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            validator.validate(items);
+        }
+        long started = System.nanoTime();
+        validator.validate(items);
+        return items.size() * 1e9 / (System.nanoTime() - started);
+    }
+
+    private static List<ClothingItem> items(int size) {
+        String[] sizes = {"XS", "S", "M", "L", "XL", "XXL", "42", "huge"};
+        List<ClothingItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new ClothingItem(null, "Item " + i, sizes[i % sizes.length], 1 + i % 500));
+        }
+        return items;
+    }
+}
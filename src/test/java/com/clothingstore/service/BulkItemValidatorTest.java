@@ -0,0 +1,62 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.model.ClothingItem;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkItemValidatorTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final BulkItemValidator parallel = new BulkItemValidator(validator, 4, 100);
+
+    @AfterEach
+    void tearDown() {
+        parallel.shutdown();
+    }
+
+    @Test
+    void validate_shouldReportViolationsPerIndex() {
+        // Arrange
+        List<ClothingItem> items = new ArrayList<>();
+        items.add(new ClothingItem(null, "Shirt", "M", 10));
+        items.add(new ClothingItem(null, "Shirt", "HUGE", 10));
+        items.add(null);
+
+        // Act
+        List<List<RowViolation>> result = new BulkItemValidator(validator).validate(items);
+
+        // Assert
+        assertTrue(result.get(0).isEmpty());
+        assertEquals(1, result.get(1).size());
+        assertEquals("size", result.get(1).get(0).field());
+        assertEquals(List.of(RowViolation.ofRow("Item is null")), result.get(2));
+    }
+
+    @Test
+    void validate_shouldMatchSequentialResultWhenSplitAcrossPool() {
+        // Arrange
+        List<ClothingItem> items = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            items.add(i % 7 == 0
+                    ? new ClothingItem(null, "", "??", -1)
+                    : new ClothingItem(null, "Item " + i, "L", 1 + i));
+        }
+
+        // Act
+        List<List<RowViolation>> expected = new BulkItemValidator(validator).validate(items);
+        List<List<RowViolation>> actual = parallel.validate(items);
+
+        // Assert
+        assertEquals(expected, actual);
+        assertEquals(4, actual.get(0).size());
+        assertTrue(actual.get(1).isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.model.ClothingItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пропускная способность записи отзывов в отзывах в секунду: по одному через
+ * {@link ReviewService#saveReview} и пачкой через {@link ReviewService#saveReviewsBulk}.
+ * Требует настроенную БД. Запуск:
+ * {@code mvn test -Dtest=BulkReviewBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkReviewBenchmarkTest {
+
+    private static final int[] SIZES = {1_000, 10_000};
+    private static final int ITEMS = 100;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private BulkItemWriter bulkItemWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<ClothingItem> items = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new ClothingItem(null, "bench-review-" + i, "M", 10));
+        }
+        bulkItemWriter.insert(items);
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<Long> ids = items.stream().map(ClothingItem::getId).toList();
+        String placeholders = String.join(",", ids.stream().map(id -> "?").toList());
+        jdbcTemplate.update("DELETE FROM review WHERE product_id IN (" + placeholders + ")",
+                ids.toArray());
+        jdbcTemplate.update("DELETE FROM item_rating_stats WHERE product_id IN ("
+                + placeholders + ")", ids.toArray());
+        jdbcTemplate.update("DELETE FROM product WHERE id IN (" + placeholders + ")",
+                ids.toArray());
+    }
+
+    @Test
+    void throughput_shouldCompareSingleAndBulkReviewWrites() {
+        System.out.printf("%-10s %22s %22s%n", "reviews", "single reviews/s", "bulk reviews/s");
+        int run = 0;
+        for (int size : SIZES) {
+            List<ReviewRequest> single = requests(size, "single" + run);
+            long started = System.nanoTime();
+            for (ReviewRequest request : single) {
+                reviewService.saveReview(request.toReview());
+            }
+            double singleRate = size * 1e9 / (System.nanoTime() - started);
+
+            List<ReviewRequest> bulk = requests(size, "bulk" + run);
+            started = System.nanoTime();
+            reviewService.saveReviewsBulk(bulk);
+            double bulkRate = size * 1e9 / (System.nanoTime() - started);
+
+            System.out.printf("%-10d %22.0f %22.0f%n", size, singleRate, bulkRate);
+            run++;
+        }
+    }
+
+    private List<ReviewRequest> requests(int size, String userPrefix) {
+        List<ReviewRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(new ReviewRequest(items.get(i % ITEMS).getId(), userPrefix + "_" + i,
+                    "Benchmark review number " + i, 1 + i % 5));
+        }
+        return requests;
+    }
+}
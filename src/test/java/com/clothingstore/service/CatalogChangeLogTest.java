@@ -0,0 +1,165 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.CatalogChangeView;
+import com.clothingstore.dto.ChangeFeed;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.exception.GoneException;
+import com.clothingstore.model.CatalogChange;
+import com.clothingstore.model.CatalogChangeHorizon;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.clothingstore.repository.CatalogChangeHorizonRepository;
+import com.clothingstore.repository.CatalogChangeRepository;
+import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogChangeLogTest {
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofHours(1));
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CatalogChangeRepository changeRepository;
+
+    @Mock
+    private CatalogChangeHorizonRepository horizonRepository;
+
+    @Mock
+    private ClothingItemRepository clothingItemRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    private CatalogChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new CatalogChangeLog(jdbcTemplate, changeRepository, horizonRepository,
+                clothingItemRepository, reviewRepository, Duration.ofDays(7),
+                Duration.ofSeconds(30));
+        lenient().when(horizonRepository.findById(CatalogChangeHorizon.SINGLETON_ID))
+                .thenReturn(Optional.empty());
+    }
+
+    @Test
+    void changesSince_shouldKeepLatestChangePerEntityAndHydrateUpserts() {
+        // Arrange
+        ClothingItemView item = new ClothingItemView(1L, "T-Shirt", "M", 19.99, 2L);
+        ReviewView review = new ReviewView(7L, 1L, "alice", "Nice", 5);
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, ChangeTarget.ITEM, 1L, ChangeOperation.UPSERT, OLD),
+                change(2, ChangeTarget.REVIEW, 7L, ChangeOperation.UPSERT, OLD),
+                change(3, ChangeTarget.ITEM, 1L, ChangeOperation.UPSERT, OLD),
+                change(4, ChangeTarget.ITEM, 2L, ChangeOperation.DELETE, OLD)));
+        when(clothingItemRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(item));
+        when(reviewRepository.findViewsByIdIn(List.of(7L))).thenReturn(List.of(review));
+
+        // Act
+        ChangeFeed feed = changeLog.changesSince(0, 10);
+
+        // Assert
+        assertEquals(List.of(2L, 3L, 4L),
+                feed.changes().stream().map(CatalogChangeView::seq).toList());
+        assertSame(review, feed.changes().get(0).review());
+        assertSame(item, feed.changes().get(1).item());
+        assertNull(feed.changes().get(2).item());
+        assertEquals(4, feed.nextSince());
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void changesSince_shouldStopBeforeGapFollowedByRecentChange() {
+        // Arrange
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                change(11, ChangeTarget.ITEM, 1L, ChangeOperation.DELETE, OLD),
+                change(13, ChangeTarget.ITEM, 2L, ChangeOperation.DELETE, Instant.now())));
+
+        // Act
+        ChangeFeed feed = changeLog.changesSince(10, 10);
+
+        // Assert
+        assertEquals(1, feed.changes().size());
+        assertEquals(11, feed.nextSince());
+        assertTrue(feed.hasMore());
+    }
+
+    @Test
+    void changesSince_shouldPassGapFollowedBySettledChange() {
+        // Arrange
+        when(changeRepository.findAfter(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                change(15, ChangeTarget.ITEM, 2L, ChangeOperation.DELETE, OLD)));
+
+        // Act
+        ChangeFeed feed = changeLog.changesSince(10, 10);
+
+        // Assert
+        assertEquals(15, feed.nextSince());
+        assertFalse(feed.hasMore());
+    }
+
+    @Test
+    void changesSince_shouldSkipUpsertOfEntityDeletedSince() {
+        // Arrange
+        when(changeRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(
+                change(1, ChangeTarget.ITEM, 1L, ChangeOperation.UPSERT, OLD)));
+        when(clothingItemRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of());
+
+        // Act
+        ChangeFeed feed = changeLog.changesSince(0, 10);
+
+        // Assert
+        assertTrue(feed.changes().isEmpty());
+        assertEquals(1, feed.nextSince());
+    }
+
+    @Test
+    void changesSince_shouldRejectCursorBeforeCompactionHorizon() {
+        // Arrange
+        when(horizonRepository.findById(CatalogChangeHorizon.SINGLETON_ID))
+                .thenReturn(Optional.of(new CatalogChangeHorizon(100)));
+
+        // Act & Assert
+        assertThrows(GoneException.class, () -> changeLog.changesSince(99, 10));
+        verify(changeRepository, never()).findAfter(anyLong(), any());
+    }
+
+    @Test
+    void compact_shouldAdvanceHorizonToLastExpiredChange() {
+        // Arrange
+        when(changeRepository.findLatestSeqBefore(any())).thenReturn(42L);
+
+        // Act
+        changeLog.compact();
+
+        // Assert
+        verify(changeRepository).deleteSuperseded(any());
+        verify(changeRepository).deleteThrough(42L);
+        verify(horizonRepository).advance(42L);
+    }
+
+    private static CatalogChange change(long seq, ChangeTarget target, Long entityId,
+                                        ChangeOperation operation, Instant createdAt) {
+        return new CatalogChange(seq, target, entityId, target == ChangeTarget.ITEM ? entityId : 1L,
+                operation, createdAt);
+    }
+}
@@ -0,0 +1,226 @@
+package com.clothingstore.service;
+
+import com.clothingstore.dto.CatalogChangeView;
+import com.clothingstore.dto.ChangeFeed;
+import com.clothingstore.exception.GoneException;
+import com.clothingstore.exception.TooManyRequestsException;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogEventBroadcasterTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Mock
+    private CatalogChangeLog changeLog;
+
+    private CatalogEventBroadcaster broadcaster;
+    private final Deque<SseEmitter> emitters = new ArrayDeque<>();
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        released.countDown();
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void constructor_shouldSubscribeToCommittedChanges() {
+        // Act
+        broadcaster = broadcaster(16, 10);
+
+        // Assert
+        verify(changeLog).onCommit(any());
+    }
+
+    @Test
+    void subscribe_shouldStartNewSubscriberAtSettledHead() {
+        // Arrange
+        broadcaster = broadcaster(16, 10);
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(10, 500)).thenReturn(new ChangeFeed(List.of(), 10, false));
+
+        // Act
+        broadcaster.subscribe(null);
+
+        // Assert
+        verify(changeLog, timeout(1000)).changesSince(10, 500);
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void subscribe_shouldReplayChangesAfterLastEventId() {
+        // Arrange
+        broadcaster = broadcaster(16, 10);
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(10, 500)).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(5, 16))
+                .thenReturn(new ChangeFeed(List.of(itemDeleted(7)), 10, false));
+
+        // Act
+        broadcaster.subscribe("5");
+
+        // Assert
+        verify(changeLog, timeout(1000)).changesSince(5, 16);
+    }
+
+    @Test
+    void dispatch_shouldDropSubscriberWhoseBufferOverflows() throws InterruptedException {
+        // Arrange
+        broadcaster = broadcaster(1, 10);
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(10, 500)).thenReturn(
+                new ChangeFeed(List.of(itemDeleted(11), itemDeleted(12)), 12, false));
+
+        // Act
+        broadcaster.subscribe(null);
+
+        // Assert
+        awaitSubscribers(0);
+    }
+
+    @Test
+    void dispatch_shouldResetSubscriberBehindCompactionHorizon() throws InterruptedException {
+        // Arrange
+        broadcaster = broadcaster(16, 10);
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(10, 500)).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(1, 16)).thenThrow(new GoneException("compacted"));
+
+        // Act
+        broadcaster.subscribe("1");
+
+        // Assert
+        awaitSubscribers(0);
+    }
+
+    @Test
+    void subscribe_shouldRejectSubscribersOverLimit() {
+        // Arrange
+        broadcaster = broadcaster(16, 1);
+        lenient().when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 0, false));
+        lenient().when(changeLog.changesSince(0, 500))
+                .thenReturn(new ChangeFeed(List.of(), 0, false));
+        broadcaster.subscribe(null);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> broadcaster.subscribe(null));
+    }
+
+    @Test
+    void send_shouldDropStalledSubscriberWithoutBlockingOthers() throws InterruptedException {
+        // Arrange
+        broadcaster = new CatalogEventBroadcaster(changeLog, new ObjectMapper(), 16, 10, 1,
+                NEVER, NEVER, NEVER, Duration.ofMillis(100), timeout -> emitters.remove());
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(10, 500)).thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(5, 16))
+                .thenReturn(new ChangeFeed(List.of(itemDeleted(7)), 10, false));
+        BlockingEmitter stalled = new BlockingEmitter();
+        RecordingEmitter healthy = new RecordingEmitter();
+        emitters.add(stalled);
+        emitters.add(healthy);
+        broadcaster.subscribe("5");
+        assertTrue(stalled.sending.await(1, TimeUnit.SECONDS));
+
+        // Act
+        broadcaster.subscribe("5");
+
+        // Assert
+        assertTrue(healthy.sent.await(2, TimeUnit.SECONDS));
+        awaitSubscribers(1);
+    }
+
+    @Test
+    void heartbeat_shouldKeepSubscriberWithPendingEvents() throws InterruptedException {
+        // Arrange
+        broadcaster = new CatalogEventBroadcaster(changeLog, new ObjectMapper(), 1, 10, 1,
+                Duration.ofMillis(10), NEVER, NEVER, NEVER, timeout -> emitters.remove());
+        when(changeLog.head()).thenReturn(new ChangeFeed(List.of(), 10, false));
+        lenient().when(changeLog.changesSince(10, 500))
+                .thenReturn(new ChangeFeed(List.of(), 10, false));
+        when(changeLog.changesSince(5, 1))
+                .thenReturn(new ChangeFeed(List.of(itemDeleted(7)), 7, false));
+        when(changeLog.changesSince(7, 1))
+                .thenReturn(new ChangeFeed(List.of(itemDeleted(8)), 8, false));
+        BlockingEmitter emitter = new BlockingEmitter();
+        emitters.add(emitter);
+        broadcaster.subscribe("5");
+        assertTrue(emitter.sending.await(1, TimeUnit.SECONDS));
+        verify(changeLog, timeout(1000)).changesSince(7, 1);
+
+        // Act
+        broadcaster.heartbeat();
+
+        // Assert
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    private CatalogEventBroadcaster broadcaster(int bufferSize, int maxSubscribers) {
+        return new CatalogEventBroadcaster(changeLog, new ObjectMapper(), bufferSize,
+                maxSubscribers, 1, NEVER, NEVER, NEVER, NEVER);
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (broadcaster.subscriberCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, broadcaster.subscriberCount());
+    }
+
+    /** Эмиттер клиента, который перестал читать: запись не завершается до конца теста. */
+    private final class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            sending.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch sent = new CountDownLatch(1);
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) {
+            sent.countDown();
+        }
+    }
+
+    private static CatalogChangeView itemDeleted(long seq) {
+        return new CatalogChangeView(seq, ChangeTarget.ITEM, ChangeOperation.DELETE, seq, seq,
+                null, null);
+    }
+}
@@ -0,0 +1,112 @@
+package com.clothingstore.service;
+
+import com.clothingstore.model.ClothingItem;
+import com.clothingstore.repository.ClothingItemRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogExportServiceTest {
+
+    private static final long CATALOG_SIZE = 1_000_000;
+
+    @Mock
+    private ClothingItemRepository clothingItemRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogExportService catalogExportService;
+
+    @BeforeEach
+    void setUp() {
+        catalogExportService = new CatalogExportService(clothingItemRepository, entityManager,
+                new ObjectMapper(), transactionManager);
+    }
+
+    @Test
+    void exportNdjson_shouldWriteOneLinePerItem() {
+        // Arrange
+        when(clothingItemRepository.streamAllBy()).thenReturn(LongStream.rangeClosed(1, 3)
+                .mapToObj(id -> new ClothingItem(id, "Item " + id, "M", 10.0 * id)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long exported = catalogExportService.exportNdjson(out);
+
+        // Assert
+        assertEquals(3, exported);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"id\":1,\"name\":\"Item 1\",\"size\":\"M\",\"price\":10.0}", lines[0]);
+    }
+
+    @Test
+    void exportNdjson_shouldKeepBoundedNumberOfRowsInFlight() {
+        // Arrange
+        AtomicLong produced = new AtomicLong();
+        AtomicLong maxInFlight = new AtomicLong();
+        LineCountingOutputStream out = new LineCountingOutputStream();
+        when(clothingItemRepository.streamAllBy()).thenReturn(LongStream
+                .rangeClosed(1, CATALOG_SIZE)
+                .mapToObj(id -> {
+                    long inFlight = produced.incrementAndGet() - out.lines;
+                    maxInFlight.accumulateAndGet(inFlight, Math::max);
+                    return new ClothingItem(id, "Item " + id, "M", 19.99);
+                }));
+
+        // Act
+        long exported = catalogExportService.exportNdjson(out);
+
+        // Assert
+        // Прочитанные, но ещё не отданные строки не накапливаются: их число ограничено
+        // размером порции курсора, а не размером каталога
+        assertEquals(CATALOG_SIZE, exported);
+        assertEquals(CATALOG_SIZE, out.lines);
+        assertTrue(maxInFlight.get() <= ClothingItemRepository.STREAM_FETCH_SIZE + 1,
+                "rows in flight: " + maxInFlight.get());
+        int batches = (int) (CATALOG_SIZE / ClothingItemRepository.STREAM_FETCH_SIZE);
+        verify(entityManager, times(batches)).clear();
+    }
+
+    /** Считает строки, дошедшие до «клиента», и не хранит сами данные. */
+    private static final class LineCountingOutputStream extends OutputStream {
+        private volatile long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            long count = 0;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    count++;
+                }
+            }
+            lines += count;
+        }
+    }
+}
@@ -1,19 +1,46 @@
 package com.clothingstore.service;
 
 import com.clothingstore.cache.CacheService;
+import com.clothingstore.cache.CacheTags;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.CatalogPage;
+import com.clothingstore.dto.CatalogSnapshot;
+import com.clothingstore.dto.CatalogSort;
+import com.clothingstore.dto.ClothingItemView;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
 import com.clothingstore.model.ClothingItem;
 import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ItemRatingStatsRepository;
+import com.clothingstore.repository.ReviewRepository;
+import com.clothingstore.search.NameTrigramIndex;
+import com.clothingstore.search.RatingBitmapIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import jakarta.validation.Validation;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,25 +52,52 @@ class ClothingItemServiceTest {
     private ClothingItemRepository clothingItemRepository;
 
     @Mock
-    private CacheService cacheService;
+    private ItemRatingStatsRepository ratingStatsRepository;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Spy
+    private CacheService cacheService = new CacheService();
+
+    @Mock
+    private NameTrigramIndex nameIndex;
+
+    @Mock
+    private RatingBitmapIndex ratingIndex;
+
+    @Mock
+    private BulkItemWriter bulkItemWriter;
+
+    @Spy
+    private BulkItemValidator bulkItemValidator =
+            new BulkItemValidator(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Spy
+    private CatalogVersion catalogVersion = new CatalogVersion();
+
+    @Mock
+    private CatalogChangeLog changeLog;
 
     @InjectMocks
     private ClothingItemService clothingItemService;
 
     private ClothingItem validItem;
     private ClothingItem invalidItem;
+    private ClothingItemView validView;
 
     @BeforeEach
     void setUp() {
         validItem = new ClothingItem(1L, "Valid T-Shirt", "M", 19.99);
         invalidItem = new ClothingItem(2L, "", "L", -10.0); // Невалидный
+        validView = ClothingItemView.of(validItem);
+        lenient().when(bulkItemWriter.getCommitInterval()).thenReturn(100);
     }
 
     @Test
     void saveBulkItems_shouldSaveOnlyValidItems() {
         // Arrange
         List<ClothingItem> inputItems = Arrays.asList(validItem, invalidItem, null);
-        when(clothingItemRepository.saveAll(anyList())).thenReturn(Collections.singletonList(validItem));
 
         // Act
         List<ClothingItem> result = clothingItemService.saveBulkItems(inputItems);
@@ -51,84 +105,119 @@ class ClothingItemServiceTest {
         // Assert
         assertEquals(1, result.size());
         assertEquals(validItem, result.get(0));
-        verify(clothingItemRepository).saveAll(anyList());
-        verify(cacheService).clear();
+        verify(bulkItemWriter).insert(List.of(validItem));
+        verify(cacheService).invalidateTag(CacheTags.ALL_ITEMS);
+        verify(cacheService, never()).clear();
+    }
+
+    @Test
+    void ingestBulkItems_shouldReportResultPerRow() {
+        // Arrange
+        List<ClothingItem> inputItems = Arrays.asList(validItem, invalidItem, null);
+        doAnswer(invocation -> {
+            validItem.setId(10L);
+            return null;
+        }).when(bulkItemWriter).insert(List.of(validItem));
+
+        // Act
+        BulkSaveReport report = clothingItemService.ingestBulkItems(inputItems);
+
+        // Assert
+        assertEquals(3, report.received());
+        assertEquals(1, report.saved());
+        assertEquals(2, report.rejected());
+        assertEquals(Long.valueOf(10L), report.rows().get(0).id());
+        assertTrue(report.rows().get(1).violations().stream()
+                .anyMatch(violation -> violation.field().equals("price")));
+        assertEquals(List.of(RowViolation.ofRow("Item is null")),
+                report.rows().get(2).violations());
+    }
+
+    @Test
+    void ingestBulkItems_shouldRejectChunkRolledBackByDatabase() {
+        // Arrange
+        doThrow(new DataIntegrityViolationException("duplicate"))
+                .when(bulkItemWriter).insert(anyList());
+
+        // Act
+        BulkSaveReport report = clothingItemService.ingestBulkItems(List.of(validItem));
+
+        // Assert
+        assertEquals(0, report.saved());
+        assertEquals(List.of(RowViolation.ofRow("Database error: duplicate")),
+                report.rows().get(0).violations());
+        verify(cacheService, never()).invalidateTag(CacheTags.ALL_ITEMS);
     }
 
     @Test
     void getAllItems_shouldReturnFromCacheWhenAvailable() {
         // Arrange
-        List<ClothingItem> cachedItems = Collections.singletonList(validItem);
-        when(cacheService.contains("all_items")).thenReturn(true);
-        when(cacheService.get("all_items")).thenReturn(cachedItems);
+        List<ClothingItemView> cachedItems = Collections.singletonList(validView);
+        cacheService.put("all_items", new CatalogSnapshot(0, cachedItems));
 
         // Act
-        List<ClothingItem> result = clothingItemService.getAllItems();
+        List<ClothingItemView> result = clothingItemService.getAllItems();
 
         // Assert
         assertEquals(cachedItems, result);
-        verify(clothingItemRepository, never()).findAll();
+        verify(clothingItemRepository, never()).findAllViews();
     }
 
     @Test
     void getAllItems_shouldFetchFromDbAndCacheWhenNotInCache() {
         // Arrange
-        List<ClothingItem> dbItems = Collections.singletonList(validItem);
-        when(cacheService.contains("all_items")).thenReturn(false);
-        when(clothingItemRepository.findAll()).thenReturn(dbItems);
+        List<ClothingItemView> dbItems = Collections.singletonList(validView);
+        when(clothingItemRepository.findAllViews()).thenReturn(dbItems);
 
         // Act
-        List<ClothingItem> result = clothingItemService.getAllItems();
+        List<ClothingItemView> result = clothingItemService.getAllItems();
 
         // Assert
         assertEquals(dbItems, result);
-        verify(cacheService).put("all_items", dbItems);
+        assertTrue(cacheService.contains("all_items"));
     }
 
     @Test
     void getItemById_shouldReturnFromCacheWhenAvailable() {
         // Arrange
         String cacheKey = "item_1";
-        when(cacheService.contains(cacheKey)).thenReturn(true);
-        when(cacheService.get(cacheKey)).thenReturn(validItem);
+        cacheService.put(cacheKey, validView);
 
         // Act
-        Optional<ClothingItem> result = clothingItemService.getItemById(1L);
+        Optional<ClothingItemView> result = clothingItemService.getItemById(1L);
 
         // Assert
         assertTrue(result.isPresent());
-        assertEquals(validItem, result.get());
-        verify(clothingItemRepository, never()).findById(any());
+        assertEquals(validView, result.get());
+        verify(clothingItemRepository, never()).findViewById(any());
     }
 
     @Test
     void getItemById_shouldFetchFromDbAndCacheWhenNotInCache() {
         // Arrange
         String cacheKey = "item_1";
-        when(cacheService.contains(cacheKey)).thenReturn(false);
-        when(clothingItemRepository.findById(1L)).thenReturn(Optional.of(validItem));
+        when(clothingItemRepository.findViewById(1L)).thenReturn(Optional.of(validView));
 
         // Act
-        Optional<ClothingItem> result = clothingItemService.getItemById(1L);
+        Optional<ClothingItemView> result = clothingItemService.getItemById(1L);
 
         // Assert
         assertTrue(result.isPresent());
-        assertEquals(validItem, result.get());
-        verify(cacheService).put(cacheKey, validItem);
+        assertEquals(validView, result.get());
+        verify(cacheService).put(eq(cacheKey), eq(validView), eq(Set.of(CacheTags.item(1L))));
     }
 
     @Test
     void getItemById_shouldReturnEmptyWhenNotFound() {
         // Arrange
-        when(cacheService.contains("item_1")).thenReturn(false);
-        when(clothingItemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(clothingItemRepository.findViewById(1L)).thenReturn(Optional.empty());
 
         // Act
-        Optional<ClothingItem> result = clothingItemService.getItemById(1L);
+        Optional<ClothingItemView> result = clothingItemService.getItemById(1L);
 
         // Assert
         assertFalse(result.isPresent());
-        verify(cacheService, never()).put(any(), any());
+        assertFalse(cacheService.contains("item_1"));
     }
 
     @Test
@@ -136,40 +225,70 @@ class ClothingItemServiceTest {
         // Arrange
         String name = "shirt";
         String cacheKey = "items_by_name_" + name;
-        List<ClothingItem> cachedItems = Collections.singletonList(validItem);
-
-        when(cacheService.contains(cacheKey)).thenReturn(true);
-        when(cacheService.get(cacheKey)).thenReturn(cachedItems);
+        List<ClothingItemView> cachedItems = Collections.singletonList(validView);
+        cacheService.put(cacheKey, cachedItems);
 
         // Act
-        List<ClothingItem> result = clothingItemService.getItemsByName(name);
+        List<ClothingItemView> result = clothingItemService.getItemsByName(name);
 
         // Assert
         assertEquals(cachedItems, result);
-        verify(clothingItemRepository, never()).findByNameContainingIgnoreCase(any());
+        verify(clothingItemRepository, never()).findViewsByNameContaining(any());
     }
 
     @Test
-    void saveItem_shouldSaveAndClearCache() {
+    void saveItem_shouldEvictOnlyEntriesOfUpdatedItem() {
         // Arrange
-        when(clothingItemRepository.save(validItem)).thenReturn(validItem);
+        ClothingItem stored = new ClothingItem(1L, "Old T-Shirt", "S", 9.99);
+        when(clothingItemRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(clothingItemRepository.save(stored)).thenReturn(stored);
 
         // Act
         ClothingItem result = clothingItemService.saveItem(validItem);
 
         // Assert
-        assertEquals(validItem, result);
-        verify(cacheService).clear();
+        assertSame(stored, result);
+        assertEquals("Valid T-Shirt", stored.getName());
+        assertEquals("M", stored.getSize());
+        assertEquals(19.99, stored.getPrice());
+        verify(nameIndex).put(1L, "Valid T-Shirt");
+        verify(changeLog).record(ChangeTarget.ITEM, 1L, 1L, ChangeOperation.UPSERT);
+        verify(cacheService).remove("item_1");
+        verify(cacheService).invalidateTag(CacheTags.item(1L));
+        verify(cacheService).invalidateTagsMatching(any());
+        verify(cacheService, never()).invalidateTag(CacheTags.ALL_ITEMS);
+        verify(cacheService, never()).clear();
     }
 
     @Test
-    void deleteItem_shouldDeleteAndClearCache() {
+    void saveItem_shouldEvictAllItemsListWhenItemCreated() {
+        // Arrange
+        ClothingItem newItem = new ClothingItem(null, "New Jacket", "L", 99.0);
+        ClothingItem savedItem = new ClothingItem(3L, "New Jacket", "L", 99.0);
+        when(clothingItemRepository.save(newItem)).thenReturn(savedItem);
+
+        // Act
+        clothingItemService.saveItem(newItem);
+
+        // Assert
+        verify(cacheService).invalidateTag(CacheTags.ALL_ITEMS);
+        verify(cacheService).invalidateTagsMatching(any());
+        verify(cacheService, never()).clear();
+    }
+
+    @Test
+    void deleteItem_shouldEvictOnlyEntriesOfDeletedItem() {
         // Act
         clothingItemService.deleteItem(1L);
 
         // Assert
         verify(clothingItemRepository).deleteById(1L);
-        verify(cacheService).clear();
+        verify(ratingStatsRepository).deleteByProductId(1L);
+        verify(changeLog).record(ChangeTarget.ITEM, 1L, 1L, ChangeOperation.DELETE);
+        verify(nameIndex).remove(1L);
+        verify(ratingIndex).remove(1L);
+        verify(cacheService).invalidateTag(CacheTags.item(1L));
+        verify(cacheService, never()).clear();
     }
 
     @Test
@@ -177,18 +296,18 @@ class ClothingItemServiceTest {
         // Arrange
         int rating = 4;
         String cacheKey = "items_by_rating_" + rating;
-        List<ClothingItem> expectedItems = Collections.singletonList(validItem);
+        List<ClothingItemView> expectedItems = Collections.singletonList(validView);
 
-        when(cacheService.contains(cacheKey)).thenReturn(false);
-        when(clothingItemRepository.findAllByReviewRatingGreaterThanEqual(rating))
+        when(clothingItemRepository.findViewsByMaxReviewRatingAtLeast(rating))
                 .thenReturn(expectedItems);
 
         // Act
-        List<ClothingItem> result = clothingItemService.getItemsByRating(rating);
+        List<ClothingItemView> result = clothingItemService.getItemsByRating(rating);
 
         // Assert
         assertEquals(expectedItems, result);
-        verify(cacheService).put(cacheKey, expectedItems);
+        verify(cacheService).put(eq(cacheKey), eq(expectedItems),
+                eq(Set.of(CacheTags.ratingSearch(rating), CacheTags.item(1L))));
     }
 
     @Test
@@ -196,17 +315,85 @@ class ClothingItemServiceTest {
         // Arrange
         String name = "jeans";
         String cacheKey = "items_by_name_" + name;
-        List<ClothingItem> dbItems = Collections.singletonList(validItem);
+        List<ClothingItemView> dbItems = Collections.singletonList(validView);
 
-        when(cacheService.contains(cacheKey)).thenReturn(false);
-        when(clothingItemRepository.findByNameContainingIgnoreCase(name)).thenReturn(dbItems);
+        when(clothingItemRepository.findViewsByNameContaining(name)).thenReturn(dbItems);
 
         // Act
-        List<ClothingItem> result = clothingItemService.getItemsByName(name);
+        List<ClothingItemView> result = clothingItemService.getItemsByName(name);
 
         // Assert
         assertEquals(dbItems, result);
-        verify(cacheService).put(cacheKey, dbItems);
+        verify(cacheService).put(eq(cacheKey), eq(dbItems),
+                eq(Set.of(CacheTags.nameSearch(name), CacheTags.item(1L))));
+    }
+
+    @Test
+    void getItemsByName_shouldEscapeLikeWildcardsInDbFallback() {
+        // Arrange
+        String name = "50%_off\\";
+        when(clothingItemRepository.findViewsByNameContaining("50\\%\\_off\\\\"))
+                .thenReturn(List.of(validView));
+
+        // Act
+        List<ClothingItemView> result = clothingItemService.getItemsByName(name);
+
+        // Assert
+        assertEquals(List.of(validView), result);
+    }
+
+    @Test
+    void getItemsByName_shouldUseNameIndexWhenReady() {
+        // Arrange
+        String name = "shirt";
+        BitSet ids = new BitSet();
+        ids.set(1);
+        when(nameIndex.isReady()).thenReturn(true);
+        when(nameIndex.search(name)).thenReturn(ids);
+        when(clothingItemRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(validView));
+
+        // Act
+        List<ClothingItemView> result = clothingItemService.getItemsByName(name);
+
+        // Assert
+        assertEquals(List.of(validView), result);
+        verify(clothingItemRepository, never()).findViewsByNameContaining(any());
+    }
+
+    @Test
+    void getItemsByNameAndRating_shouldEscapeLikeWildcardsInDbFallback() {
+        // Arrange
+        when(clothingItemRepository.findViewsByNameAndMaxReviewRatingAtLeast("100\\%", 4))
+                .thenReturn(List.of(validView));
+
+        // Act
+        List<ClothingItemView> result = clothingItemService.getItemsByNameAndRating("100%", 4);
+
+        // Assert
+        assertEquals(List.of(validView), result);
+    }
+
+    @Test
+    void getItemsByNameAndRating_shouldIntersectIndexesWhenReady() {
+        // Arrange
+        BitSet rated = new BitSet();
+        rated.set(1);
+        rated.set(2);
+        BitSet matched = new BitSet();
+        matched.set(1);
+        when(nameIndex.isReady()).thenReturn(true);
+        when(ratingIndex.isReady()).thenReturn(true);
+        when(ratingIndex.atLeast(4)).thenReturn(rated);
+        when(nameIndex.search("shirt", rated)).thenReturn(matched);
+        when(clothingItemRepository.findViewsByIdIn(List.of(1L))).thenReturn(List.of(validView));
+
+        // Act
+        List<ClothingItemView> result = clothingItemService.getItemsByNameAndRating("shirt", 4);
+
+        // Assert
+        assertEquals(List.of(validView), result);
+        verify(clothingItemRepository, never())
+                .findViewsByNameAndMaxReviewRatingAtLeast(any(), anyInt());
     }
 
     @Test
@@ -214,17 +401,145 @@ class ClothingItemServiceTest {
         // Arrange
         int rating = 5;
         String cacheKey = "items_by_rating_" + rating;
-        List<ClothingItem> cachedItems = Collections.singletonList(validItem);
-
-        when(cacheService.contains(cacheKey)).thenReturn(true);
-        when(cacheService.get(cacheKey)).thenReturn(cachedItems);
+        List<ClothingItemView> cachedItems = Collections.singletonList(validView);
+        cacheService.put(cacheKey, cachedItems);
 
         // Act
-        List<ClothingItem> result = clothingItemService.getItemsByRating(rating);
+        List<ClothingItemView> result = clothingItemService.getItemsByRating(rating);
 
         // Assert
         assertEquals(cachedItems, result);
-        verify(clothingItemRepository, never()).findAllByReviewRatingGreaterThanEqual(anyInt());
+        verify(clothingItemRepository, never()).findViewsByMaxReviewRatingAtLeast(anyInt());
+    }
+
+    @Test
+    void getAllItems_shouldLoadOnceForConcurrentMisses() throws Exception {
+        // Arrange
+        List<ClothingItemView> dbItems = Collections.singletonList(validView);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(clothingItemRepository.findAllViews()).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return dbItems;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<List<ClothingItemView>>> results = new ArrayList<>();
+        results.add(executor.submit(clothingItemService::getAllItems));
+        loading.await();
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(clothingItemService::getAllItems));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<List<ClothingItemView>> result : results) {
+            assertEquals(dbItems, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        verify(clothingItemRepository, times(1)).findAllViews();
+    }
+
+    @Test
+    void getCatalogSnapshot_shouldBeTaggedWithVersionReadBeforeQuery() {
+        // Arrange
+        catalogVersion.advance();
+        when(clothingItemRepository.findAllViews()).thenAnswer(invocation -> {
+            catalogVersion.advance();
+            return List.of(validView);
+        });
+
+        // Act
+        CatalogSnapshot snapshot = clothingItemService.getCatalogSnapshot();
+
+        // Assert
+        assertEquals(1, snapshot.version());
+        assertEquals(List.of(validView), snapshot.items());
+    }
+
+    @Test
+    void saveItem_shouldAdvanceCatalogVersion() {
+        // Arrange
+        ClothingItem newItem = new ClothingItem(null, "New Jacket", "L", 99.0);
+        when(clothingItemRepository.save(newItem))
+                .thenReturn(new ClothingItem(3L, "New Jacket", "L", 99.0));
+
+        // Act
+        clothingItemService.saveItem(newItem);
+
+        // Assert
+        assertEquals(1, catalogVersion.current());
+    }
+
+    @Test
+    void saveItem_shouldFailWhenUpdatedItemDoesNotExist() {
+        // Arrange
+        when(clothingItemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> clothingItemService.saveItem(validItem));
+        verify(clothingItemRepository, never()).save(any());
+    }
+
+    @Test
+    void withReviews_shouldLoadReviewsOfAllItemsInOneQuery() {
+        // Arrange
+        ClothingItemView second = new ClothingItemView(2L, "Jeans", "L", 49.99, 0L);
+        ReviewView review = new ReviewView(7L, 1L, "alice", "Great shirt, fits well", 5);
+        when(reviewRepository.findViewsByProductIdIn(List.of(1L, 2L))).thenReturn(List.of(review));
+
+        // Act
+        List<ClothingItemView> result = clothingItemService.withReviews(List.of(validView, second));
+
+        // Assert
+        assertEquals(List.of(review), result.get(0).reviews());
+        assertEquals(List.of(), result.get(1).reviews());
+        verify(reviewRepository, times(1)).findViewsByProductIdIn(any());
+    }
+
+    @Test
+    void getItemsPage_shouldReturnCursorWhenMoreRowsExist() {
+        // Arrange
+        ClothingItem second = new ClothingItem(2L, "Jeans", "L", 49.99);
+        ClothingItem third = new ClothingItem(3L, "Jacket", "XL", 99.99);
+        when(clothingItemRepository.findPageOrderById(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(validItem, second, third));
+        when(clothingItemRepository.findPageOrderById(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(third));
+
+        // Act
+        CatalogPage first = clothingItemService.getItemsPage(CatalogSort.ID, null, 2);
+        CatalogPage next = clothingItemService.getItemsPage(CatalogSort.ID, first.nextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(validItem, second), first.items());
+        assertNotNull(first.nextCursor());
+        assertEquals(List.of(third), next.items());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void getItemsPage_shouldContinueFromPriceCursor() {
+        // Arrange
+        ClothingItem cheap = new ClothingItem(5L, "Socks", "M", 5.0);
+        when(clothingItemRepository.findPageOrderByPrice(
+                eq(-Double.MAX_VALUE), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(cheap, validItem));
+        when(clothingItemRepository.findPageOrderByPrice(eq(5.0), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(validItem));
+
+        // Act
+        CatalogPage first = clothingItemService.getItemsPage(CatalogSort.PRICE, null, 1);
+        CatalogPage next = clothingItemService.getItemsPage(
+                CatalogSort.PRICE, first.nextCursor(), 1);
+
+        // Assert
+        assertEquals(List.of(cheap), first.items());
+        assertEquals(List.of(validItem), next.items());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,187 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.model.ImportJob;
+import com.clothingstore.model.ImportJobStatus;
+import com.clothingstore.repository.ImportJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportJobServiceTest {
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private ClothingItemService clothingItemService;
+
+    @Mock
+    private BulkItemWriter bulkItemWriter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ImportJobService importJobService;
+    private Path spoolDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spoolDir = Files.createTempDirectory("imports");
+        importJobService = new ImportJobService(importJobRepository, clothingItemService,
+                new BulkItemValidator(Validation.buildDefaultValidatorFactory().getValidator()),
+                bulkItemWriter, new ObjectMapper(), transactionManager,
+                WorkerThreads.platform(), spoolDir.toString(), 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        importJobService.shutdown();
+        try (var files = Files.list(spoolDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(spoolDir);
+    }
+
+    @Test
+    void run_shouldResumeAfterLastCommittedLineAndCountRejectedRows() throws Exception {
+        // Arrange
+        Path spool = spoolDir.resolve("job.ndjson");
+        Files.writeString(spool, String.join("\n",
+                "{\"name\":\"Old Shirt\",\"size\":\"M\",\"price\":10}",
+                "{\"name\":\"Old Jeans\",\"size\":\"L\",\"price\":20}",
+                "{\"name\":\"New Shirt\",\"size\":\"M\",\"price\":30}",
+                "not json",
+                "",
+                "{\"name\":\"New Jeans\",\"size\":\"XL\",\"price\":40}"));
+        ImportJob job = new ImportJob(spool.toString());
+        job.recordChunk(2, 2, 2, 0);
+        when(importJobRepository.findById(any())).thenReturn(Optional.of(job));
+        when(importJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bulkItemWriter.getCommitInterval()).thenReturn(2);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(bulkItemWriter).insert(anyList(), any());
+
+        // Act
+        importJobService.run(1L);
+
+        // Assert
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRowsRead());
+        assertEquals(4, job.getRowsCommitted());
+        assertEquals(1, job.getRowsRejected());
+        assertEquals(6, job.getLastCommittedLine());
+        assertFalse(Files.exists(spool));
+        verify(bulkItemWriter, times(2)).insert(anyList(), any());
+        verify(clothingItemService, times(2)).registerCreatedItems(anyList());
+    }
+
+    @Test
+    void run_shouldSkipFinishedJobs() {
+        // Arrange
+        ImportJob job = new ImportJob("missing.ndjson");
+        job.markCompleted();
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        // Act
+        importJobService.run(1L);
+
+        // Assert
+        verify(bulkItemWriter, never()).insert(anyList(), any());
+        verify(importJobRepository, never()).save(any());
+    }
+
+    @Test
+    void run_shouldMarkJobFailedWhenSpoolFileIsMissing() {
+        // Arrange
+        ImportJob job = new ImportJob(spoolDir.resolve("missing.ndjson").toString());
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(importJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        importJobService.run(1L);
+
+        // Assert
+        assertEquals(ImportJobStatus.FAILED, job.getStatus());
+        assertNotNull(job.getError());
+        verify(bulkItemWriter, never()).insert(anyList(), any());
+    }
+
+    @Test
+    void run_shouldLeaveJobRunningWhenInterrupted() throws Exception {
+        // Arrange
+        Path spool = spoolDir.resolve("job.ndjson");
+        Files.writeString(spool, String.join("\n",
+                "{\"name\":\"Shirt\",\"size\":\"M\",\"price\":10}",
+                "{\"name\":\"Jeans\",\"size\":\"L\",\"price\":20}"));
+        ImportJob job = new ImportJob(spool.toString());
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(importJobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(bulkItemWriter.getCommitInterval()).thenReturn(2);
+        Thread.currentThread().interrupt();
+
+        // Act
+        try {
+            importJobService.run(1L);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // Assert
+        assertEquals(ImportJobStatus.RUNNING, job.getStatus());
+        assertNull(job.getError());
+        assertTrue(Files.exists(spool));
+        verify(bulkItemWriter, never()).insert(anyList(), any());
+    }
+
+    @Test
+    void submit_shouldNotScheduleJobAlreadyPickedUpByWorker() throws Exception {
+        // Arrange
+        ImportJob job = mock(ImportJob.class);
+        when(job.getId()).thenReturn(1L);
+        when(importJobRepository.findAllByStatusInOrderById(anyList()))
+                .thenReturn(List.of(job), List.of());
+        when(importJobRepository.save(any())).thenAnswer(invocation -> {
+            importJobService.resumeUnfinished();
+            return job;
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        when(importJobRepository.findById(1L)).thenAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return Optional.empty();
+        });
+
+        // Act
+        importJobService.submit(new ByteArrayInputStream(
+                "{}".getBytes(StandardCharsets.UTF_8)));
+        release.countDown();
+
+        // Assert
+        verify(importJobRepository, timeout(5000).times(2)).findAllByStatusInOrderById(anyList());
+        verify(importJobRepository, times(1)).findById(1L);
+        verify(importJobRepository, never()).delete(any());
+    }
+}
@@ -0,0 +1,160 @@
+package com.clothingstore.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineWriterTest {
+
+    private static final String LOG = "2025-05-15 a\n2025-05-16 b\n\tat trace\n2025-05-16 c\n"
+            + "2025-05-17 d";
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempDirectory("log-lines").resolve("app.log");
+        Files.writeString(file, LOG);
+    }
+
+    @Test
+    void write_shouldCopyWholeRangeWithoutFilterOrPaging() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = LogLineWriter.write(file, 13, 49, null, 0, LogLineWriter.NO_LIMIT, out);
+
+        // Assert
+        assertEquals("2025-05-16 b\n\tat trace\n2025-05-16 c\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(36, written);
+    }
+
+    @Test
+    void write_shouldApplyOffsetAndLimitToLines() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LogLineWriter.write(file, 0, Files.size(file), null, 1, 2, out);
+
+        // Assert
+        assertEquals("2025-05-16 b\n\tat trace\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_shouldKeepOnlyLinesContainingNeedle() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LogLineWriter.write(file, 0, Files.size(file), bytes("2025-05-16"), 1,
+                LogLineWriter.NO_LIMIT, out);
+
+        // Assert
+        assertEquals("2025-05-16 c\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_shouldEmitLastLineWithoutNewline() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = LogLineWriter.write(file, 0, Files.size(file), bytes("05-17"), 0,
+                LogLineWriter.NO_LIMIT, out);
+
+        // Assert
+        assertEquals("2025-05-17 d", out.toString(StandardCharsets.UTF_8));
+        assertEquals(12, written);
+    }
+
+    @Test
+    void write_shouldHandleLinesLongerThanBuffer() throws IOException {
+        // Arrange
+        String longLine = "x".repeat(200_000) + " needle\n";
+        Files.writeString(file, "short\n" + longLine + "tail\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LogLineWriter.write(file, 0, Files.size(file), bytes("needle"), 0,
+                LogLineWriter.NO_LIMIT, out);
+
+        // Assert
+        assertEquals(longLine, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void write_shouldStopAtEndOfFileTruncatedAfterSliceWasComputed() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = LogLineWriter.write(file, 13, 10_000, null, 0, LogLineWriter.NO_LIMIT,
+                out);
+
+        // Assert
+        assertEquals(LOG.substring(13), out.toString(StandardCharsets.UTF_8));
+        assertEquals(LOG.length() - 13, written);
+    }
+
+    @Test
+    void find_shouldReturnOffsetOfFirstMatchingLine() throws IOException {
+        // Act
+        long found = LogLineWriter.find(file, 0, Files.size(file), bytes("2025-05-16"));
+        long missing = LogLineWriter.find(file, 0, Files.size(file), bytes("2025-06-01"));
+
+        // Assert
+        assertEquals(13, found);
+        assertEquals(-1, missing);
+    }
+
+    @Test
+    void write_shouldStopWhenClientDisconnects() {
+        // Arrange
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> LogLineWriter.write(file, 0, Files.size(file),
+                null, 1, LogLineWriter.NO_LIMIT, disconnected));
+    }
+
+    @Test
+    void write_shouldStopWhenThreadIsInterrupted() {
+        // Arrange
+        Thread.currentThread().interrupt();
+
+        // Act & Assert
+        try {
+            assertThrows(InterruptedIOException.class, () -> LogLineWriter.write(file, 0,
+                    Files.size(file), null, 1, LogLineWriter.NO_LIMIT,
+                    new ByteArrayOutputStream()));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.clothingstore.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Время запроса логов за час: прежний полный просмотр файла ({@code Files.lines} и
+ * {@code contains}) против {@link LogOffsetIndex}. Файл — {@value #DAYS} дней по
+ * {@value #LINES_PER_DAY} строк; индекс строится при первом запросе, поэтому время
+ * первого запроса выводится отдельно.
+ * Запуск: {@code mvn test -Dtest=LogOffsetIndexBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LogOffsetIndexBenchmarkTest {
+
+    private static final int DAYS = 10;
+    private static final int LINES_PER_DAY = 200_000;
+    private static final int ROUNDS = 20;
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    private static final OffsetDateTime START =
+            OffsetDateTime.of(2025, 5, 1, 0, 0, 0, 0, ZoneOffset.ofHours(3));
+
+    @Test
+    void hourQuery_shouldNotScanWholeFile() throws IOException {
+        Path source = Files.createTempDirectory("log-bench").resolve("app.log");
+        write(source);
+        OffsetDateTime from = START.plusDays(DAYS / 2).plusHours(12);
+        String hour = from.toLocalDateTime().toString().substring(0, 13);
+
+        long scanStarted = System.nanoTime();
+        long scanned = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            try (Stream<String> lines = Files.lines(source)) {
+                scanned = lines.filter(line -> line.contains(hour)).count();
+            }
+        }
+        double scanMillis = (System.nanoTime() - scanStarted) / 1e6 / ROUNDS;
+
+        LogOffsetIndex index = new LogOffsetIndex(source.toString(), DataSize.ofKilobytes(64));
+        Instant fromInstant = from.toInstant();
+        Instant toInstant = from.plusHours(1).toInstant();
+        long buildStarted = System.nanoTime();
+        index.find(fromInstant, toInstant);
+        double firstMillis = (System.nanoTime() - buildStarted) / 1e6;
+
+        long indexStarted = System.nanoTime();
+        LogOffsetIndex.Slice slice = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            slice = index.find(fromInstant, toInstant).orElseThrow();
+        }
+        double indexMillis = (System.nanoTime() - indexStarted) / 1e6 / ROUNDS;
+
+        System.out.printf("file %d MB, %d matching lines, slice %d KB, %d index points%n",
+                Files.size(source) >> 20, scanned, slice.length() >> 10, index.size());
+        System.out.printf("%-22s %10.2f ms%n", "full scan", scanMillis);
+        System.out.printf("%-22s %10.2f ms%n", "index, first query", firstMillis);
+        System.out.printf("%-22s %10.3f ms%n", "index", indexMillis);
+        assertTrue(scanned > 0);
+        assertTrue(indexMillis < scanMillis);
+    }
+
+    private static void write(Path source) throws IOException {
+        long stepMillis = 86_400_000L / LINES_PER_DAY;
+        try (BufferedWriter writer = Files.newBufferedWriter(source)) {
+            for (long i = 0; i < (long) DAYS * LINES_PER_DAY; i++) {
+                OffsetDateTime time = START.plusNanos(i * stepMillis * 1_000_000);
+                writer.write(TIMESTAMP.format(time));
+                writer.write("  INFO 1 --- [clothingstore] [nio-8080-exec-1] "
+                        + "c.c.logging.LoggingAspect : Вызов метода: getItemById(..)\n");
+                if (i % 1000 == 0) {
+                    writer.write("\tat com.clothingstore.App.main(App.java:10)\n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.clothingstore.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogOffsetIndexTest {
+
+    private static final String FIRST_DAY =
+            "2025-05-15T23:59:58.100+03:00  INFO 1 --- [main] c.c.App : late\n"
+            + "2025-05-15T23:59:59.900+03:00 ERROR 1 --- [main] c.c.App : failed\n"
+            + "\tat com.clothingstore.App.main(App.java:10)\n";
+    private static final String SECOND_DAY =
+            "2025-05-16T00:00:00.000+03:00  INFO 1 --- [main] c.c.App : mentions 2025-05-15\n"
+            + "2025-05-16T12:30:00.000+03:00  INFO 1 --- [main] c.c.App : noon\n"
+            + "2025-05-16T23:00:00.000+03:00  WARN 1 --- [main] c.c.App : night\n";
+
+    private Path source;
+    private LogOffsetIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = Files.createTempDirectory("log-index").resolve("app.log");
+        index = new LogOffsetIndex(source.toString(), DataSize.ofBytes(64));
+    }
+
+    @Test
+    void find_shouldReturnExactEntriesOfIntervalWithContinuationLines() throws IOException {
+        // Arrange
+        Files.writeString(source, FIRST_DAY + SECOND_DAY);
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-05-15T00:00:00+03:00"),
+                time("2025-05-16T00:00:00+03:00")).orElseThrow();
+
+        // Assert
+        assertEquals(FIRST_DAY, read(slice));
+        assertTrue(index.size() > 1);
+    }
+
+    @Test
+    void find_shouldNotMatchDateMentionedInsideMessage() throws IOException {
+        // Arrange
+        Files.writeString(source, FIRST_DAY + SECOND_DAY);
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-05-16T00:00:00+03:00"),
+                time("2025-05-17T00:00:00+03:00")).orElseThrow();
+
+        // Assert
+        assertEquals(SECOND_DAY, read(slice));
+    }
+
+    @Test
+    void find_shouldReturnTimeRangeInsideDay() throws IOException {
+        // Arrange
+        Files.writeString(source, FIRST_DAY + SECOND_DAY);
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-05-16T12:00:00+03:00"),
+                time("2025-05-16T13:00:00+03:00")).orElseThrow();
+
+        // Assert
+        assertEquals("2025-05-16T12:30:00.000+03:00  INFO 1 --- [main] c.c.App : noon\n",
+                read(slice));
+    }
+
+    @Test
+    void find_shouldReturnEmptySliceWhenNoEntriesInInterval() throws IOException {
+        // Arrange
+        Files.writeString(source, FIRST_DAY + SECOND_DAY);
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-06-01T00:00:00+03:00"),
+                time("2025-06-02T00:00:00+03:00")).orElseThrow();
+
+        // Assert
+        assertTrue(slice.isEmpty());
+    }
+
+    @Test
+    void find_shouldIndexAppendedEntriesIncrementally() throws IOException {
+        // Arrange
+        Files.writeString(source, FIRST_DAY);
+        index.find(time("2025-05-15T00:00:00+03:00"), time("2025-05-16T00:00:00+03:00"));
+        Files.writeString(source, SECOND_DAY + "2025-05-17T00:00:01.000+03:00  INFO partial",
+                StandardOpenOption.APPEND);
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-05-16T00:00:00+03:00"),
+                time("2025-05-18T00:00:00+03:00")).orElseThrow();
+
+        // Assert
+        assertEquals(SECOND_DAY, read(slice));
+    }
+
+    @Test
+    void find_shouldCompareTimestampsAcrossOffsets() throws IOException {
+        // Arrange
+        Files.writeString(source, "2025-05-16T08:59:59.999Z  INFO before\n"
+                + "2025-05-16T12:00:00.000+03:00  INFO inside\n"
+                + "2025-05-16T09:00:00.001Z  INFO after\n");
+
+        // Act
+        LogOffsetIndex.Slice slice = index.find(time("2025-05-16T09:00:00Z"),
+                time("2025-05-16T09:00:00.001Z")).orElseThrow();
+
+        // Assert
+        assertEquals("2025-05-16T12:00:00.000+03:00  INFO inside\n", read(slice));
+    }
+
+    @Test
+    void find_shouldReturnEmptyWhenLogFileIsMissing() throws IOException {
+        // Act
+        Optional<LogOffsetIndex.Slice> slice = index.find(Instant.EPOCH, Instant.now());
+
+        // Assert
+        assertTrue(slice.isEmpty());
+    }
+
+    private String read(LogOffsetIndex.Slice slice) throws IOException {
+        byte[] bytes = Files.readAllBytes(source);
+        return new String(bytes, (int) slice.start(), (int) slice.length(),
+                StandardCharsets.UTF_8);
+    }
+
+    private static Instant time(String value) {
+        return OffsetDateTime.parse(value).toInstant();
+    }
+}
@@ -0,0 +1,116 @@
+package com.clothingstore.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSnapshotterTest {
+
+    private Path dir;
+    private Path source;
+    private LogSnapshotter snapshotter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("log-snapshots");
+        source = dir.resolve("app.log");
+        snapshotter = new LogSnapshotter(source.toString());
+    }
+
+    @Test
+    void snapshot_shouldStopAtLastCompleteLine() throws IOException {
+        // Arrange
+        Files.writeString(source, "first\nsecond\nthi");
+        Path target = dir.resolve("full.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, false);
+
+        // Assert
+        assertEquals("first\nsecond\n", Files.readString(target));
+        assertEquals(0, range.from());
+        assertEquals(13, range.to());
+    }
+
+    @Test
+    void snapshot_shouldExcludePartialLineLongerThanScanWindow() throws IOException {
+        // Arrange
+        Files.writeString(source, "first\n" + "x".repeat(200_000));
+        Path target = dir.resolve("full.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, false);
+
+        // Assert
+        assertEquals("first\n", Files.readString(target));
+        assertEquals(6, range.to());
+    }
+
+    @Test
+    void snapshot_shouldBeEmptyWithoutCompleteLine() throws IOException {
+        // Arrange
+        Files.writeString(source, "partial");
+        Path target = dir.resolve("full.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, false);
+
+        // Assert
+        assertEquals("", Files.readString(target));
+        assertEquals(0, range.to());
+    }
+
+    @Test
+    void snapshot_shouldCopyOnlyAppendedBytesForDelta() throws IOException {
+        // Arrange
+        Files.writeString(source, "first\n");
+        snapshotter.snapshot(dir.resolve("full.log"), false);
+        Files.writeString(source, "second\n", StandardOpenOption.APPEND);
+        Path target = dir.resolve("delta.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, true);
+
+        // Assert
+        assertEquals("second\n", Files.readString(target));
+        assertEquals(6, range.from());
+        assertEquals(13, range.to());
+    }
+
+    @Test
+    void snapshot_shouldRestartDeltaFromZeroAfterRotation() throws IOException {
+        // Arrange
+        Files.writeString(source, "old line one\nold line two\n");
+        snapshotter.snapshot(dir.resolve("full.log"), false);
+        Files.delete(source);
+        Files.writeString(source, "new\n");
+        Path target = dir.resolve("delta.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, true);
+
+        // Assert
+        assertEquals("new\n", Files.readString(target));
+        assertEquals(0, range.from());
+    }
+
+    @Test
+    void snapshot_shouldCopyWholeFileForDeltaWithoutPreviousSnapshot() throws IOException {
+        // Arrange
+        Files.writeString(source, "only\n");
+        Path target = dir.resolve("delta.log");
+
+        // Act
+        LogSnapshotter.Range range = snapshotter.snapshot(target, true);
+
+        // Assert
+        assertEquals("only\n", Files.readString(target));
+        assertEquals(0, range.from());
+    }
+}
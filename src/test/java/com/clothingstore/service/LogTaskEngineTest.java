@@ -0,0 +1,188 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.LogTaskState;
+import com.clothingstore.dto.LogTaskStatus;
+import com.clothingstore.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTaskEngineTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Path tempDir;
+    private LogTaskEngine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("log-tasks");
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        engine.shutdown();
+    }
+
+    @Test
+    void submit_shouldShareActiveTaskWithSameKey() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+        LogTaskStatus first = engine.submit("full-log", this::blockingWork);
+
+        // Act
+        LogTaskStatus second = engine.submit("full-log", this::blockingWork);
+
+        // Assert
+        assertEquals(first.id(), second.id());
+        release.countDown();
+        assertEquals(LogTaskState.DONE, awaitFinished(first.id()).state());
+        assertNotEquals(first.id(), engine.submit("full-log", this::file).id());
+    }
+
+    @Test
+    void getStatus_shouldReportQueuePositionBehindRunningTask() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+        engine.submit("a", this::blockingWork);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        engine.submit("b", this::file);
+        LogTaskStatus third = engine.submit("c", this::file);
+
+        // Act
+        LogTaskStatus status = engine.getStatus(third.id()).orElseThrow();
+
+        // Assert
+        assertEquals(LogTaskState.QUEUED, status.state());
+        assertEquals(Integer.valueOf(2), status.queuePosition());
+    }
+
+    @Test
+    void cancel_shouldRemoveQueuedTaskFromQueue() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+        engine.submit("a", this::blockingWork);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        LogTaskStatus queued = engine.submit("b", this::file);
+
+        // Act
+        LogTaskStatus cancelled = engine.cancel(queued.id()).orElseThrow();
+
+        // Assert
+        assertEquals(LogTaskState.CANCELLED, cancelled.state());
+        assertNull(cancelled.queuePosition());
+        assertEquals(Integer.valueOf(1), engine.getStatus(engine.submit("c", this::file).id())
+                .orElseThrow().queuePosition());
+    }
+
+    @Test
+    void cancel_shouldInterruptRunningTask() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+        LogTaskStatus running = engine.submit("a", this::blockingWork);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // Act
+        engine.cancel(running.id());
+
+        // Assert
+        assertEquals(LogTaskState.CANCELLED, awaitFinished(running.id()).state());
+        assertTrue(engine.getResult(running.id()).isEmpty());
+    }
+
+    @Test
+    void cancel_shouldNotMoveFinishTimeOfFinishedTask() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+        LogTaskStatus task = engine.submit("a", this::file);
+        LogTaskStatus finished = awaitFinished(task.id());
+        Thread.sleep(50);
+
+        // Act
+        LogTaskStatus afterCancel = engine.cancel(task.id()).orElseThrow();
+
+        // Assert
+        assertEquals(LogTaskState.DONE, afterCancel.state());
+        assertEquals(finished.elapsedMillis(), afterCancel.elapsedMillis());
+    }
+
+    @Test
+    void submit_shouldRejectTaskWhenQueueIsFull() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 1, Duration.ofHours(1));
+        engine.submit("a", this::blockingWork);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        engine.submit("b", this::file);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> engine.submit("c", this::file));
+    }
+
+    @Test
+    void submit_shouldRecordFailure() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ofHours(1));
+
+        // Act
+        LogTaskStatus task = engine.submit("a", id -> {
+            throw new IOException("disk full");
+        });
+
+        // Assert
+        LogTaskStatus status = awaitFinished(task.id());
+        assertEquals(LogTaskState.FAILED, status.state());
+        assertEquals("disk full", status.error());
+    }
+
+    @Test
+    void removeExpired_shouldDropFinishedTaskAndDeleteItsFile() throws InterruptedException {
+        // Arrange
+        engine = engine(1, 4, Duration.ZERO);
+        LogTaskStatus task = engine.submit("a", this::file);
+        awaitFinished(task.id());
+        Path result = engine.getResult(task.id()).orElseThrow();
+
+        // Act
+        engine.removeExpired();
+
+        // Assert
+        assertTrue(engine.getStatus(task.id()).isEmpty());
+        assertFalse(Files.exists(result));
+    }
+
+    private LogTaskEngine engine(int threads, int queueCapacity, Duration ttl) {
+        return new LogTaskEngine(WorkerThreads.platform(), threads, queueCapacity, ttl);
+    }
+
+    private Path blockingWork(String taskId) throws IOException, InterruptedException {
+        started.countDown();
+        release.await();
+        return file(taskId);
+    }
+
+    private Path file(String taskId) throws IOException {
+        return Files.writeString(tempDir.resolve("log_" + taskId + ".log"), "line");
+    }
+
+    private LogTaskStatus awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        LogTaskStatus status = engine.getStatus(id).orElseThrow();
+        while (!status.state().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = engine.getStatus(id).orElseThrow();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,124 @@
+package com.clothingstore.service;
+
+import com.clothingstore.cache.CacheService;
+import com.clothingstore.cache.CacheTags;
+import com.clothingstore.dto.ReviewSummary;
+import com.clothingstore.model.ItemRatingStats;
+import com.clothingstore.repository.ItemRatingStatsRepository;
+import com.clothingstore.search.RatingBitmapIndex;
+import com.clothingstore.search.SearchIndexLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatingStatsServiceTest {
+
+    @Mock
+    private ItemRatingStatsRepository ratingStatsRepository;
+
+    @Spy
+    private CacheService cacheService = new CacheService();
+
+    @Mock
+    private RatingBitmapIndex ratingIndex;
+
+    @Mock
+    private SearchIndexLoader searchIndexLoader;
+
+    @InjectMocks
+    private RatingStatsService ratingStatsService;
+
+    @Test
+    void update_shouldApplyChangeUnderRowLockAndRefreshIndex() {
+        // Arrange
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        stats.addRating(2);
+        when(ratingStatsRepository.findForUpdate(1L)).thenReturn(Optional.of(stats));
+
+        // Act
+        ratingStatsService.update(1L, current -> current.addRating(5));
+
+        // Assert
+        verify(ratingStatsRepository).insertIfAbsent(1L);
+        verify(ratingStatsRepository).save(stats);
+        assertEquals(5, stats.getMaxRating());
+        verify(ratingIndex).put(1L, 5, stats.getRevision());
+        verify(cacheService).invalidateTags(List.of(CacheTags.item(1L),
+                CacheTags.ratingSearch(3), CacheTags.ratingSearch(4), CacheTags.ratingSearch(5)));
+    }
+
+    @Test
+    void update_shouldOnlyEvictItemWhenMaxRatingIsUnchanged() {
+        // Arrange
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        stats.addRating(5);
+        when(ratingStatsRepository.findForUpdate(1L)).thenReturn(Optional.of(stats));
+
+        // Act
+        ratingStatsService.update(1L, current -> current.addRating(3));
+
+        // Assert
+        verify(cacheService).invalidateTags(List.of(CacheTags.item(1L)));
+    }
+
+    @Test
+    void rebuild_shouldRecomputeStatsAndReloadRatingIndex() {
+        // Arrange
+        when(ratingStatsRepository.upsertAllFromReviews()).thenReturn(3);
+
+        // Act
+        int rebuilt = ratingStatsService.rebuild();
+
+        // Assert
+        assertEquals(3, rebuilt);
+        verify(ratingStatsRepository).lockReviews();
+        verify(ratingStatsRepository).resetStatsWithoutReviews();
+        verify(searchIndexLoader).loadRatings();
+    }
+
+    @Test
+    void getSummary_shouldBuildHistogramFromStatsAndCacheIt() {
+        // Arrange
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        stats.addRating(5);
+        stats.addRating(5);
+        stats.addRating(2);
+        when(ratingStatsRepository.findById(1L)).thenReturn(Optional.of(stats));
+
+        // Act
+        ReviewSummary first = ratingStatsService.getSummary(1L);
+        ReviewSummary second = ratingStatsService.getSummary(1L);
+
+        // Assert
+        assertEquals(3, first.reviewCount());
+        assertEquals(4.0, first.averageRating(), 1e-9);
+        assertEquals(Map.of(1, 0L, 2, 1L, 3, 0L, 4, 0L, 5, 2L), first.histogram());
+        assertSame(first, second);
+        verify(ratingStatsRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getSummary_shouldReturnZerosForItemWithoutReviews() {
+        // Arrange
+        when(ratingStatsRepository.findById(2L)).thenReturn(Optional.empty());
+
+        // Act
+        ReviewSummary summary = ratingStatsService.getSummary(2L);
+
+        // Assert
+        assertEquals(0, summary.reviewCount());
+        assertEquals(0.0, summary.averageRating(), 1e-9);
+        assertEquals(5, summary.histogram().size());
+    }
+}
@@ -1,20 +1,40 @@
 package com.clothingstore.service;
 
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.ReviewPage;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.dto.ReviewSort;
+import com.clothingstore.dto.ReviewSummary;
+import com.clothingstore.dto.ReviewView;
+import com.clothingstore.dto.RowViolation;
+import com.clothingstore.exception.BadRequestException;
 import com.clothingstore.exception.ResourceNotFoundException;
+import com.clothingstore.model.ChangeOperation;
+import com.clothingstore.model.ChangeTarget;
 import com.clothingstore.model.ClothingItem;
+import com.clothingstore.model.ItemRatingStats;
 import com.clothingstore.model.Review;
 import com.clothingstore.repository.ClothingItemRepository;
+import com.clothingstore.repository.ReviewAuthor;
 import com.clothingstore.repository.ReviewRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +49,18 @@ class ReviewServiceTest {
     @Mock
     private ClothingItemRepository clothingItemRepository;
 
+    @Mock
+    private RatingStatsService ratingStatsService;
+
+    @Mock
+    private BulkReviewWriter bulkReviewWriter;
+
+    @Mock
+    private CatalogChangeLog changeLog;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private ReviewService reviewService;
 
@@ -58,6 +90,8 @@ class ReviewServiceTest {
         // Assert
         assertEquals(validReview, result);
         verify(reviewRepository).save(validReview);
+        verify(changeLog).record(eq(ChangeTarget.REVIEW), any(), eq(1L),
+                eq(ChangeOperation.UPSERT));
     }
 
     @Test
@@ -103,11 +137,12 @@ class ReviewServiceTest {
     @Test
     void getReviewsByClothingItemId_shouldReturnReviews() {
         // Arrange
-        List<Review> expectedReviews = Collections.singletonList(validReview);
-        when(reviewRepository.findByClothingItemId(1L)).thenReturn(expectedReviews);
+        List<ReviewView> expectedReviews = Collections.singletonList(
+                new ReviewView(1L, 1L, "alice", "Great shirt, fits well", 5));
+        when(reviewRepository.findViewsByProductId(1L)).thenReturn(expectedReviews);
 
         // Act
-        List<Review> result = reviewService.getReviewsByClothingItemId(1L);
+        List<ReviewView> result = reviewService.getReviewsByClothingItemId(1L);
 
         // Assert
         assertEquals(expectedReviews, result);
@@ -117,15 +152,67 @@ class ReviewServiceTest {
     @Test
     void getReviewsByClothingItemId_shouldReturnEmptyListWhenNoReviews() {
         // Arrange
-        when(reviewRepository.findByClothingItemId(1L)).thenReturn(Collections.emptyList());
+        when(reviewRepository.findViewsByProductId(1L)).thenReturn(Collections.emptyList());
 
         // Act
-        List<Review> result = reviewService.getReviewsByClothingItemId(1L);
+        List<ReviewView> result = reviewService.getReviewsByClothingItemId(1L);
 
         // Assert
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void getReviewsPage_shouldReturnCursorWhenMoreReviewsExist() {
+        // Arrange
+        ReviewView newest = new ReviewView(30L, 1L, "carol", "Third review text", 3);
+        ReviewView middle = new ReviewView(20L, 1L, "bob", "Second review text", 5);
+        ReviewView oldest = new ReviewView(10L, 1L, "alice", "First review text", 4);
+        when(reviewRepository.findPageNewest(eq(1L), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of(newest, middle, oldest));
+        when(reviewRepository.findPageNewest(eq(1L), eq(20L), any(Pageable.class)))
+                .thenReturn(List.of(oldest));
+        when(ratingStatsService.getSummary(1L))
+                .thenReturn(new ReviewSummary(1L, 3, 4.0, Map.of()));
+
+        // Act
+        ReviewPage first = reviewService.getReviewsPage(1L, ReviewSort.NEWEST, null, 2);
+        ReviewPage next = reviewService.getReviewsPage(1L, ReviewSort.NEWEST,
+                first.nextCursor(), 2);
+
+        // Assert
+        assertEquals(List.of(newest, middle), first.reviews());
+        assertEquals(3, first.totalCount());
+        assertNotNull(first.nextCursor());
+        assertEquals(List.of(oldest), next.reviews());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void getReviewsPage_shouldContinueFromRatingCursor() {
+        // Arrange
+        ReviewView best = new ReviewView(20L, 1L, "bob", "Second review text", 5);
+        ReviewView good = new ReviewView(30L, 1L, "carol", "Third review text", 4);
+        when(reviewRepository.findPageByRating(eq(1L), eq(6), eq(Long.MAX_VALUE),
+                any(Pageable.class))).thenReturn(List.of(best, good));
+        when(ratingStatsService.getSummary(1L))
+                .thenReturn(new ReviewSummary(1L, 3, 4.0, Map.of()));
+
+        // Act
+        ReviewPage first = reviewService.getReviewsPage(1L, ReviewSort.RATING, null, 1);
+        reviewService.getReviewsPage(1L, ReviewSort.RATING, first.nextCursor(), 1);
+
+        // Assert
+        assertEquals(List.of(best), first.reviews());
+        verify(reviewRepository).findPageByRating(eq(1L), eq(5), eq(20L), any(Pageable.class));
+    }
+
+    @Test
+    void getReviewsPage_shouldRejectMalformedCursor() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> reviewService.getReviewsPage(1L, ReviewSort.NEWEST, "%%%", 10));
+    }
+
     @Test
     void getReviewById_shouldReturnReviewWhenExists() {
         // Arrange
@@ -154,13 +241,110 @@ class ReviewServiceTest {
     @Test
     void deleteReview_shouldDeleteReview() {
         // Arrange
-        doNothing().when(reviewRepository).deleteById(1L);
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        stats.addRating(5);
+        when(reviewRepository.findById(1L)).thenReturn(Optional.of(validReview));
+        applyStatsChangesTo(stats);
 
         // Act
         reviewService.deleteReview(1L);
 
         // Assert
         verify(reviewRepository).deleteById(1L);
+        verify(changeLog).record(ChangeTarget.REVIEW, 1L, 1L, ChangeOperation.DELETE);
+        assertEquals(0, stats.getReviewCount());
+        assertEquals(0, stats.getMaxRating());
+    }
+
+    @Test
+    void deleteReview_shouldThrowExceptionWhenReviewNotFound() {
+        // Arrange
+        when(reviewRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> reviewService.deleteReview(1L));
+        verify(reviewRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void saveReview_shouldUpdateRatingStats() {
+        // Arrange
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        stats.addRating(2);
+        when(clothingItemRepository.existsById(1L)).thenReturn(true);
+        when(reviewRepository.save(validReview)).thenReturn(validReview);
+        applyStatsChangesTo(stats);
+
+        // Act
+        reviewService.saveReview(validReview);
+
+        // Assert
+        assertEquals(2, stats.getReviewCount());
+        assertEquals(5, stats.getMaxRating());
+        assertEquals(3.5, stats.getAverageRating());
+        assertEquals(1, stats.getCount(5));
+    }
+
+    @Test
+    void saveReviewsBulk_shouldRejectInvalidOrphanAndDuplicateRows() {
+        // Arrange
+        List<ReviewRequest> requests = Arrays.asList(
+                new ReviewRequest(1L, "alice", "Fits perfectly, great fabric", 5),
+                new ReviewRequest(1L, "bob", "Already reviewed this one", 4),
+                new ReviewRequest(2L, "carol", "Item does not exist anymore", 3),
+                new ReviewRequest(1L, "alice", "Second review by the same user", 2),
+                new ReviewRequest(1L, "dave", "short", 9),
+                null);
+        ItemRatingStats stats = new ItemRatingStats(1L);
+        when(clothingItemRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        when(reviewRepository.findAuthors(any(), any()))
+                .thenReturn(List.of(new ReviewAuthor(1L, "bob")));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return List.of(100L);
+        }).when(bulkReviewWriter).insert(anyList(), any());
+        applyStatsChangesTo(stats);
+
+        // Act
+        BulkSaveReport report = reviewService.saveReviewsBulk(requests);
+
+        // Assert
+        assertEquals(1, report.saved());
+        assertEquals(Long.valueOf(100L), report.rows().get(0).id());
+        assertEquals("username", report.rows().get(1).violations().get(0).field());
+        assertEquals("productId", report.rows().get(2).violations().get(0).field());
+        assertEquals("username", report.rows().get(3).violations().get(0).field());
+        assertEquals(2, report.rows().get(4).violations().size());
+        assertEquals(List.of(RowViolation.ofRow("Review is null")),
+                report.rows().get(5).violations());
+        verify(clothingItemRepository, times(1)).findExistingIds(any());
+        verify(reviewRepository, times(1)).findAuthors(any(), any());
+        assertEquals(1, stats.getCount(5));
+    }
+
+    @Test
+    void saveReviewsBulk_shouldRejectAcceptedRowsWhenInsertFails() {
+        // Arrange
+        List<ReviewRequest> requests = List.of(
+                new ReviewRequest(1L, "alice", "Fits perfectly, great fabric", 5));
+        when(clothingItemRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        doThrow(new DataIntegrityViolationException("constraint"))
+                .when(bulkReviewWriter).insert(anyList(), any());
+
+        // Act
+        BulkSaveReport report = reviewService.saveReviewsBulk(requests);
+
+        // Assert
+        assertEquals(0, report.saved());
+        assertEquals(List.of(RowViolation.ofRow("Database error: constraint")),
+                report.rows().get(0).violations());
+    }
+
+    private void applyStatsChangesTo(ItemRatingStats stats) {
+        doAnswer(invocation -> {
+            invocation.<Consumer<ItemRatingStats>>getArgument(1).accept(stats);
+            return null;
+        }).when(ratingStatsService).update(eq(stats.getProductId()), any());
     }
 
     @Test
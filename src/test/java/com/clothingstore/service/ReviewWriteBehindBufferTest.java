@@ -0,0 +1,228 @@
+package com.clothingstore.service;
+
+import com.clothingstore.config.WorkerThreads;
+import com.clothingstore.dto.BulkRowResult;
+import com.clothingstore.dto.BulkSaveReport;
+import com.clothingstore.dto.ProvisionalReview;
+import com.clothingstore.dto.ReviewRequest;
+import com.clothingstore.dto.WriteBehindStatistics;
+import com.clothingstore.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewWriteBehindBufferTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Mock
+    private ReviewService reviewService;
+
+    private Path spoolDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        spoolDir = Files.createTempDirectory("review-spool");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (var files = Files.list(spoolDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(spoolDir);
+    }
+
+    @Test
+    void submit_ShouldAcknowledgeWithProvisionalIdsAndFlushOnShutdown() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 10, 10);
+        when(reviewService.flushReviews(anyList()))
+                .thenAnswer(invocation -> savedAll(invocation.getArgument(0)));
+
+        // Act
+        ProvisionalReview first = buffer.submit(request("alice"));
+        ProvisionalReview second = buffer.submit(request("bob"));
+        buffer.shutdown();
+
+        // Assert
+        assertTrue(first.provisionalId() < 0);
+        assertNotEquals(first.provisionalId(), second.provisionalId());
+        verify(reviewService).flushReviews(List.of(request("alice"), request("bob")));
+        WriteBehindStatistics stats = buffer.stats();
+        assertEquals(0, stats.queueDepth());
+        assertEquals(2, stats.accepted());
+        assertEquals(2, stats.saved());
+        assertEquals(1, stats.flushes());
+    }
+
+    @Test
+    void submit_ShouldRejectWhenQueueIsFull() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 1, 10);
+        buffer.submit(request("alice"));
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> buffer.submit(request("bob")));
+        assertEquals(1, buffer.stats().queueDepth());
+        when(reviewService.flushReviews(anyList()))
+                .thenAnswer(invocation -> savedAll(invocation.getArgument(0)));
+        buffer.shutdown();
+    }
+
+    @Test
+    void submit_ShouldRejectAfterShutdown() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 10, 10);
+        buffer.shutdown();
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> buffer.submit(request("alice")));
+        verifyNoInteractions(reviewService);
+    }
+
+    @Test
+    void flush_ShouldRetryFailedBatch() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 10, 2);
+        when(reviewService.flushReviews(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenAnswer(invocation -> savedAll(invocation.getArgument(0)));
+
+        // Act
+        buffer.submit(request("alice"));
+        buffer.submit(request("bob"));
+        buffer.shutdown();
+
+        // Assert
+        verify(reviewService, times(2)).flushReviews(List.of(request("alice"), request("bob")));
+        WriteBehindStatistics stats = buffer.stats();
+        assertEquals(1, stats.flushFailures());
+        assertEquals(1, stats.flushes());
+        assertEquals(2, stats.saved());
+        assertEquals(0, stats.queueDepth());
+    }
+
+    @Test
+    void submit_ShouldFailWhenDisabled() {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(false, 10, 10);
+
+        // Act & Assert
+        assertFalse(buffer.isEnabled());
+        assertThrows(IllegalStateException.class, () -> buffer.submit(request("alice")));
+    }
+
+    @Test
+    void flush_ShouldSplitPoisonBatchAndDeadLetterFailingReview() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 10, 4);
+        when(reviewService.flushReviews(anyList())).thenAnswer(invocation -> {
+            List<ReviewRequest> requests = invocation.getArgument(0);
+            if (requests.contains(request("poison"))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return savedAll(requests);
+        });
+
+        // Act
+        buffer.submit(request("alice"));
+        buffer.submit(request("poison"));
+        buffer.submit(request("bob"));
+        buffer.submit(request("carol"));
+        buffer.shutdown();
+
+        // Assert
+        WriteBehindStatistics stats = buffer.stats();
+        assertEquals(3, stats.saved());
+        assertEquals(1, stats.deadLettered());
+        assertEquals(0, stats.queueDepth());
+        List<String> deadLetters =
+                Files.readAllLines(spoolDir.resolve(ReviewWriteBehindBuffer.DEAD_LETTER_FILE));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("poison"));
+    }
+
+    @Test
+    void shutdown_ShouldSpoolQueueWhenDatabaseIsUnavailableAndRestoreOnStart() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer stopped = buffer(true, 10, 10, NEVER);
+        when(reviewService.flushReviews(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        stopped.submit(request("alice"));
+        stopped.submit(request("bob"));
+
+        // Act
+        stopped.shutdown();
+        when(reviewService.flushReviews(anyList()))
+                .thenAnswer(invocation -> savedAll(invocation.getArgument(0)));
+        ReviewWriteBehindBuffer restarted = buffer(true, 10, 10, NEVER);
+        int restored = restarted.stats().queueDepth();
+        restarted.shutdown();
+
+        // Assert
+        assertEquals(2, restored);
+        assertEquals(2, restarted.stats().saved());
+        assertFalse(Files.exists(spoolDir.resolve(ReviewWriteBehindBuffer.PENDING_FILE)));
+        verify(reviewService, times(2)).flushReviews(List.of(request("alice"), request("bob")));
+    }
+
+    @Test
+    void shutdown_ShouldSpoolQueueAndKeepInterruptWhenInterrupted() throws Exception {
+        // Arrange
+        ReviewWriteBehindBuffer buffer = buffer(true, 10, 10, Duration.ofSeconds(5));
+        lenient().when(reviewService.flushReviews(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        buffer.submit(request("alice"));
+        Thread.currentThread().interrupt();
+
+        // Act
+        buffer.shutdown();
+        boolean interrupted = Thread.interrupted();
+
+        // Assert
+        assertTrue(interrupted);
+        assertEquals(0, buffer.stats().queueDepth());
+        assertEquals(1, Files.readAllLines(
+                spoolDir.resolve(ReviewWriteBehindBuffer.PENDING_FILE)).size());
+    }
+
+    private ReviewWriteBehindBuffer buffer(boolean enabled, int capacity, int flushSize) {
+        return buffer(enabled, capacity, flushSize, Duration.ofMillis(1));
+    }
+
+    private ReviewWriteBehindBuffer buffer(boolean enabled, int capacity, int flushSize,
+                                           Duration retryBackoff) {
+        return new ReviewWriteBehindBuffer(reviewService, new ObjectMapper(),
+                WorkerThreads.platform(), enabled, capacity, flushSize, NEVER, 2, retryBackoff,
+                spoolDir.toString());
+    }
+
+    private static ReviewRequest request(String username) {
+        return new ReviewRequest(1L, username, "Nice", 5);
+    }
+
+    private static BulkSaveReport savedAll(List<ReviewRequest> requests) {
+        return BulkSaveReport.of(IntStream.range(0, requests.size())
+                .mapToObj(index -> BulkRowResult.saved(index, index + 100L))
+                .toList());
+    }
+}